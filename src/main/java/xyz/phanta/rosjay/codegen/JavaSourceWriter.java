@@ -0,0 +1,118 @@
+package xyz.phanta.rosjay.codegen;
+
+import java.util.Set;
+import java.util.TreeSet;
+
+class JavaSourceWriter {
+
+    static String literal(String value) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20 || c > 0x7E) {
+                        sb.append(String.format("\\u%04x", (int)c));
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private final Set<String> imports = new TreeSet<>();
+    private final StringBuilder body = new StringBuilder();
+    private int indent = 0;
+
+    JavaSourceWriter addImport(String className) {
+        imports.add(className);
+        return this;
+    }
+
+    JavaSourceWriter line(String line) {
+        if (!line.isEmpty()) {
+            for (int i = 0; i < indent; i++) {
+                body.append("    ");
+            }
+            body.append(line);
+        }
+        body.append('\n');
+        return this;
+    }
+
+    JavaSourceWriter line() {
+        return line("");
+    }
+
+    JavaSourceWriter open(String line) {
+        line(line + " {");
+        ++indent;
+        return this;
+    }
+
+    JavaSourceWriter close() {
+        return close("");
+    }
+
+    JavaSourceWriter close(String suffix) {
+        --indent;
+        return line("}" + suffix);
+    }
+
+    JavaSourceWriter indent() {
+        ++indent;
+        return this;
+    }
+
+    JavaSourceWriter outdent() {
+        --indent;
+        return this;
+    }
+
+    String build(String packageName, String header) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("// ").append(header).append("\n");
+        sb.append("package ").append(packageName).append(";\n\n");
+        boolean hasImports = false;
+        for (String imp : imports) {
+            if (!imp.startsWith("java.") && !imp.startsWith("javax.")) {
+                sb.append("import ").append(imp).append(";\n");
+                hasImports = true;
+            }
+        }
+        boolean inJdkGroup = false;
+        for (String prefix : new String[] {"javax.", "java."}) {
+            for (String imp : imports) {
+                if (imp.startsWith(prefix)) {
+                    if (hasImports && !inJdkGroup) {
+                        sb.append("\n");
+                    }
+                    sb.append("import ").append(imp).append(";\n");
+                    hasImports = inJdkGroup = true;
+                }
+            }
+        }
+        if (hasImports) {
+            sb.append("\n");
+        }
+        return sb.append(body).toString();
+    }
+
+}
@@ -0,0 +1,694 @@
+package xyz.phanta.rosjay.codegen;
+
+import org.slf4j.Logger;
+import xyz.phanta.rosjay.transport.spec.DataTypeSpecification;
+import xyz.phanta.rosjay.transport.spec.TypeSpecResolver;
+import xyz.phanta.rosjay.util.RosDataSourceFile;
+import xyz.phanta.rosjay.util.RosUtils;
+import xyz.phanta.rosjay.util.id.RosId;
+import xyz.phanta.rosjay.util.id.RosNamespace;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// emits data interfaces, precompiled implementations and precomputed type specs for whole ros packages
+public class RosPackageCodeGenerator {
+
+    private static final Logger LOGGER = RosUtils.getGlobalInternalLogger("codegen");
+
+    private static final String BUILTIN_HEADER = "xyz.phanta.rosjay.rospkg.std_msgs.Header";
+    private static final Set<String> RESERVED_TYPE_NAMES = new HashSet<>(Arrays.asList(
+            "Object", "String", "Boolean", "Byte", "Short", "Integer", "Long", "Float", "Double", "Character",
+            "Override", "SuppressWarnings", "Instant", "Duration", "List", "Arrays", "Collections", "Nullable"));
+    private static final Set<String> JAVA_KEYWORDS = new HashSet<>(Arrays.asList(
+            "abstract", "assert", "boolean", "break", "byte", "case", "catch", "char", "class", "const", "continue",
+            "default", "do", "double", "else", "enum", "extends", "final", "finally", "float", "for", "goto", "if",
+            "implements", "import", "instanceof", "int", "interface", "long", "native", "new", "package", "private",
+            "protected", "public", "return", "short", "static", "strictfp", "super", "switch", "synchronized", "this",
+            "throw", "throws", "transient", "try", "void", "volatile", "while", "true", "false", "null"));
+    // locals and parameters in the generated (de)serializers, which a field of the same name would shadow
+    private static final Set<String> RESERVED_IDENTIFIERS = new HashSet<>(Arrays.asList(
+            "buf", "length", "value", "next", "dest", "seqIndex", "index"));
+
+    public static void main(String[] args) throws IOException {
+        boolean packedTime = args.length > 0 && args[0].equals("--packed-time");
+        int argStart = packedTime ? 1 : 0;
+        if (args.length - argStart < 3) {
+            System.err.println("Usage: RosPackageCodeGenerator [--packed-time] <output dir> <base java package> "
+                    + "<ros package>...");
+            System.exit(1);
+            return;
+        }
+        new RosPackageCodeGenerator(Paths.get(args[argStart]), args[argStart + 1], packedTime)
+                .generate(Arrays.asList(args).subList(argStart + 2, args.length));
+    }
+
+    private final Path outputDir;
+    private final String basePackage;
+    private final boolean packedTime;
+
+    public RosPackageCodeGenerator(Path outputDir, String basePackage) {
+        this(outputDir, basePackage, false);
+    }
+
+    /**
+     * @param packedTime Whether time and duration fields should be exposed as longs packed as by
+     *                   {@link xyz.phanta.rosjay.util.RosTime}, so they never allocate.
+     */
+    public RosPackageCodeGenerator(Path outputDir, String basePackage, boolean packedTime) {
+        this.outputDir = outputDir;
+        this.basePackage = basePackage;
+        this.packedTime = packedTime;
+    }
+
+    public void generate(Collection<String> rosPackages) throws IOException {
+        for (String rosPackage : rosPackages) {
+            generatePackage(rosPackage);
+        }
+    }
+
+    public void generatePackage(String rosPackage) throws IOException {
+        LOGGER.info("Generating sources for ros package {}...", rosPackage);
+        RosNamespace ns = RosNamespace.resolveGlobal(rosPackage);
+        String javaPackage = getJavaPackage(rosPackage);
+        Path pkgDir = outputDir.resolve(javaPackage.replace('.', '/'));
+        Files.createDirectories(pkgDir);
+        String pkgClass = getPackageClassName(rosPackage);
+
+        writeSource(pkgDir, "package-info", "@NothingNull\npackage " + javaPackage + ";\n\nimport xyz.phanta.jsr305.NothingNull;\n");
+
+        JavaSourceWriter pkgOut = new JavaSourceWriter().addImport("xyz.phanta.rosjay.util.id.RosNamespace");
+        pkgOut.open("public class " + pkgClass)
+                .line()
+                .line("public static final RosNamespace NAMESPACE = RosNamespace.resolveGlobal(" + JavaSourceWriter.literal(rosPackage) + ");")
+                .line()
+                .close();
+        writeSource(pkgDir, pkgClass, pkgOut.build(javaPackage, getHeaderComment(rosPackage)));
+
+        for (String name : listSpecNames(rosPackage, "msg")) {
+            DataTypeSpecification.Source source = TypeSpecResolver.getMessageSource(ns, name);
+            if (getJavaType(source.getId()).equals(BUILTIN_HEADER)) {
+                LOGGER.info("Skipping {}, which is provided by rosjay.", source.getId());
+                continue;
+            }
+            String typeName = getJavaTypeName(name);
+            writeSource(pkgDir, typeName, generateMessageInterface(javaPackage, pkgClass, typeName, source));
+            writeSource(pkgDir, typeName + "Impl", generateMessageImpl(javaPackage, pkgClass, typeName, source));
+        }
+        for (String name : listSpecNames(rosPackage, "srv")) {
+            DataTypeSpecification.Source source = TypeSpecResolver.getServiceSource(ns, name);
+            String typeName = getJavaTypeName(name);
+            writeSource(pkgDir, typeName, generateService(javaPackage, pkgClass, typeName, source));
+        }
+    }
+
+    private String generateMessageInterface(String javaPackage, String pkgClass, String typeName,
+                                            DataTypeSpecification.Source source) {
+        List<FieldMapping> fields = mapFields(source.getId().getNamespace(), source.getSourceText().getElements());
+        JavaSourceWriter out = new JavaSourceWriter()
+                .addImport("xyz.phanta.rosjay.transport.data.RosData")
+                .addImport("xyz.phanta.rosjay.transport.msg.RosMessageType")
+                .addImport("xyz.phanta.rosjay.transport.spec.TypeSpecResolver");
+        out.open("public interface " + typeName + " extends RosData<" + typeName + ">")
+                .line()
+                .line("RosMessageType<" + typeName + "> TYPE = RosMessageType.resolve(" + pkgClass + ".NAMESPACE, "
+                        + JavaSourceWriter.literal(source.getId().getName()) + ", " + typeName + ".class,")
+                .line("        () -> TypeSpecResolver.resolveMessageSpec(" + typeName + "Impl.createSource()), "
+                        + typeName + "Impl::new);");
+        writeConstants(out, source.getSourceText().getElements());
+        writeAccessorDecls(out, fields);
+        out.line().close();
+        return out.build(javaPackage, getHeaderComment(source));
+    }
+
+    private String generateMessageImpl(String javaPackage, String pkgClass, String typeName,
+                                       DataTypeSpecification.Source source) {
+        JavaSourceWriter out = new JavaSourceWriter();
+        out.open("final class " + typeName + "Impl extends RosDataObject<" + typeName + "> implements " + typeName);
+        out.line();
+        writeSourceFactory(out, pkgClass, source, "registerMessageSource");
+        writeImplBody(out, typeName, typeName + "Impl", mapFields(source.getId().getNamespace(), source.getSourceText().getElements()));
+        out.close();
+        return out.build(javaPackage, getHeaderComment(source));
+    }
+
+    private String generateService(String javaPackage, String pkgClass, String typeName,
+                                   DataTypeSpecification.Source source) {
+        List<RosDataSourceFile.Element> reqElements = new ArrayList<>(), resElements = new ArrayList<>();
+        List<RosDataSourceFile.Element> elements = reqElements;
+        for (RosDataSourceFile.Element element : source.getSourceText().getElements()) {
+            if (element instanceof RosDataSourceFile.SrvDivider) {
+                elements = resElements;
+            } else {
+                elements.add(element);
+            }
+        }
+        JavaSourceWriter out = new JavaSourceWriter()
+                .addImport("xyz.phanta.rosjay.transport.data.RosData")
+                .addImport("xyz.phanta.rosjay.transport.srv.RosServiceType");
+        out.open("public final class " + typeName)
+                .line()
+                .line("public static final RosServiceType<Req, Res> TYPE = RosServiceType.resolve(" + pkgClass + ".NAMESPACE,")
+                .line("        " + JavaSourceWriter.literal(source.getId().getName()) + ", Req.class, Res.class,")
+                .line("        () -> TypeSpecResolver.resolveServiceSpec(createSource()), ReqImpl::new, ResImpl::new);")
+                .line()
+                .open("private " + typeName + "()")
+                .line("// NO-OP")
+                .close()
+                .line();
+        writeSourceFactory(out, pkgClass, source, "registerServiceSource");
+        for (String part : new String[] {"Req", "Res"}) {
+            List<RosDataSourceFile.Element> partElements = part.equals("Req") ? reqElements : resElements;
+            out.open("public interface " + part + " extends RosData<" + part + ">");
+            writeConstants(out, partElements);
+            writeAccessorDecls(out, mapFields(source.getId().getNamespace(), partElements));
+            out.line().close().line();
+        }
+        for (String part : new String[] {"Req", "Res"}) {
+            out.open("static final class " + part + "Impl extends RosDataObject<" + part + "> implements " + part);
+            out.line();
+            writeImplBody(out, part, part + "Impl", mapFields(source.getId().getNamespace(), part.equals("Req") ? reqElements : resElements));
+            out.close().line();
+        }
+        out.close();
+        return out.build(javaPackage, getHeaderComment(source));
+    }
+
+    private void writeConstants(JavaSourceWriter out, List<RosDataSourceFile.Element> elements) {
+        boolean first = true;
+        for (RosDataSourceFile.Element element : elements) {
+            if (element instanceof RosDataSourceFile.ConstDecl) {
+                RosDataSourceFile.ConstDecl constDecl = (RosDataSourceFile.ConstDecl)element;
+                if (first) {
+                    out.line();
+                    first = false;
+                }
+                ScalarKind kind = ScalarKind.byRosName(constDecl.typeName);
+                if (kind != null) {
+                    out.line(kind.javaType + " " + getJavaIdentifier(constDecl.name) + " = " + kind.literal(constDecl.value.trim()) + ";");
+                } else if (constDecl.typeName.equals("string")) {
+                    out.line("String " + getJavaIdentifier(constDecl.name) + " = " + JavaSourceWriter.literal(constDecl.value.trim()) + ";");
+                } else {
+                    LOGGER.warn("Skipping constant {} of unsupported type {}.", constDecl.name, constDecl.typeName);
+                }
+            }
+        }
+    }
+
+    private void writeAccessorDecls(JavaSourceWriter out, List<FieldMapping> fields) {
+        for (FieldMapping field : fields) {
+            field.addImports(out);
+            out.line()
+                    .line(field.javaType + " get" + field.accessorName + "();")
+                    .line()
+                    .line("void set" + field.accessorName + "(" + field.javaType + " value);");
+        }
+    }
+
+    private void writeSourceFactory(JavaSourceWriter out, String pkgClass, DataTypeSpecification.Source source,
+                                    String registerMethod) {
+        out.addImport("xyz.phanta.rosjay.transport.spec.DataTypeSpecification")
+                .addImport("xyz.phanta.rosjay.transport.spec.TypeSpecResolver")
+                .addImport("xyz.phanta.rosjay.util.RosDataSourceFile")
+                .addImport("java.util.Arrays");
+        out.open("static DataTypeSpecification.Source createSource()")
+                .line("return TypeSpecResolver." + registerMethod + "(new DataTypeSpecification.Source(")
+                .indent().indent()
+                .line(pkgClass + ".NAMESPACE.resolveId(" + JavaSourceWriter.literal(source.getId().getName()) + "),");
+        writeList(out, "Arrays.asList(", source.getOriginalText().stream()
+                .map(JavaSourceWriter::literal)
+                .collect(Collectors.toList()), "),");
+        writeList(out, "new RosDataSourceFile(", source.getSourceText().getElements().stream()
+                .map(this::getElementExpression)
+                .collect(Collectors.toList()), "),");
+        writeList(out, "Arrays.asList(", source.getDependencies().stream()
+                .map(dep -> getJavaType(dep.getId()) + ".TYPE.getDataType().getTypeSpecification().getSource()")
+                .collect(Collectors.toList()), "),");
+        out.line(JavaSourceWriter.literal(source.getNormalizedText()) + ",")
+                .line(JavaSourceWriter.literal(source.getMd5Sum()) + "));")
+                .outdent().outdent()
+                .close()
+                .line();
+    }
+
+    private static void writeList(JavaSourceWriter out, String prefix, List<String> items, String suffix) {
+        if (items.isEmpty()) {
+            out.line(prefix + suffix);
+            return;
+        }
+        out.line(prefix).indent();
+        for (int i = 0; i < items.size(); i++) {
+            out.line(items.get(i) + (i == items.size() - 1 ? suffix : ","));
+        }
+        out.outdent();
+    }
+
+    private String getElementExpression(RosDataSourceFile.Element element) {
+        if (element instanceof RosDataSourceFile.FieldDecl) {
+            RosDataSourceFile.FieldDecl fieldDecl = (RosDataSourceFile.FieldDecl)element;
+            return "new RosDataSourceFile.FieldDecl(" + JavaSourceWriter.literal(fieldDecl.typeName) + ", "
+                    + JavaSourceWriter.literal(fieldDecl.name) + ")";
+        } else if (element instanceof RosDataSourceFile.ConstDecl) {
+            RosDataSourceFile.ConstDecl constDecl = (RosDataSourceFile.ConstDecl)element;
+            return "new RosDataSourceFile.ConstDecl(" + JavaSourceWriter.literal(constDecl.typeName) + ", "
+                    + JavaSourceWriter.literal(constDecl.name) + ", " + JavaSourceWriter.literal(constDecl.value) + ")";
+        } else if (element instanceof RosDataSourceFile.SrvDivider) {
+            return "new RosDataSourceFile.SrvDivider()";
+        }
+        throw new IllegalStateException("Unknown source element: " + element);
+    }
+
+    private void writeImplBody(JavaSourceWriter out, String ifaceName, String implName, List<FieldMapping> fields) {
+        out.addImport("xyz.phanta.rosjay.transport.data.RosDataObject")
+                .addImport("xyz.phanta.rosjay.transport.data.RosDataType")
+                .addImport("xyz.phanta.rosjay.util.deserchain.DeserializationChain")
+                .addImport("javax.annotation.Nullable")
+                .addImport("java.io.DataOutput")
+                .addImport("java.io.IOException");
+        for (FieldMapping field : fields) {
+            field.addImports(out);
+            if (field.builtinFieldType != null) {
+                out.addImport("xyz.phanta.rosjay.transport.data.field.impl." + field.builtinFieldType);
+            }
+            if (field.packedTime) { // only the impl converts to and from the unpacked type
+                out.addImport("java.time." + field.elementType);
+            }
+            out.line("private " + field.javaType + " " + field.ident + ";");
+        }
+        if (!fields.isEmpty()) {
+            out.line();
+        }
+
+        out.open(implName + "(RosDataType<" + ifaceName + "> dataType)").line("super(dataType);");
+        for (FieldMapping field : fields) {
+            String defaultValue = field.getDefaultExpression();
+            if (defaultValue != null) {
+                out.line("this." + field.ident + " = " + defaultValue + ";");
+            }
+        }
+        out.close().line();
+
+        out.line("@Override")
+                .open("protected " + implName + " createSibling()")
+                .line("return new " + implName + "(retrieveDataType());")
+                .close();
+
+        for (FieldMapping field : fields) {
+            out.line()
+                    .line("@Override")
+                    .open("public " + field.javaType + " get" + field.accessorName + "()")
+                    .line("return " + field.ident + ";")
+                    .close()
+                    .line()
+                    .line("@Override")
+                    .open("public void set" + field.accessorName + "(" + field.javaType + " value)")
+                    .line("this." + field.ident + " = value;")
+                    .close();
+        }
+
+        out.line()
+                .line("@Nullable")
+                .line("@Override")
+                .open("protected Object getFieldValue(int index)")
+                .open("switch (index)");
+        for (FieldMapping field : fields) {
+            out.line("case " + field.index + ":").indent().line("return " + field.getBoxedExpression() + ";").outdent();
+        }
+        out.line("default:").indent().line("throw noSuchField(index);").outdent()
+                .close()
+                .close();
+
+        out.line();
+        if (fields.stream().anyMatch(FieldMapping::isList)) {
+            out.line("@SuppressWarnings(\"unchecked\")");
+        }
+        out.line("@Override")
+                .open("protected void setFieldValue(int index, @Nullable Object value)")
+                .open("switch (index)");
+        for (FieldMapping field : fields) {
+            out.line("case " + field.index + ":").indent()
+                    .line(field.ident + " = " + field.getUnboxedExpression("value") + ";")
+                    .line("return;")
+                    .outdent();
+        }
+        out.line("default:").indent().line("throw noSuchField(index);").outdent()
+                .close()
+                .close();
+
+        for (ScalarKind kind : ScalarKind.values()) { // unboxed setters, so the decoder never boxes scalar fields
+            List<FieldMapping> kindFields = fields.stream()
+                    .filter(f -> f.arrayLength == FieldMapping.SCALAR && f.scalarKind == kind)
+                    .collect(Collectors.toList());
+            if (kindFields.isEmpty()) {
+                continue;
+            }
+            String setterName = "set" + Character.toUpperCase(kind.javaType.charAt(0)) + kind.javaType.substring(1)
+                    + "FieldValue";
+            out.line()
+                    .line("@Override")
+                    .open("protected void " + setterName + "(int index, " + kind.javaType + " value)")
+                    .open("switch (index)");
+            for (FieldMapping field : kindFields) {
+                out.line("case " + field.index + ":").indent()
+                        .line(field.ident + " = value;")
+                        .line("return;")
+                        .outdent();
+            }
+            out.line("default:").indent().line("super." + setterName + "(index, value);").outdent()
+                    .close()
+                    .close();
+        }
+        if (fields.stream().anyMatch(f -> f.packedTime)) {
+            out.line()
+                    .line("@Override")
+                    .open("protected void setPackedTimeFieldValue(int index, long value)")
+                    .open("switch (index)");
+            for (FieldMapping field : fields) {
+                if (field.packedTime) {
+                    out.line("case " + field.index + ":").indent()
+                            .line(field.ident + " = value;")
+                            .line("return;")
+                            .outdent();
+                }
+            }
+            out.line("default:").indent().line("super.setPackedTimeFieldValue(index, value);").outdent()
+                    .close()
+                    .close();
+        }
+
+        out.line()
+                .line("@Override")
+                .open("public void serializeData(DataOutput dest, int seqIndex) throws IOException");
+        for (FieldMapping field : fields) {
+            field.writeSerializer(out);
+        }
+        out.close();
+
+        out.line()
+                .line("@Nullable")
+                .line("@Override")
+                .open("public DeserializationChain linkDeserializer(@Nullable DeserializationChain next)");
+        for (int i = fields.size() - 1; i >= 0; i--) {
+            fields.get(i).writeDeserializer(out);
+        }
+        out.line("return next;").close().line();
+    }
+
+    private List<FieldMapping> mapFields(RosNamespace ns, List<RosDataSourceFile.Element> elements) {
+        List<FieldMapping> fields = new ArrayList<>();
+        for (RosDataSourceFile.Element element : elements) {
+            if (element instanceof RosDataSourceFile.FieldDecl) {
+                fields.add(new FieldMapping(ns, fields.size(), (RosDataSourceFile.FieldDecl)element));
+            }
+        }
+        return fields;
+    }
+
+    private List<String> listSpecNames(String rosPackage, String specType) throws IOException {
+        Path specDir = RosUtils.findFile(rosPackage + "/" + specType);
+        if (specDir == null || !Files.isDirectory(specDir)) {
+            return Collections.emptyList();
+        }
+        String suffix = "." + specType;
+        try (Stream<Path> files = Files.list(specDir)) {
+            return files.map(p -> p.getFileName().toString())
+                    .filter(n -> n.endsWith(suffix))
+                    .map(n -> n.substring(0, n.length() - suffix.length()))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private void writeSource(Path pkgDir, String className, String source) throws IOException {
+        Path file = pkgDir.resolve(className + ".java");
+        LOGGER.debug("Writing {}...", file);
+        Files.write(file, source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String getJavaPackage(String rosPackage) {
+        return basePackage + "." + rosPackage;
+    }
+
+    private String getJavaType(RosId id) {
+        String rosPackage = id.getNamespace().toUnrootedString();
+        if (id.getName().equals("Header") && (rosPackage.isEmpty() || rosPackage.equals("std_msgs"))) {
+            return BUILTIN_HEADER;
+        }
+        return getJavaPackage(rosPackage) + "." + getJavaTypeName(id.getName());
+    }
+
+    private String getJavaMessageType(RosNamespace ns, String typeName) {
+        return getJavaType(typeName.indexOf('/') != -1 ? RosId.resolveGlobal(typeName)
+                : typeName.equals("Header") ? RosId.resolveGlobal("std_msgs/Header") : ns.resolveId(typeName));
+    }
+
+    private static String getPackageClassName(String rosPackage) {
+        return RosUtils.snakeToPascal(rosPackage);
+    }
+
+    private static String getJavaTypeName(String rosName) {
+        return RESERVED_TYPE_NAMES.contains(rosName) ? "Ros" + rosName : rosName;
+    }
+
+    private static String getJavaIdentifier(String rosName) {
+        return JAVA_KEYWORDS.contains(rosName) || RESERVED_IDENTIFIERS.contains(rosName) ? rosName + "_" : rosName;
+    }
+
+    private static String getHeaderComment(String rosPackage) {
+        return "generated by RosPackageCodeGenerator for ros package " + rosPackage + "; do not edit";
+    }
+
+    private static String getHeaderComment(DataTypeSpecification.Source source) {
+        return "generated by RosPackageCodeGenerator from " + source.getId().toUnrootedString() + "; do not edit";
+    }
+
+    private enum ScalarKind {
+
+        BOOL("boolean", "Boolean", 1, "writeBoolean", "buf.get() != 0"),
+        INT8("byte", "Byte", 1, "writeByte", "buf.get()"),
+        INT16("short", "Short", 2, "writeShort", "buf.getShort()"),
+        INT32("int", "Integer", 4, "writeInt", "buf.getInt()"),
+        INT64("long", "Long", 8, "writeLong", "buf.getLong()"),
+        FLOAT32("float", "Float", 4, "writeFloat", "buf.getFloat()"),
+        FLOAT64("double", "Double", 8, "writeDouble", "buf.getDouble()");
+
+        private static final Map<String, ScalarKind> byRosName = new HashMap<>();
+
+        static {
+            byRosName.put("bool", BOOL);
+            byRosName.put("int8", INT8);
+            byRosName.put("byte", INT8);
+            byRosName.put("uint8", INT8);
+            byRosName.put("char", INT8);
+            byRosName.put("int16", INT16);
+            byRosName.put("uint16", INT16);
+            byRosName.put("int32", INT32);
+            byRosName.put("uint32", INT32);
+            byRosName.put("int64", INT64);
+            byRosName.put("uint64", INT64);
+            byRosName.put("float32", FLOAT32);
+            byRosName.put("float64", FLOAT64);
+        }
+
+        @Nullable
+        static ScalarKind byRosName(String rosName) {
+            return byRosName.get(rosName);
+        }
+
+        final String javaType, boxedType, writeMethod, readExpr;
+        final int size;
+
+        ScalarKind(String javaType, String boxedType, int size, String writeMethod, String readExpr) {
+            this.javaType = javaType;
+            this.boxedType = boxedType;
+            this.size = size;
+            this.writeMethod = writeMethod;
+            this.readExpr = readExpr;
+        }
+
+        String literal(String value) {
+            switch (this) {
+                case BOOL:
+                    return Boolean.toString(value.equalsIgnoreCase("true") || value.equals("1"));
+                case INT8:
+                case INT16:
+                    return "(" + javaType + ")" + Long.parseLong(value);
+                case INT32:
+                    long intValue = Long.parseLong(value);
+                    return intValue == (int)intValue ? Long.toString(intValue) : "(int)" + intValue + "L";
+                case INT64:
+                    return new java.math.BigInteger(value).longValue() + "L";
+                case FLOAT32:
+                    return Float.parseFloat(value) + "F";
+                default:
+                    return Double.toString(Double.parseDouble(value));
+            }
+        }
+
+    }
+
+    private class FieldMapping {
+
+        static final int SCALAR = -1, VARIABLE = 0;
+
+        final int index;
+        final String ident, accessorName, elementType, elementBoxedType, javaType, boxedType;
+        final boolean header, packedTime;
+        final int arrayLength;
+        @Nullable
+        final ScalarKind scalarKind;
+        @Nullable
+        final String builtinFieldType;
+
+        FieldMapping(RosNamespace ns, int index, RosDataSourceFile.FieldDecl decl) {
+            this.index = index;
+            this.ident = getJavaIdentifier(decl.name);
+            this.accessorName = RosUtils.snakeToPascal(decl.name);
+            String baseType = decl.typeName;
+            int bracketIndex = baseType.indexOf('[');
+            if (bracketIndex == -1) {
+                arrayLength = SCALAR;
+            } else {
+                String lengthStr = baseType.substring(bracketIndex + 1, baseType.length() - 1);
+                arrayLength = lengthStr.isEmpty() ? VARIABLE : Integer.parseInt(lengthStr);
+                baseType = baseType.substring(0, bracketIndex);
+            }
+            this.scalarKind = ScalarKind.byRosName(baseType);
+            if (scalarKind != null) {
+                elementType = scalarKind.javaType;
+                elementBoxedType = scalarKind.boxedType;
+                builtinFieldType = null;
+            } else {
+                switch (baseType) {
+                    case "string":
+                        elementType = "String";
+                        builtinFieldType = "FieldTypeString";
+                        break;
+                    case "time":
+                        elementType = "Instant";
+                        builtinFieldType = "FieldTypeTime";
+                        break;
+                    case "duration":
+                        elementType = "Duration";
+                        builtinFieldType = "FieldTypeDuration";
+                        break;
+                    default:
+                        elementType = getJavaMessageType(ns, baseType);
+                        builtinFieldType = null;
+                        break;
+                }
+                elementBoxedType = elementType;
+            }
+            this.header = index == 0 && arrayLength == SCALAR && elementType.equals(BUILTIN_HEADER);
+            this.packedTime = RosPackageCodeGenerator.this.packedTime && arrayLength == SCALAR
+                    && (elementType.equals("Instant") || elementType.equals("Duration"));
+            if (packedTime) { // the boxed type stays the unpacked one, since that's what the field type works with
+                javaType = "long";
+                boxedType = elementType;
+            } else if (arrayLength == SCALAR) {
+                javaType = elementType;
+                boxedType = elementBoxedType;
+            } else if (scalarKind != null) { // see FieldTypePrimitiveArray
+                javaType = boxedType = elementType + "[]";
+            } else {
+                javaType = boxedType = "List<" + elementBoxedType + ">";
+            }
+        }
+
+        boolean isList() {
+            return arrayLength != SCALAR && scalarKind == null;
+        }
+
+        void addImports(JavaSourceWriter out) {
+            if (isList()) {
+                out.addImport("java.util.List");
+            }
+            if (packedTime) {
+                return;
+            } else if (elementType.equals("Instant")) {
+                out.addImport("java.time.Instant");
+            } else if (elementType.equals("Duration")) {
+                out.addImport("java.time.Duration");
+            }
+        }
+
+        String getBoxedExpression() {
+            return packedTime ? builtinFieldType + ".TYPE.unpack(" + ident + ")" : ident;
+        }
+
+        String getUnboxedExpression(String expr) {
+            return packedTime ? builtinFieldType + ".TYPE.pack((" + boxedType + ")" + expr + ")"
+                    : "(" + boxedType + ")" + expr;
+        }
+
+        @Nullable
+        String getDefaultExpression() {
+            if (arrayLength == SCALAR) {
+                if (scalarKind != null || packedTime) { // zero is already the epoch, or a zero duration
+                    return null;
+                } else if (elementType.equals("String")) {
+                    return "\"\"";
+                } else if (elementType.equals("Instant")) {
+                    return "Instant.EPOCH";
+                } else if (elementType.equals("Duration")) {
+                    return "Duration.ZERO";
+                }
+            }
+            return "this.<" + boxedType + ">getFieldType(" + index + ").getDefaultValue()";
+        }
+
+        void writeSerializer(JavaSourceWriter out) {
+            if (header) {
+                out.line("serializeObjectField(" + index + ", " + ident + ", dest, seqIndex);");
+            } else if (arrayLength == SCALAR) {
+                out.line(getElementWriter(ident));
+            } else if (scalarKind != null) {
+                out.line("this.<" + javaType + ">getFieldType(" + index + ").serializeField(" + ident + ", dest, 0);");
+            } else if (arrayLength == VARIABLE) {
+                out.line("dest.writeInt(" + ident + ".size());")
+                        .open("for (" + elementType + " element : " + ident + ")")
+                        .line(getElementWriter("element"))
+                        .close();
+            } else {
+                out.open("for (int i = 0; i < " + arrayLength + "; i++)")
+                        .line(getElementWriter(ident + ".get(i)"))
+                        .close();
+            }
+        }
+
+        private String getElementWriter(String expr) {
+            if (scalarKind != null) {
+                return "dest." + scalarKind.writeMethod + "(" + expr + ");";
+            } else if (packedTime) {
+                return builtinFieldType + ".TYPE.writePacked(" + expr + ", dest);";
+            } else if (builtinFieldType != null) {
+                return builtinFieldType + ".TYPE.serializeField(" + expr + ", dest, 0);";
+            }
+            return expr + ".serializeData(dest, 0);";
+        }
+
+        void writeDeserializer(JavaSourceWriter out) {
+            if (arrayLength == SCALAR && scalarKind != null) {
+                out.addImport("xyz.phanta.rosjay.util.deserchain.DeserializationLink");
+                out.line("next = new DeserializationLink(next, " + scalarKind.size + ", (buf, length) -> "
+                        + ident + " = " + scalarKind.readExpr + ");");
+            } else if (packedTime) {
+                out.addImport("xyz.phanta.rosjay.util.deserchain.DeserializationLink");
+                out.line("next = new DeserializationLink(next, 8, (buf, length) -> " + ident + " = "
+                        + builtinFieldType + ".TYPE.readPacked(buf));");
+            } else {
+                out.line("next = this.<" + boxedType + ">getFieldType(" + index + ").linkDeserializer(next, value -> "
+                        + ident + " = value);");
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,4 @@
+@NothingNull
+package xyz.phanta.rosjay.codegen;
+
+import xyz.phanta.jsr305.NothingNull;
@@ -0,0 +1,24 @@
+package xyz.phanta.rosjay.node;
+
+// bounds the work a single spin tick does, so one busy topic can't hold up the rest
+class DispatchBudget {
+
+    private final int perTransportLimit;
+    private final long timeLimitNanos;
+    private final long startTime;
+
+    DispatchBudget(int perTransportLimit, long timeLimitNanos) {
+        this.perTransportLimit = perTransportLimit > 0 ? perTransportLimit : Integer.MAX_VALUE;
+        this.timeLimitNanos = timeLimitNanos;
+        this.startTime = timeLimitNanos > 0 ? System.nanoTime() : 0L;
+    }
+
+    int getPerTransportLimit() {
+        return perTransportLimit;
+    }
+
+    boolean isExpired() {
+        return timeLimitNanos > 0 && System.nanoTime() - startTime >= timeLimitNanos;
+    }
+
+}
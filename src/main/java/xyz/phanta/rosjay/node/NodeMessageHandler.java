@@ -3,15 +3,19 @@ package xyz.phanta.rosjay.node;
 import xyz.phanta.rosjay.transport.data.RosData;
 import xyz.phanta.rosjay.transport.msg.RosMessageTransport;
 import xyz.phanta.rosjay.transport.msg.RosMessageType;
+import xyz.phanta.rosjay.util.RosDataQueue;
 import xyz.phanta.rosjay.util.id.RosId;
 
-abstract class NodeMessageHandler<T extends RosData<T>> extends NodeTransportHandler<T> implements RosMessageTransport<T> {
+// E is whatever the handler queues, which need not be the message itself
+abstract class NodeMessageHandler<T extends RosData<T>, E> extends NodeTransportHandler<E>
+        implements RosMessageTransport<T> {
 
     private final RosId topicId;
     private final RosMessageType<T> msgType;
 
-    NodeMessageHandler(NodeTransportManager manager, RosId topicId, RosMessageType<T> msgType, int bufferSize) {
-        super(manager, bufferSize);
+    NodeMessageHandler(NodeTransportManager manager, RosId topicId, RosMessageType<T> msgType,
+                       RosDataQueue<E> dataQueue) {
+        super(manager, dataQueue);
         this.topicId = topicId;
         this.msgType = msgType;
     }
@@ -1,28 +1,65 @@
 package xyz.phanta.rosjay.node;
 
 import xyz.phanta.rosjay.transport.data.RosData;
+import xyz.phanta.rosjay.transport.msg.RosBacklogPolicy;
 import xyz.phanta.rosjay.transport.msg.RosMessageType;
 import xyz.phanta.rosjay.transport.msg.RosPublisher;
+import xyz.phanta.rosjay.util.RosDataQueue;
+import xyz.phanta.rosjay.util.RosUtils;
 import xyz.phanta.rosjay.util.id.RosId;
 
-class NodePublishHandler<T extends RosData<T>> extends NodeMessageHandler<T> implements RosPublisher<T> {
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// messages are serialized by the publishing thread, so only finished frames are queued for the spinner to send out
+class NodePublishHandler<T extends RosData<T>> extends NodeMessageHandler<T, byte[]> implements RosPublisher<T> {
 
     private final boolean latch;
+    private volatile RosBacklogPolicy backlogPolicy;
+    private final AtomicInteger nextSeqIndex = new AtomicInteger(0);
+    private volatile int connectionCount = 0;
     private boolean alive = true;
 
     NodePublishHandler(NodeTransportManager manager, RosId topicId, RosMessageType<T> msgType, int bufferSize, boolean latch) {
-        super(manager, topicId, msgType, bufferSize);
+        super(manager, topicId, msgType, RosDataQueue.multiProducer(bufferSize)); // any thread may publish
         this.latch = latch;
+        this.backlogPolicy = RosBacklogPolicy.dropOldest(bufferSize);
     }
 
     boolean isLatching() {
         return latch;
     }
 
+    @Override
+    public RosBacklogPolicy getBacklogPolicy() {
+        return backlogPolicy;
+    }
+
+    @Override
+    public void setBacklogPolicy(RosBacklogPolicy backlogPolicy) {
+        this.backlogPolicy = backlogPolicy;
+        getManager().updateBacklogPolicy(getTopicId(), backlogPolicy);
+    }
+
+    void setConnectionCount(int connectionCount) {
+        this.connectionCount = connectionCount;
+    }
+
     @Override
     public void publish(T message) {
         if (alive) {
-            getDataQueue().offer(message);
+            int seqIndex = nextSeqIndex.getAndIncrement();
+            if (connectionCount == 0) { // nobody to send it to, so don't bother encoding it
+                return;
+            }
+            byte[] frame;
+            try {
+                frame = RosUtils.serializeDataPacket(message, seqIndex);
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to serialize message for " + getTopicId() + "!", e);
+            }
+            getDataQueue().offer(frame);
+            getManager().getWorkSignal().raise();
         }
     }
 
@@ -4,6 +4,7 @@ import xyz.phanta.rosjay.tcpros.client.TcpRosTarget;
 import xyz.phanta.rosjay.transport.data.RosData;
 import xyz.phanta.rosjay.transport.srv.RosServiceClient;
 import xyz.phanta.rosjay.transport.srv.RosServiceType;
+import xyz.phanta.rosjay.util.RosDataQueue;
 import xyz.phanta.rosjay.util.id.RosId;
 
 import javax.annotation.Nullable;
@@ -11,6 +12,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.util.NoSuchElementException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -25,7 +27,7 @@ class NodeServiceClient<REQ extends RosData<REQ>, RES extends RosData<RES>> exte
     private CallingThread callThread;
 
     NodeServiceClient(NodeTransportManager manager, RosId serviceId, RosServiceType<REQ, RES> srvType, int bufferSize) {
-        super(manager, bufferSize);
+        super(manager, RosDataQueue.singleProducer(bufferSize)); // calls are serialized, so only one connection at a time
         this.serviceId = serviceId;
         this.srvType = srvType;
     }
@@ -63,7 +65,7 @@ class NodeServiceClient<REQ extends RosData<REQ>, RES extends RosData<RES>> exte
                 throw new IllegalStateException("Failed to connect to service provider!", e);
             }
             try {
-                return getDataQueue().pollBlocking().getValue();
+                return getDataQueue().pollBlocking();
             } catch (InterruptedException e) {
                 callThread.rethrow();
                 throw e;
@@ -74,6 +76,12 @@ class NodeServiceClient<REQ extends RosData<REQ>, RES extends RosData<RES>> exte
         }
     }
 
+    // calls block for their whole duration, so keep them off the common pool
+    @Override
+    public CompletionStage<RES> callAsync(REQ request) {
+        return callAsync(request, getManager().getOwningNode().getServiceCallExecutor());
+    }
+
     boolean interrupt(String errorMessage) {
         return interrupt(new IllegalStateException(errorMessage));
     }
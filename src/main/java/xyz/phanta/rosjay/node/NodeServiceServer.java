@@ -1,5 +1,6 @@
 package xyz.phanta.rosjay.node;
 
+import xyz.phanta.rosjay.tcpros.TcpRosFrameWriter;
 import xyz.phanta.rosjay.transport.data.RosData;
 import xyz.phanta.rosjay.transport.srv.RosServiceProvider;
 import xyz.phanta.rosjay.transport.srv.RosServiceType;
@@ -8,7 +9,6 @@ import xyz.phanta.rosjay.util.RosUtils;
 import xyz.phanta.rosjay.util.id.RosId;
 
 import javax.annotation.Nullable;
-import java.io.DataOutput;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.function.Function;
@@ -19,10 +19,10 @@ class NodeServiceServer<REQ extends RosData<REQ>, RES extends RosData<RES>>
     private final RosId serviceId;
     private final RosServiceType<REQ, RES> srvType;
     @Nullable
-    private Function<REQ, RES> handler;
+    private volatile Function<REQ, RES> handler;
 
     NodeServiceServer(NodeTransportManager manager, RosId serviceId, RosServiceType<REQ, RES> srvType, int bufferSize) {
-        super(manager, bufferSize);
+        super(manager, RosDataQueue.multiProducer(bufferSize)); // one producer per calling connection
         this.serviceId = serviceId;
         this.srvType = srvType;
     }
@@ -47,10 +47,11 @@ class NodeServiceServer<REQ extends RosData<REQ>, RES extends RosData<RES>>
         return handler != null;
     }
 
-    void processRequests() throws IOException {
-        RosDataQueue.Entry<Request<REQ>> entry;
-        if ((entry = getDataQueue().poll()) != null) {
-            Request<REQ> req = entry.getValue();
+    int processRequests(DispatchBudget budget) throws IOException {
+        int limit = budget.getPerTransportLimit(), processed = 0;
+        Request<REQ> req;
+        while (processed < limit && (req = getDataQueue().poll()) != null) {
+            Function<REQ, RES> handler = this.handler;
             if (handler != null) {
                 try {
                     sendResponseSuccess(handler.apply(req.request), req.requester);
@@ -60,7 +61,12 @@ class NodeServiceServer<REQ extends RosData<REQ>, RES extends RosData<RES>>
             } else {
                 sendResponseFailure("No handler!", req.requester);
             }
+            ++processed;
+            if (budget.isExpired()) {
+                break;
+            }
         }
+        return processed;
     }
 
     @Override
@@ -68,26 +74,22 @@ class NodeServiceServer<REQ extends RosData<REQ>, RES extends RosData<RES>>
         getManager().notifyServiceServerKilled(this);
     }
 
-    private static void sendResponseSuccess(RosData<?> data, DataOutput dest) throws IOException {
-        byte[] dataBytes = RosUtils.serializeDataPacket(data, 0);
-        dest.write(1);
-        dest.writeInt(dataBytes.length);
-        dest.write(dataBytes);
+    private static void sendResponseSuccess(RosData<?> data, TcpRosFrameWriter dest) throws IOException {
+        dest.queueStatusFrame(true, RosUtils.serializeDataPacket(data, 0));
+        dest.flush();
     }
 
-    private static void sendResponseFailure(String errorMessage, DataOutput dest) throws IOException {
-        byte[] msgBytes = errorMessage.getBytes(StandardCharsets.US_ASCII);
-        dest.write(0);
-        dest.write(msgBytes.length);
-        dest.write(msgBytes);
+    private static void sendResponseFailure(String errorMessage, TcpRosFrameWriter dest) throws IOException {
+        dest.queueStatusFrame(false, errorMessage.getBytes(StandardCharsets.US_ASCII));
+        dest.flush();
     }
 
     static class Request<REQ extends RosData<REQ>> {
 
         final REQ request;
-        final DataOutput requester;
+        final TcpRosFrameWriter requester;
 
-        Request(REQ request, DataOutput requester) {
+        Request(REQ request, TcpRosFrameWriter requester) {
             this.request = request;
             this.requester = requester;
         }
@@ -1,46 +1,231 @@
 package xyz.phanta.rosjay.node;
 
 import xyz.phanta.rosjay.transport.data.RosData;
+import xyz.phanta.rosjay.transport.data.RosDataDecodePlan;
+import xyz.phanta.rosjay.transport.data.RosDataPool;
+import xyz.phanta.rosjay.transport.data.RosDataType;
+import xyz.phanta.rosjay.transport.data.RosDataView;
+import xyz.phanta.rosjay.transport.msg.RosDecodeMode;
 import xyz.phanta.rosjay.transport.msg.RosMessageType;
 import xyz.phanta.rosjay.transport.msg.RosSubscriber;
 import xyz.phanta.rosjay.util.RosDataQueue;
 import xyz.phanta.rosjay.util.id.RosId;
 
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.function.Consumer;
 
-class NodeSubscribeHandler<T extends RosData<T>> extends NodeMessageHandler<T> implements RosSubscriber<T> {
+class NodeSubscribeHandler<T extends RosData<T>> extends NodeMessageHandler<T, T> implements RosSubscriber<T> {
 
-    private final Set<Consumer<T>> callbacks = new HashSet<>();
+    private final Set<Consumer<T>> callbacks = new CopyOnWriteArraySet<>();
+    // the callbacks that let go of their messages on return; always a subset of the callbacks above
+    private final Set<Consumer<T>> recyclingCallbacks = new CopyOnWriteArraySet<>();
+    // the callbacks that asked for views; likewise a subset
+    private final Set<Consumer<T>> lazyCallbacks = new CopyOnWriteArraySet<>();
+    private final Set<Consumer<List<T>>> batchCallbacks = new CopyOnWriteArraySet<>();
+    private volatile RosDecodeMode decodeMode = RosDecodeMode.EAGER;
+    @Nullable
+    private volatile Set<String> projection = null;
+    private volatile boolean interning = false;
+    private volatile RosDataDecodePlan<T> decodePlan;
 
     NodeSubscribeHandler(NodeTransportManager manager, RosId topicId, RosMessageType<T> msgType, int bufferSize) {
-        super(manager, topicId, msgType, bufferSize);
+        // each publisher connection may be on a different event loop
+        super(manager, topicId, msgType, RosDataQueue.multiProducer(bufferSize));
+        this.decodePlan = msgType.getDataType().getDecodePlan();
     }
 
     @Override
     public void addCallback(Consumer<T> callback) {
+        registerCallback(callback, false, false);
+    }
+
+    @Override
+    public void addCallback(Consumer<T> callback, boolean recycle) {
+        registerCallback(callback, false, recycle);
+    }
+
+    @Override
+    public void addCallback(Consumer<T> callback, RosDecodeMode decodeMode) {
+        registerCallback(callback, decodeMode == RosDecodeMode.LAZY, false);
+    }
+
+    private synchronized void registerCallback(Consumer<T> callback, boolean lazy, boolean recycle) {
+        if (!recycle) {
+            recyclingCallbacks.remove(callback);
+        }
+        if (!lazy) {
+            lazyCallbacks.remove(callback);
+        }
         callbacks.add(callback);
+        if (recycle) {
+            recyclingCallbacks.add(callback);
+        }
+        if (lazy) {
+            lazyCallbacks.add(callback);
+        }
+        updateDecodeMode();
     }
 
     @Override
-    public void removeCallback(Consumer<T> callback) {
+    public synchronized void removeCallback(Consumer<T> callback) {
         callbacks.remove(callback);
+        recyclingCallbacks.remove(callback);
+        lazyCallbacks.remove(callback);
+        updateDecodeMode();
+    }
+
+    @Override
+    public synchronized void addBatchCallback(Consumer<List<T>> callback) {
+        batchCallbacks.add(callback);
+        updateDecodeMode();
+    }
+
+    @Override
+    public synchronized void removeBatchCallback(Consumer<List<T>> callback) {
+        batchCallbacks.remove(callback);
+        updateDecodeMode();
+    }
+
+    // views are only handed out if every callback asked for them, since the subscription is shared
+    private void updateDecodeMode() {
+        decodeMode = !callbacks.isEmpty() && batchCallbacks.isEmpty() && lazyCallbacks.size() == callbacks.size()
+                ? RosDecodeMode.LAZY : RosDecodeMode.EAGER;
+    }
+
+    @Override
+    public RosDecodeMode getDecodeMode() {
+        return decodeMode;
+    }
+
+    // only for a subscription nobody has seen yet; anything else could narrow the projection under other subscribers
+    synchronized void setFieldProjection(@Nullable Collection<String> fieldPaths) {
+        Set<String> paths = fieldPaths != null ? Collections.unmodifiableSet(new HashSet<>(fieldPaths)) : null;
+        decodePlan = buildDecodePlan(paths, interning); // validates the paths before anything is changed
+        projection = paths;
+    }
+
+    // subscriptions are shared, so each new subscriber can only ever add to what's decoded
+    @Override
+    public synchronized void widenFieldProjection(@Nullable Collection<String> fieldPaths) {
+        Set<String> current = projection;
+        if (current == null) {
+            return;
+        }
+        if (fieldPaths == null) {
+            setFieldProjection(null);
+        } else {
+            Set<String> union = new HashSet<>(current);
+            union.addAll(fieldPaths);
+            setFieldProjection(union);
+        }
+    }
+
+    @Nullable
+    @Override
+    public Set<String> getFieldProjection() {
+        return projection;
+    }
+
+    @Override
+    public synchronized void setStringInterning(boolean interning) {
+        if (interning != this.interning) {
+            decodePlan = buildDecodePlan(projection, interning);
+            this.interning = interning;
+        }
+    }
+
+    @Override
+    public boolean isStringInterning() {
+        return interning;
+    }
+
+    private RosDataDecodePlan<T> buildDecodePlan(@Nullable Set<String> paths, boolean interning) {
+        RosDataDecodePlan<T> plan = getMsgType().getDataType().getDecodePlan();
+        if (paths != null) {
+            plan = plan.project(paths);
+        }
+        return interning ? plan.internStrings() : plan; // each subscription gets its own caches
     }
 
     @Override
     public boolean hasCallbacks() {
-        return !callbacks.isEmpty();
+        return !callbacks.isEmpty() || !batchCallbacks.isEmpty();
     }
 
-    void consumeMessages() {
-        RosDataQueue.Entry<T> entry;
-        if ((entry = getDataQueue().poll()) != null) {
-            T msg = entry.getValue();
+    boolean retainsFrames() {
+        return decodeMode == RosDecodeMode.LAZY;
+    }
+
+    // called from the event loop with each received frame
+    T decodeFrame(ByteBuffer frame, boolean retained) {
+        RosDataType<T> dataType = getMsgType().getDataType();
+        if (decodeMode == RosDecodeMode.LAZY) {
+            if (!retained) { // the backing array gets reused for the next frame
+                ByteBuffer copy = ByteBuffer.allocate(frame.remaining());
+                copy.put(frame).flip();
+                frame = copy;
+            }
+            return dataType.newView(frame);
+        }
+        T msg = dataType.getInstancePool().acquire();
+        decodePlan.decodeInto(msg, frame);
+        return msg;
+    }
+
+    int consumeMessages(DispatchBudget budget) {
+        if (!batchCallbacks.isEmpty()) {
+            return consumeBatch(budget);
+        }
+        int limit = budget.getPerTransportLimit(), consumed = 0;
+        RosDataPool<T> pool = getMsgType().getDataType().getInstancePool();
+        T msg;
+        while (consumed < limit && (msg = getDataQueue().poll()) != null) {
+            boolean recycle = RosDataView.of(msg) == null;
             for (Consumer<T> callback : callbacks) {
                 callback.accept(msg);
+                recycle &= recyclingCallbacks.contains(callback); // only once everyone who saw it has let go of it
+            }
+            if (recycle) {
+                pool.release(msg);
+            }
+            ++consumed;
+            if (budget.isExpired()) {
+                break;
+            }
+        }
+        return consumed;
+    }
+
+    // the whole batch is taken at once, so only the per-transport limit applies here
+    private int consumeBatch(DispatchBudget budget) {
+        int limit = budget.getPerTransportLimit();
+        List<T> batch = new ArrayList<>(Math.min(limit, getDataQueue().getCount()));
+        if (getDataQueue().drainTo(batch, limit) == 0) {
+            return 0;
+        }
+        for (T msg : batch) {
+            for (Consumer<T> callback : callbacks) {
+                callback.accept(msg);
+            }
+        }
+        if (batchCallbacks.size() == 1) {
+            for (Consumer<List<T>> callback : batchCallbacks) {
+                callback.accept(batch);
+            }
+        } else { // each callback gets its own list, since they're allowed to keep them
+            for (Consumer<List<T>> callback : batchCallbacks) {
+                callback.accept(new ArrayList<>(batch));
             }
         }
+        return batch.size();
     }
 
     @Override
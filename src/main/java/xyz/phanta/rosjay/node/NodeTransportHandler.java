@@ -3,14 +3,19 @@ package xyz.phanta.rosjay.node;
 import xyz.phanta.rosjay.transport.RosTransport;
 import xyz.phanta.rosjay.util.RosDataQueue;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 abstract class NodeTransportHandler<T> implements RosTransport {
 
     private final NodeTransportManager manager;
     private final RosDataQueue<T> dataQueue;
+    private long reportedDrops = 0L;
+    private final AtomicInteger activeWorkers = new AtomicInteger(0);
+    private volatile boolean reentrant = false;
 
-    NodeTransportHandler(NodeTransportManager manager, int bufferSize) {
+    NodeTransportHandler(NodeTransportManager manager, RosDataQueue<T> dataQueue) {
         this.manager = manager;
-        this.dataQueue = new RosDataQueue<>(bufferSize);
+        this.dataQueue = dataQueue;
     }
 
     NodeTransportManager getManager() {
@@ -21,4 +26,42 @@ abstract class NodeTransportHandler<T> implements RosTransport {
         return dataQueue;
     }
 
+    public long getDroppedCount() {
+        return dataQueue.getDropCount();
+    }
+
+    public boolean isReentrant() {
+        return reentrant;
+    }
+
+    public void setReentrant(boolean reentrant) {
+        this.reentrant = reentrant;
+    }
+
+    boolean tryAcquireWorker(int maxWorkers) {
+        int workers;
+        do {
+            workers = activeWorkers.get();
+            if (workers >= maxWorkers) {
+                return false;
+            }
+        } while (!activeWorkers.compareAndSet(workers, workers + 1));
+        return true;
+    }
+
+    void releaseWorker() {
+        activeWorkers.decrementAndGet();
+    }
+
+    // drops since the last call; only ever called from the spinning thread
+    long collectNewDrops() {
+        long dropCount = dataQueue.getDropCount();
+        if (dropCount <= reportedDrops) { // the count can briefly lag while producers are active
+            return 0L;
+        }
+        long newDrops = dropCount - reportedDrops;
+        reportedDrops = dropCount;
+        return newDrops;
+    }
+
 }
@@ -1,7 +1,9 @@
 package xyz.phanta.rosjay.node;
 
 import org.slf4j.Logger;
+import xyz.phanta.rosjay.tcpros.TcpRosFrameWriter;
 import xyz.phanta.rosjay.transport.data.RosData;
+import xyz.phanta.rosjay.transport.msg.RosBacklogPolicy;
 import xyz.phanta.rosjay.transport.msg.RosMessageType;
 import xyz.phanta.rosjay.transport.msg.RosPublisher;
 import xyz.phanta.rosjay.transport.msg.RosSubscriber;
@@ -10,30 +12,35 @@ import xyz.phanta.rosjay.transport.srv.RosServiceProvider;
 import xyz.phanta.rosjay.transport.srv.RosServiceType;
 import xyz.phanta.rosjay.util.BusStateTracker;
 import xyz.phanta.rosjay.util.RosDataQueue;
-import xyz.phanta.rosjay.util.RosUtils;
 import xyz.phanta.rosjay.util.id.NamespacedMap;
 import xyz.phanta.rosjay.util.id.RosId;
-import xyz.phanta.rosjay.util.lowdata.LEDataOutputStream;
 
 import javax.annotation.Nullable;
-import java.io.DataOutput;
 import java.io.IOException;
-import java.io.OutputStream;
 import java.net.Socket;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class NodeTransportManager {
 
     private final RosNode owner;
     private final Logger internalLogger;
     private final BusStateTracker busStates = new BusStateTracker();
+    private final WorkSignal workSignal = new WorkSignal();
 
     // publishers
     private final NamespacedMap<NodePublishHandler<?>> pubs = new NamespacedMap<>();
-    private final NamespacedMap<Map<Socket, DataOutput>> pubConnections = new NamespacedMap<>();
+    // concurrent so the spinner can hand out frames without locking; the monitor only guards structural changes
+    private final NamespacedMap<Map<Socket, TcpRosFrameWriter>> pubConnections = NamespacedMap.concurrent();
 
     // subscribers
     private final NamespacedMap<NodeSubscribeHandler<?>> subs = NamespacedMap.concurrent();
@@ -44,6 +51,12 @@ public class NodeTransportManager {
     // service servers
     private final NamespacedMap<NodeServiceServer<?, ?>> srvServers = NamespacedMap.concurrent();
 
+    // spin dispatch limits; zero means unbounded
+    private volatile int dispatchLimit = 0;
+    private volatile long dispatchTimeLimit = 0L;
+    private int tickCount = 0;
+    private final AtomicBoolean asyncSpinning = new AtomicBoolean(false);
+
     private boolean alive = true;
 
     NodeTransportManager(RosNode owner) {
@@ -59,6 +72,10 @@ public class NodeTransportManager {
         return busStates;
     }
 
+    WorkSignal getWorkSignal() {
+        return workSignal;
+    }
+
     Set<Map.Entry<RosId, NodePublishHandler<?>>> getPubEntries() {
         return pubs.entrySet();
     }
@@ -87,16 +104,21 @@ public class NodeTransportManager {
         return pubs.get(topicId);
     }
 
-    <T extends RosData<T>> RosSubscriber<T> resolveSub(RosId topicId, RosMessageType<T> msgType, int bufferSize)
-            throws IOException {
+    // a null projection decodes every field
+    <T extends RosData<T>> RosSubscriber<T> resolveSub(RosId topicId, RosMessageType<T> msgType, int bufferSize,
+                                                       @Nullable Collection<String> projection) throws IOException {
         //noinspection unchecked
         NodeSubscribeHandler<T> sub = (NodeSubscribeHandler<T>)subs.get(topicId);
         if (sub != null) {
+            sub.widenFieldProjection(projection);
             return sub;
         }
 
         internalLogger.debug("Creating sub to {} ({}) with bufSize={}...", topicId, msgType, bufferSize);
         sub = new NodeSubscribeHandler<>(this, topicId, msgType, bufferSize);
+        if (projection != null) {
+            sub.setFieldProjection(projection);
+        }
         subs.put(topicId, sub);
         owner.scheduleRpcTask(new OpenSubscriberTask(
                 owner, topicId, msgType, owner.getRosMaster().registerSubscriber(sub)));
@@ -186,25 +208,60 @@ public class NodeTransportManager {
         return pub != null && pub.isLatching();
     }
 
-    public void registerPubConnection(RosId topicId, Socket clientSocket, OutputStream toClient) {
+    public void registerPubConnection(RosId topicId, Socket clientSocket, TcpRosFrameWriter toClient) {
+        NodePublishHandler<?> pub = pubs.get(topicId);
+        if (pub != null) {
+            toClient.setBacklogPolicy(pub.getBacklogPolicy());
+        }
         synchronized (pubConnections) {
-            pubConnections.computeIfAbsent(topicId, HashMap::new).put(clientSocket, new LEDataOutputStream(toClient));
+            Map<Socket, TcpRosFrameWriter> connections = pubConnections.computeIfAbsent(topicId, ConcurrentHashMap::new);
+            connections.put(clientSocket, toClient);
+            if (pub != null) {
+                pub.setConnectionCount(connections.size());
+            }
+        }
+    }
+
+    void updateBacklogPolicy(RosId topicId, RosBacklogPolicy policy) {
+        // the writers are updated outside the lock, since closing a connection takes it while holding a writer
+        List<TcpRosFrameWriter> writers;
+        synchronized (pubConnections) {
+            Map<Socket, TcpRosFrameWriter> connections = pubConnections.get(topicId);
+            if (connections == null) {
+                return;
+            }
+            writers = new ArrayList<>(connections.values());
+        }
+        for (TcpRosFrameWriter conn : writers) {
+            conn.setBacklogPolicy(policy);
         }
     }
 
     public void notifyPubConnectionKilled(Socket clientSocket) {
         synchronized (pubConnections) {
-            for (Map.Entry<RosId, Map<Socket, DataOutput>> topicEntry : pubConnections.entrySet()) {
-                topicEntry.getValue().remove(clientSocket);
+            for (Map.Entry<RosId, Map<Socket, TcpRosFrameWriter>> topicEntry : pubConnections.entrySet()) {
+                if (topicEntry.getValue().remove(clientSocket) != null) {
+                    NodePublishHandler<?> pub = pubs.get(topicEntry.getKey());
+                    if (pub != null) {
+                        pub.setConnectionCount(topicEntry.getValue().size());
+                    }
+                }
             }
         }
     }
 
-    public void notifyReceivedMessage(RosId topicId, RosData<?> msg) {
+    public boolean retainsFrames(RosId topicId) {
+        NodeSubscribeHandler<?> sub = subs.get(topicId);
+        return sub != null && sub.retainsFrames();
+    }
+
+    // decoding is left to the subscriber, since that's where the decode mode lives
+    public void notifyReceivedFrame(RosId topicId, ByteBuffer frame, boolean retained) {
         NodeSubscribeHandler<?> sub = subs.get(topicId);
         if (sub != null) {
             //noinspection unchecked
-            ((RosDataQueue)sub.getDataQueue()).offer(msg);
+            ((RosDataQueue)sub.getDataQueue()).offer(sub.decodeFrame(frame, retained));
+            workSignal.raise();
         }
     }
 
@@ -233,50 +290,156 @@ public class NodeTransportManager {
     }
 
     @SuppressWarnings("unchecked")
-    public void queueServiceRequest(RosId serviceId, RosData<?> request, OutputStream toClient) {
+    public void queueServiceRequest(RosId serviceId, RosData<?> request, TcpRosFrameWriter toClient) {
         Objects.requireNonNull(srvServers.get(serviceId)).getDataQueue()
-                .offer(new NodeServiceServer.Request(request, new LEDataOutputStream(toClient)));
+                .offer(new NodeServiceServer.Request(request, toClient));
+        workSignal.raise();
+    }
+
+    void setDispatchBudget(int perTransportLimit, long timeLimitNanos) {
+        this.dispatchLimit = perTransportLimit;
+        this.dispatchTimeLimit = timeLimitNanos;
     }
 
     void tick() {
+        if (asyncSpinning.get()) {
+            throw new IllegalStateException("Cannot spin while an async spinner is running!");
+        }
+        workSignal.clear();
+        tickPublications();
+        DispatchBudget budget = new DispatchBudget(dispatchLimit, dispatchTimeLimit);
+        int offset = tickCount++;
+        dispatch(subs, "subscription", offset, budget, NodeSubscribeHandler::consumeMessages);
+        if (!budget.isExpired()) {
+            dispatch(srvServers, "service provider", offset, budget, NodeServiceServer::processRequests);
+        }
+    }
+
+    boolean acquireAsyncSpinning() {
+        return asyncSpinning.compareAndSet(false, true);
+    }
+
+    void releaseAsyncSpinning() {
+        asyncSpinning.set(false);
+    }
+
+    // like tick(), except that subscription and service work is handed off to the given executor
+    void tickAsync(Executor executor, int parallelism) {
+        workSignal.clear();
+        tickPublications();
+        schedule(subs, "subscription", executor, parallelism, NodeSubscribeHandler::consumeMessages);
+        schedule(srvServers, "service provider", executor, parallelism, NodeServiceServer::processRequests);
+    }
+
+    private void tickPublications() {
         for (Map.Entry<RosId, NodePublishHandler<?>> pub : pubs.entrySet()) {
             try {
-                RosDataQueue<? extends RosData<?>> pubQueue = pub.getValue().getDataQueue();
-                RosDataQueue.Entry<? extends RosData<?>> entry;
-                while ((entry = pubQueue.poll()) != null) {
-                    synchronized (pubConnections) {
-                        Map<Socket, DataOutput> connections = pubConnections.get(pub.getKey());
-                        if (connections != null) {
-                            byte[] msgData = RosUtils.serializeDataPacket(entry.getValue(), entry.getSeqIndex());
-                            for (DataOutput stream : connections.values()) {
-                                stream.writeInt(msgData.length);
-                                stream.write(msgData);
-                            }
-                        }
-                    }
-                }
+                drainPublication(pub.getKey(), pub.getValue().getDataQueue());
+                flushPubConnections(pub.getKey());
             } catch (Exception e) {
                 internalLogger.warn("Encountered exception while ticking publication: " + pub.getKey(), e);
             }
+            reportDrops("publication", pub.getKey(), pub.getValue());
         }
-        for (Map.Entry<RosId, NodeSubscribeHandler<?>> sub : subs.entrySet()) {
+    }
+
+    // starts at a different handler each tick so that a time budget doesn't always cut off the same ones
+    private <H extends NodeTransportHandler<?>> void dispatch(NamespacedMap<H> handlers, String kind, int offset,
+                                                              DispatchBudget budget, Dispatcher<H> dispatcher) {
+        List<Map.Entry<RosId, H>> entries = new ArrayList<>(handlers.entrySet());
+        for (int i = 0; i < entries.size(); i++) {
+            Map.Entry<RosId, H> entry = entries.get(Math.floorMod(offset + i, entries.size()));
             try {
-                sub.getValue().consumeMessages();
+                dispatcher.dispatch(entry.getValue(), budget);
             } catch (Exception e) {
-                internalLogger.warn("Encountered exception while ticking subscription: " + sub.getKey(), e);
+                internalLogger.warn("Encountered exception while ticking " + kind + ": " + entry.getKey(), e);
+            }
+            reportDrops(kind, entry.getKey(), entry.getValue());
+            if (budget.isExpired()) {
+                workSignal.raise(); // the rest still need a turn
+                break;
+            } else if (entry.getValue().getDataQueue().getCount() > 0) {
+                workSignal.raise(); // hit the per-transport limit
             }
         }
-        for (Map.Entry<RosId, NodeServiceServer<?, ?>> server : srvServers.entrySet()) {
-            try {
-                server.getValue().processRequests();
-            } catch (Exception e) {
-                internalLogger.warn("Encountered exception while ticking service provider: " + server.getKey(), e);
+    }
+
+    // frames were already encoded by the publishing threads, so all that's left is handing them out
+    private void drainPublication(RosId topicId, RosDataQueue<byte[]> pubQueue) {
+        Map<Socket, TcpRosFrameWriter> connections = pubConnections.get(topicId);
+        byte[] frame;
+        while ((frame = pubQueue.poll()) != null) {
+            if (connections != null) {
+                for (TcpRosFrameWriter conn : connections.values()) {
+                    conn.queueMessage(frame);
+                }
+            }
+        }
+    }
+
+    // non-reentrant handlers get at most one worker at a time, which keeps their entries in order
+    private <H extends NodeTransportHandler<?>> void schedule(NamespacedMap<H> handlers, String kind, Executor executor,
+                                                              int parallelism, Dispatcher<H> dispatcher) {
+        for (Map.Entry<RosId, H> entry : handlers.entrySet()) {
+            H handler = entry.getValue();
+            reportDrops(kind, entry.getKey(), handler);
+            int maxWorkers = handler.isReentrant() ? parallelism : 1;
+            int toStart = Math.min(handler.getDataQueue().getCount(), maxWorkers);
+            while (toStart-- > 0 && handler.tryAcquireWorker(maxWorkers)) {
+                try {
+                    executor.execute(() -> {
+                        try {
+                            dispatcher.dispatch(handler, new DispatchBudget(dispatchLimit, dispatchTimeLimit));
+                        } catch (Exception e) {
+                            internalLogger.warn("Encountered exception while ticking " + kind + ": " + entry.getKey(), e);
+                        } finally {
+                            handler.releaseWorker();
+                            if (handler.getDataQueue().getCount() > 0) {
+                                workSignal.raise(); // budget ran out; pick the rest up on the next round
+                            }
+                        }
+                    });
+                } catch (RejectedExecutionException e) { // spinner is shutting down
+                    handler.releaseWorker();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void reportDrops(String kind, RosId id, NodeTransportHandler<?> handler) {
+        long newDrops = handler.collectNewDrops();
+        if (newDrops > 0) {
+            internalLogger.debug("Buffer for {} {} overflowed; dropped {} (total {}).",
+                    kind, id, newDrops, handler.getDroppedCount());
+        }
+    }
+
+    // everything drained for a topic this tick goes out in one write per connection
+    private void flushPubConnections(RosId topicId) {
+        Map<Socket, TcpRosFrameWriter> connections = pubConnections.get(topicId);
+        if (connections != null) {
+            for (Map.Entry<Socket, TcpRosFrameWriter> conn : connections.entrySet()) {
+                try {
+                    conn.getValue().flush();
+                } catch (IOException e) {
+                    internalLogger.warn("Failed to write publication {} to {}!",
+                            topicId, conn.getKey().getInetAddress(), e);
+                }
             }
         }
     }
 
+    @FunctionalInterface
+    private interface Dispatcher<H> {
+
+        int dispatch(H handler, DispatchBudget budget) throws IOException;
+
+    }
+
     void kill() {
         alive = false;
+        workSignal.raise(); // wake up the spinner so it can see the node is dead
 
         internalLogger.debug("Cleaning up publications...");
         for (Map.Entry<RosId, NodePublishHandler<?>> pub : pubs.entrySet()) {
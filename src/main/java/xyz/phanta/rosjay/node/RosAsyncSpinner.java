@@ -0,0 +1,102 @@
+package xyz.phanta.rosjay.node;
+
+import org.slf4j.Logger;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs a node's subscription callbacks and service handlers on a pool of worker threads, similarly to roscpp's
+ * AsyncSpinner. Each subscription or service is handled by one worker at a time unless it is marked reentrant.
+ * While an async spinner is running, the node cannot be spun by any other means.
+ */
+public class RosAsyncSpinner {
+
+    private final RosNode node;
+    private final int threadCount;
+    private final Logger internalLogger;
+
+    @Nullable
+    private Thread dispatchThread;
+    private volatile boolean running = false;
+
+    RosAsyncSpinner(RosNode node, int threadCount) {
+        if (threadCount < 1) {
+            throw new IllegalArgumentException("Need at least one spinner thread!");
+        }
+        this.node = node;
+        this.threadCount = threadCount;
+        this.internalLogger = node.getChildInternalLogger("spinner");
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            throw new IllegalStateException("Spinner is already running!");
+        }
+        if (!node.isAlive()) {
+            throw new IllegalStateException("Node is not running!");
+        }
+        NodeTransportManager transportManager = node.getTransportManager();
+        if (!transportManager.acquireAsyncSpinning()) {
+            throw new IllegalStateException("Another async spinner is already running on this node!");
+        }
+        internalLogger.debug("Starting async spinner with {} threads...", threadCount);
+        ThreadFactory threadFactory = node.getExecutionConfig()
+                .createThreadFactory(RosExecutionConfig.Role.CALLBACKS, node);
+        ExecutorService workers = Executors.newFixedThreadPool(threadCount, threadFactory);
+        running = true;
+        Thread dispatchThread = threadFactory.newThread(() -> run(transportManager, workers));
+        this.dispatchThread = dispatchThread;
+        dispatchThread.start();
+    }
+
+    private void run(NodeTransportManager transportManager, ExecutorService workers) {
+        try {
+            while (running && node.isAlive()) {
+                try {
+                    transportManager.getWorkSignal().await();
+                } catch (InterruptedException e) {
+                    continue; // probably stop() waking us up
+                }
+                if (running) {
+                    transportManager.tickAsync(workers, threadCount);
+                }
+            }
+        } catch (Exception e) {
+            internalLogger.error("Async spinner dispatch failed!", e);
+        } finally {
+            running = false;
+            workers.shutdown();
+            transportManager.releaseAsyncSpinning();
+        }
+    }
+
+    /**
+     * Stops dispatching new work. Callbacks that are already running are allowed to finish.
+     */
+    public synchronized void stop() {
+        if (dispatchThread == null) {
+            throw new IllegalStateException("Spinner is not running!");
+        }
+        internalLogger.debug("Stopping async spinner...");
+        running = false;
+        dispatchThread.interrupt();
+        try {
+            dispatchThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dispatchThread = null;
+    }
+
+}
@@ -0,0 +1,197 @@
+package xyz.phanta.rosjay.node;
+
+import xyz.phanta.rosjay.tcpros.loop.TcpRosEventLoopGroup;
+
+import java.lang.reflect.Method;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Decides which threads a {@link RosNode} runs its work on. Each {@link Role} gets its own thread factory, and the
+ * roles that are backed by a pool can also have the pool itself replaced.
+ */
+public class RosExecutionConfig {
+
+    /**
+     * The system property that switches nodes using the default configuration over to {@link #virtualThreads()}.
+     */
+    public static final String VIRTUAL_THREADS_PROPERTY = "rosjay.virtualThreads";
+
+    public enum Role {
+
+        // one-shot thread that brings up the node's servers
+        INIT("ROS Node Init Thread", false, true),
+        // xmlrpc request handling and master/peer bookkeeping; must run tasks in submission order
+        RPC_TASKS("ROS RPC Task Thread", true, false),
+        // tcpros selector threads
+        EVENT_LOOP("TCPROS Event Loop", false, true),
+        // asynchronous service calls, which block for the duration of the call
+        SERVICE_CALLS("ROS Service Call Thread", true, true),
+        // async spinner dispatch and callback workers; the pool is sized by the spinner
+        CALLBACKS("ROS Callback Thread", false, true);
+
+        private final String threadName;
+        private final boolean pooled;
+        private final boolean daemon;
+
+        Role(String threadName, boolean pooled, boolean daemon) {
+            this.threadName = threadName;
+            this.pooled = pooled;
+            this.daemon = daemon;
+        }
+
+        public String getThreadName() {
+            return threadName;
+        }
+
+        public boolean isPooled() {
+            return pooled;
+        }
+
+    }
+
+    public static boolean areVirtualThreadsAvailable() {
+        String version = System.getProperty("java.specification.version", "1.8");
+        if (version.startsWith("1.")) {
+            return false;
+        }
+        try {
+            return Integer.parseInt(version) >= 21;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Named platform threads for every role, which is how nodes have always run.
+     */
+    public static RosExecutionConfig platformThreads() {
+        return new RosExecutionConfig();
+    }
+
+    /**
+     * Virtual threads for everything except the event loops, which spend their lives blocked in a selector and would
+     * only end up pinning carrier threads.
+     *
+     * @throws UnsupportedOperationException If the running JVM has no virtual threads (JDK 21+ is required).
+     */
+    public static RosExecutionConfig virtualThreads() {
+        if (!areVirtualThreadsAvailable()) {
+            throw new UnsupportedOperationException("Virtual threads require JDK 21 or newer!");
+        }
+        return new RosExecutionConfig()
+                .setThreadFactoryProvider(Role.INIT, RosExecutionConfig::virtualThreadFactory)
+                .setThreadFactoryProvider(Role.RPC_TASKS, RosExecutionConfig::virtualThreadFactory)
+                .setThreadFactoryProvider(Role.SERVICE_CALLS, RosExecutionConfig::virtualThreadFactory)
+                .setThreadFactoryProvider(Role.CALLBACKS, RosExecutionConfig::virtualThreadFactory);
+    }
+
+    /**
+     * The configuration used by nodes that aren't given one explicitly. This is {@link #platformThreads()} unless the
+     * {@value #VIRTUAL_THREADS_PROPERTY} system property is set and the JVM supports virtual threads.
+     */
+    public static RosExecutionConfig getDefault() {
+        if (Boolean.getBoolean(VIRTUAL_THREADS_PROPERTY) && areVirtualThreadsAvailable()) {
+            return virtualThreads();
+        }
+        return platformThreads();
+    }
+
+    private final Map<Role, Function<String, ThreadFactory>> threadFactories = new EnumMap<>(Role.class);
+    private final Map<Role, Function<ThreadFactory, ExecutorService>> executorFactories = new EnumMap<>(Role.class);
+    private int eventLoopCount = -1;
+
+    private RosExecutionConfig() {
+        executorFactories.put(Role.RPC_TASKS, Executors::newSingleThreadExecutor);
+        executorFactories.put(Role.SERVICE_CALLS, Executors::newCachedThreadPool);
+    }
+
+    public RosExecutionConfig setThreadFactory(Role role, ThreadFactory factory) {
+        return setThreadFactoryProvider(role, name -> factory);
+    }
+
+    /**
+     * Sets the thread factory for a role per node. The provider is given the base thread name for the role, which
+     * includes the node's ID.
+     */
+    public RosExecutionConfig setThreadFactoryProvider(Role role, Function<String, ThreadFactory> provider) {
+        threadFactories.put(role, provider);
+        return this;
+    }
+
+    /**
+     * Replaces the pool backing a pooled role. The pool is given the role's thread factory and is shut down along
+     * with the node, so it must not be shared between nodes.
+     */
+    public RosExecutionConfig setExecutorFactory(Role role, Function<ThreadFactory, ExecutorService> factory) {
+        if (!role.isPooled()) {
+            throw new IllegalArgumentException("Role is not backed by an executor: " + role);
+        }
+        executorFactories.put(role, factory);
+        return this;
+    }
+
+    public RosExecutionConfig setEventLoopCount(int eventLoopCount) {
+        if (eventLoopCount < 1) {
+            throw new IllegalArgumentException("Need at least one event loop!");
+        }
+        this.eventLoopCount = eventLoopCount;
+        return this;
+    }
+
+    public int getEventLoopCount() {
+        return eventLoopCount != -1 ? eventLoopCount : TcpRosEventLoopGroup.getDefaultLoopCount();
+    }
+
+    ThreadFactory createThreadFactory(Role role, RosNode node) {
+        String name = role.getThreadName() + ": " + node.getId();
+        Function<String, ThreadFactory> factory = threadFactories.get(role);
+        return factory != null ? factory.apply(name) : new NamedThreadFactory(name, role.daemon);
+    }
+
+    ExecutorService createExecutor(Role role, RosNode node) {
+        if (!role.isPooled()) {
+            throw new IllegalArgumentException("Role is not backed by an executor: " + role);
+        }
+        return executorFactories.get(role).apply(createThreadFactory(role, node));
+    }
+
+    private static ThreadFactory virtualThreadFactory(String name) {
+        // looked up reflectively so the library still builds and runs on java 8
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            Method nameMethod = builderClass.getMethod("name", String.class, long.class);
+            builder = nameMethod.invoke(builder, name + " #", 0L);
+            return (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new UnsupportedOperationException("Could not create virtual thread factory!", e);
+        }
+    }
+
+    private static class NamedThreadFactory implements ThreadFactory {
+
+        private final String name;
+        private final boolean daemon;
+        private final AtomicInteger nextIndex = new AtomicInteger(0);
+
+        NamedThreadFactory(String name, boolean daemon) {
+            this.name = name;
+            this.daemon = daemon;
+        }
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, name + " #" + nextIndex.getAndIncrement());
+            thread.setDaemon(daemon);
+            return thread;
+        }
+
+    }
+
+}
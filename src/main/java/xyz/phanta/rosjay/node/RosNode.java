@@ -11,6 +11,7 @@ import xyz.phanta.jxmlrpc.data.XmlRpcString;
 import xyz.phanta.rosjay.rospkg.rosgraph_msgs.Log;
 import xyz.phanta.rosjay.rpc.RosRpcMaster;
 import xyz.phanta.rosjay.tcpros.client.TcpRosClientManager;
+import xyz.phanta.rosjay.tcpros.loop.TcpRosEventLoopGroup;
 import xyz.phanta.rosjay.tcpros.server.TcpRosServer;
 import xyz.phanta.rosjay.transport.data.RosData;
 import xyz.phanta.rosjay.transport.msg.RosMessageType;
@@ -19,7 +20,6 @@ import xyz.phanta.rosjay.transport.msg.RosSubscriber;
 import xyz.phanta.rosjay.transport.srv.RosServiceClient;
 import xyz.phanta.rosjay.transport.srv.RosServiceProvider;
 import xyz.phanta.rosjay.transport.srv.RosServiceType;
-import xyz.phanta.rosjay.util.RosRate;
 import xyz.phanta.rosjay.util.RosUtils;
 import xyz.phanta.rosjay.util.id.RosId;
 import xyz.phanta.rosjay.util.id.RosNamespace;
@@ -30,8 +30,9 @@ import java.lang.management.ManagementFactory;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
@@ -66,14 +67,18 @@ public class RosNode {
     private final Logger internalLogger;
     private final NodeTransportManager transportManager;
     private final ParameterManager paramManager;
+    private final RosExecutionConfig execConfig;
 
     // rpc server
     private final RpcController rpcController = new RpcController();
-    private final ExecutorService rpcTaskScheduler = Executors.newSingleThreadExecutor();
+    private final ExecutorService rpcTaskScheduler;
     private final XmlRpcServer rpcServer = new XmlRpcServer(rpcController);
     @Nullable
     private URI rpcServerUri = null;
 
+    // tcp event loops, shared by the server and clients
+    private final TcpRosEventLoopGroup eventLoops;
+
     // tcp server
     private final TcpRosServer tcpServer;
     @Nullable
@@ -82,6 +87,9 @@ public class RosNode {
     // tcp clients
     private final TcpRosClientManager tcpClient;
 
+    // async service calls
+    private final ExecutorService serviceCallExecutor;
+
     // other state
     private boolean initializedAlready = false;
     private boolean alive = false;
@@ -97,6 +105,10 @@ public class RosNode {
     }
 
     public RosNode(RosId nodeId, URI masterUri, String localIp) {
+        this(nodeId, masterUri, localIp, RosExecutionConfig.getDefault());
+    }
+
+    public RosNode(RosId nodeId, URI masterUri, String localIp, RosExecutionConfig execConfig) {
         this.nodeId = nodeId; // TODO remapping?
         this.privateNs = nodeId.getNamespace().resolveNamespace(nodeId.getName());
         this.rosMaster = new RosRpcMaster(this, masterUri);
@@ -104,8 +116,14 @@ public class RosNode {
         this.internalLogger = LoggerFactory.getLogger(GLOBAL_LOGGER.getName() + "." + nodeId.toUnrootedString().replace('/', '.'));
         this.transportManager = new NodeTransportManager(this);
         this.paramManager = new ParameterManager(this);
-        this.tcpServer = new TcpRosServer(this);
-        this.tcpClient = new TcpRosClientManager(this);
+        this.execConfig = execConfig;
+        this.rpcTaskScheduler = execConfig.createExecutor(RosExecutionConfig.Role.RPC_TASKS, this);
+        this.eventLoops = new TcpRosEventLoopGroup(
+                execConfig.createThreadFactory(RosExecutionConfig.Role.EVENT_LOOP, this),
+                execConfig.getEventLoopCount(), getChildInternalLogger("tcpros_loop"));
+        this.tcpServer = new TcpRosServer(this, eventLoops);
+        this.tcpClient = new TcpRosClientManager(this, eventLoops);
+        this.serviceCallExecutor = execConfig.createExecutor(RosExecutionConfig.Role.SERVICE_CALLS, this);
     }
 
     public RosId getId() {
@@ -146,7 +164,7 @@ public class RosNode {
         }
         initializedAlready = true;
         // TODO sanity check environment to make sure ROS is ready to run
-        Thread initThread = new Thread(() -> {
+        Thread initThread = execConfig.createThreadFactory(RosExecutionConfig.Role.INIT, this).newThread(() -> {
             try {
                 internalLogger.debug("Initializing XMLRPC server...");
                 rpcServer.serve(new InetSocketAddress(0), rpcTaskScheduler);
@@ -175,10 +193,9 @@ public class RosNode {
                 killSockets();
                 throw new IllegalStateException("ROS node server initialization failed!", e);
             }
-        }, "ROS Node Init Thread: " + nodeId);
+        });
         AtomicReference<Throwable> initExceptionHolder = new AtomicReference<>(null);
         initThread.setUncaughtExceptionHandler((t, e) -> initExceptionHolder.set(e));
-        initThread.setDaemon(true);
         initThread.start();
         try {
             initThread.join();
@@ -224,6 +241,14 @@ public class RosNode {
         return tcpClient;
     }
 
+    Executor getServiceCallExecutor() {
+        return serviceCallExecutor;
+    }
+
+    public RosExecutionConfig getExecutionConfig() {
+        return execConfig;
+    }
+
     public <T extends RosData<T>> RosPublisher<T> advertise(String topicName, RosMessageType<T> msgType, int bufferSize) {
         return advertise(topicName, msgType, bufferSize, false);
     }
@@ -263,8 +288,32 @@ public class RosNode {
     }
 
     public <T extends RosData<T>> RosSubscriber<T> subscribe(RosId topicId, RosMessageType<T> msgType, int bufferSize) {
+        return resolveSubscription(topicId, msgType, bufferSize, null);
+    }
+
+    /**
+     * Subscribes with only the given field paths decoded, e.g. {@code header.stamp} or {@code ranges}. If the node is
+     * already subscribed to the topic, the existing subscription's projection is widened to cover these fields too.
+     *
+     * @see RosSubscriber#widenFieldProjection(Collection)
+     */
+    public <T extends RosData<T>> RosSubscriber<T> subscribe(String topicName, RosMessageType<T> msgType, int bufferSize,
+                                                             Collection<String> fieldProjection, Consumer<T> callback) {
+        return subscribe(resolveRelativeId(topicName), msgType, bufferSize, fieldProjection, callback);
+    }
+
+    public <T extends RosData<T>> RosSubscriber<T> subscribe(RosId topicId, RosMessageType<T> msgType, int bufferSize,
+                                                             Collection<String> fieldProjection, Consumer<T> callback) {
+        RosSubscriber<T> sub = resolveSubscription(topicId, msgType, bufferSize, fieldProjection);
+        sub.addCallback(callback);
+        return sub;
+    }
+
+    private <T extends RosData<T>> RosSubscriber<T> resolveSubscription(RosId topicId, RosMessageType<T> msgType,
+                                                                        int bufferSize,
+                                                                        @Nullable Collection<String> fieldProjection) {
         try {
-            return transportManager.resolveSub(topicId, msgType, bufferSize);
+            return transportManager.resolveSub(topicId, msgType, bufferSize, fieldProjection);
         } catch (IOException e) {
             throw new IllegalStateException("Failed to resolve subscription!", e);
         }
@@ -312,17 +361,63 @@ public class RosNode {
         return paramManager;
     }
 
+    /**
+     * Limits how much each call to {@link #spinOnce()} dispatches. By default every buffered message and service
+     * request is handled on each spin.
+     *
+     * @param perTransportLimit The most messages or requests handled per subscription or service per spin, or zero
+     *                          for no limit.
+     * @param timeLimit         How long a single spin may spend dispatching before the remaining transports are left
+     *                          for the next spin, or zero for no limit.
+     */
+    public void setDispatchBudget(int perTransportLimit, long timeLimit, TimeUnit unit) {
+        if (perTransportLimit < 0 || timeLimit < 0) {
+            throw new IllegalArgumentException("Dispatch budget cannot be negative!");
+        }
+        transportManager.setDispatchBudget(perTransportLimit, unit.toNanos(timeLimit));
+    }
+
     public void spinOnce() {
         if (alive) {
             transportManager.tick();
         }
     }
 
+    /**
+     * Creates a spinner that dispatches callbacks on a pool of worker threads. The spinner must be started after the
+     * node has been initialized.
+     *
+     * @param threadCount The number of worker threads, or zero to use one per available processor.
+     */
+    public RosAsyncSpinner createAsyncSpinner(int threadCount) {
+        return new RosAsyncSpinner(this, threadCount > 0 ? threadCount : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Waits up to the given time for a message, service request or outgoing publication to arrive, then dispatches
+     * whatever is pending.
+     *
+     * @return Whether there was any work to dispatch.
+     */
+    public boolean spinOnce(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!transportManager.getWorkSignal().await(timeout, unit)) {
+            return false;
+        }
+        spinOnce();
+        return true;
+    }
+
+    /**
+     * Dispatches work as soon as it arrives until the node dies, sleeping whenever there is none.
+     */
     public void spin() {
-        RosRate rate = new RosRate(30D);
         while (isAlive()) {
+            try {
+                transportManager.getWorkSignal().await();
+            } catch (InterruptedException e) {
+                // NO-OP
+            }
             spinOnce();
-            rate.sleep();
         }
     }
 
@@ -360,6 +455,9 @@ public class RosNode {
         internalLogger.debug("Closing XMLRPC task queue...");
         rpcTaskScheduler.shutdown();
 
+        internalLogger.debug("Closing service call executor...");
+        serviceCallExecutor.shutdown();
+
         try {
             internalLogger.debug("Cleaning up TCPROS server...");
             tcpServer.kill();
@@ -373,6 +471,9 @@ public class RosNode {
         } catch (Exception e) {
             internalLogger.warn("Encountered exception while cleaning up TCPROS clients!", e);
         }
+
+        internalLogger.debug("Stopping TCPROS event loops...");
+        eventLoops.shutdown();
     }
 
     private class RpcController {
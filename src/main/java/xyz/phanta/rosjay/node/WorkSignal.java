@@ -0,0 +1,70 @@
+package xyz.phanta.rosjay.node;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+// raised whenever something lands in a queue the spinner drains, so the spinner can sleep until there's work
+class WorkSignal {
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition raised = lock.newCondition();
+    private volatile boolean pending = false;
+
+    // producers enqueue first and raise after, so a spinner that cleared the flag before draining can't miss anything
+    void raise() {
+        if (!pending) {
+            lock.lock();
+            try {
+                pending = true;
+                raised.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // must be called before draining, never after
+    void clear() {
+        pending = false;
+    }
+
+    boolean isRaised() {
+        return pending;
+    }
+
+    boolean await(long timeout, TimeUnit unit) throws InterruptedException {
+        if (pending) {
+            return true;
+        }
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        try {
+            while (!pending) {
+                if (remaining <= 0L) {
+                    return false;
+                }
+                remaining = raised.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void await() throws InterruptedException {
+        if (pending) {
+            return;
+        }
+        lock.lock();
+        try {
+            while (!pending) {
+                raised.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+}
@@ -1,9 +1,30 @@
 package xyz.phanta.rosjay.rospkg.roscpp_tutorials;
 
+import xyz.phanta.rosjay.transport.spec.DataTypeSpecification;
+import xyz.phanta.rosjay.transport.spec.TypeSpecResolver;
+import xyz.phanta.rosjay.util.RosDataSourceFile;
 import xyz.phanta.rosjay.util.id.RosNamespace;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 public class RosCppTutorials {
 
     public static final RosNamespace NAMESPACE = RosNamespace.resolveGlobal("roscpp_tutorials");
 
+    // precomputed type specs, so the bundled types resolve without a ros install
+
+    static DataTypeSpecification.Source createTwoIntsSource() {
+        return TypeSpecResolver.registerServiceSource(new DataTypeSpecification.Source(NAMESPACE.resolveId("TwoInts"),
+                Arrays.asList("int64 a", "int64 b", "---", "int64 sum"),
+                new RosDataSourceFile(
+                        new RosDataSourceFile.FieldDecl("int64", "a"),
+                        new RosDataSourceFile.FieldDecl("int64", "b"),
+                        new RosDataSourceFile.SrvDivider(),
+                        new RosDataSourceFile.FieldDecl("int64", "sum")),
+                Collections.emptyList(),
+                "int64 a\nint64 b\n---\nint64 sum",
+                "6a2e34150c00229791cc89ff309fff21"));
+    }
+
 }
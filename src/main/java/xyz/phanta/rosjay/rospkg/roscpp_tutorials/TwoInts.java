@@ -1,12 +1,14 @@
 package xyz.phanta.rosjay.rospkg.roscpp_tutorials;
 
 import xyz.phanta.rosjay.transport.data.RosData;
+import xyz.phanta.rosjay.transport.spec.TypeSpecResolver;
 import xyz.phanta.rosjay.transport.srv.RosServiceType;
 
 public class TwoInts {
 
     public static final RosServiceType<Req, Res> TYPE
-            = RosServiceType.resolve(RosCppTutorials.NAMESPACE, "TwoInts", Req.class, Res.class);
+            = RosServiceType.resolve(RosCppTutorials.NAMESPACE, "TwoInts", Req.class, Res.class,
+            () -> TypeSpecResolver.resolveServiceSpec(RosCppTutorials.createTwoIntsSource()), null, null);
 
     private TwoInts() {
         // NO-OP
@@ -3,12 +3,14 @@ package xyz.phanta.rosjay.rospkg.rosgraph_msgs;
 import xyz.phanta.rosjay.transport.data.RosData;
 import xyz.phanta.rosjay.rospkg.std_msgs.Header;
 import xyz.phanta.rosjay.transport.msg.RosMessageType;
+import xyz.phanta.rosjay.transport.spec.TypeSpecResolver;
 
 import java.util.List;
 
 public interface Log extends RosData<Log> {
 
-    RosMessageType<Log> TYPE = RosMessageType.resolve(RosGraphMsgs.NAMESPACE, "Log", Log.class);
+    RosMessageType<Log> TYPE = RosMessageType.resolve(RosGraphMsgs.NAMESPACE, "Log", Log.class,
+            () -> TypeSpecResolver.resolveMessageSpec(RosGraphMsgs.createLogSource()), null);
     byte DEBUG = 1, INFO = 2, WARN = 4, ERROR = 8, FATAL = 16;
 
     Header getHeader();
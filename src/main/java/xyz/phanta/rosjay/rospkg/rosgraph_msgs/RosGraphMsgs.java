@@ -1,9 +1,45 @@
 package xyz.phanta.rosjay.rospkg.rosgraph_msgs;
 
+import xyz.phanta.rosjay.rospkg.std_msgs.Header;
+import xyz.phanta.rosjay.transport.spec.DataTypeSpecification;
+import xyz.phanta.rosjay.transport.spec.TypeSpecResolver;
+import xyz.phanta.rosjay.util.RosDataSourceFile;
 import xyz.phanta.rosjay.util.id.RosNamespace;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 public class RosGraphMsgs {
 
     public static final RosNamespace NAMESPACE = RosNamespace.resolveGlobal("rosgraph_msgs");
 
+    // precomputed type specs, so the bundled types resolve without a ros install
+
+    static DataTypeSpecification.Source createLogSource() {
+        return TypeSpecResolver.registerMessageSource(new DataTypeSpecification.Source(NAMESPACE.resolveId("Log"),
+                Arrays.asList("byte DEBUG=1", "byte INFO=2", "byte WARN=4", "byte ERROR=8", "byte FATAL=16",
+                        "Header header", "byte level", "string name", "string msg", "string file", "string function",
+                        "uint32 line", "string[] topics"),
+                new RosDataSourceFile(
+                        new RosDataSourceFile.ConstDecl("byte", "DEBUG", "1"),
+                        new RosDataSourceFile.ConstDecl("byte", "INFO", "2"),
+                        new RosDataSourceFile.ConstDecl("byte", "WARN", "4"),
+                        new RosDataSourceFile.ConstDecl("byte", "ERROR", "8"),
+                        new RosDataSourceFile.ConstDecl("byte", "FATAL", "16"),
+                        new RosDataSourceFile.FieldDecl("Header", "header"),
+                        new RosDataSourceFile.FieldDecl("byte", "level"),
+                        new RosDataSourceFile.FieldDecl("string", "name"),
+                        new RosDataSourceFile.FieldDecl("string", "msg"),
+                        new RosDataSourceFile.FieldDecl("string", "file"),
+                        new RosDataSourceFile.FieldDecl("string", "function"),
+                        new RosDataSourceFile.FieldDecl("uint32", "line"),
+                        new RosDataSourceFile.FieldDecl("string[]", "topics")),
+                Collections.singletonList(Header.TYPE.getDataType().getTypeSpecification().getSource()),
+                "byte DEBUG=1\nbyte INFO=2\nbyte WARN=4\nbyte ERROR=8\nbyte FATAL=16\nHeader header\nbyte level\n"
+                        + "string name\nstring msg\nstring file\nstring function\nuint32 line\nstring[] topics\n"
+                        + "================================================================================\n"
+                        + "MSG: std_msgs/Header\nuint32 seq\ntime stamp\nstring frame_id",
+                "acffd30cd6b6de30f120938c17c593fb"));
+    }
+
 }
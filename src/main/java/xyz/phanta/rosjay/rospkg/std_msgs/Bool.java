@@ -2,10 +2,12 @@ package xyz.phanta.rosjay.rospkg.std_msgs;
 
 import xyz.phanta.rosjay.transport.data.RosData;
 import xyz.phanta.rosjay.transport.msg.RosMessageType;
+import xyz.phanta.rosjay.transport.spec.TypeSpecResolver;
 
 public interface Bool extends RosData<Bool> {
 
-    RosMessageType<Bool> TYPE = RosMessageType.resolve(StdMsgs.NAMESPACE, "Bool", Bool.class);
+    RosMessageType<Bool> TYPE = RosMessageType.resolve(StdMsgs.NAMESPACE, "Bool", Bool.class,
+            () -> TypeSpecResolver.resolveMessageSpec(StdMsgs.createBoolSource()), null);
 
     boolean getData();
 
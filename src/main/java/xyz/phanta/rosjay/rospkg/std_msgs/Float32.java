@@ -2,10 +2,12 @@ package xyz.phanta.rosjay.rospkg.std_msgs;
 
 import xyz.phanta.rosjay.transport.data.RosData;
 import xyz.phanta.rosjay.transport.msg.RosMessageType;
+import xyz.phanta.rosjay.transport.spec.TypeSpecResolver;
 
 public interface Float32 extends RosData<Float32> {
 
-    RosMessageType<Float32> TYPE = RosMessageType.resolve(StdMsgs.NAMESPACE, "Float32", Float32.class);
+    RosMessageType<Float32> TYPE = RosMessageType.resolve(StdMsgs.NAMESPACE, "Float32", Float32.class,
+            () -> TypeSpecResolver.resolveMessageSpec(StdMsgs.createFloat32Source()), null);
 
     float getData();
 
@@ -1,13 +1,17 @@
 package xyz.phanta.rosjay.rospkg.std_msgs;
 
 import xyz.phanta.rosjay.transport.data.RosData;
+import xyz.phanta.rosjay.transport.data.RosPackedTime;
 import xyz.phanta.rosjay.transport.msg.RosMessageType;
+import xyz.phanta.rosjay.transport.spec.TypeSpecResolver;
 
 import java.time.Instant;
 
+@RosPackedTime // every message with a header gets stamped, so this is worth keeping cheap
 public interface Header extends RosData<Header> {
 
-    RosMessageType<Header> TYPE = RosMessageType.resolve(StdMsgs.NAMESPACE, "Header", Header.class);
+    RosMessageType<Header> TYPE = RosMessageType.resolve(StdMsgs.NAMESPACE, "Header", Header.class,
+            () -> TypeSpecResolver.resolveMessageSpec(StdMsgs.createHeaderSource()), null);
 
     int getSeq();
 
@@ -17,8 +21,8 @@ public interface Header extends RosData<Header> {
 
     void setStamp(Instant value);
 
-    RosString getFrameId();
+    String getFrameId();
 
-    void setFrameId(RosString value);
+    void setFrameId(String value);
 
 }
@@ -2,10 +2,12 @@ package xyz.phanta.rosjay.rospkg.std_msgs;
 
 import xyz.phanta.rosjay.transport.data.RosData;
 import xyz.phanta.rosjay.transport.msg.RosMessageType;
+import xyz.phanta.rosjay.transport.spec.TypeSpecResolver;
 
 public interface Int64 extends RosData<Int64> {
 
-    RosMessageType<Int64> TYPE = RosMessageType.resolve(StdMsgs.NAMESPACE, "Int64", Int64.class);
+    RosMessageType<Int64> TYPE = RosMessageType.resolve(StdMsgs.NAMESPACE, "Int64", Int64.class,
+            () -> TypeSpecResolver.resolveMessageSpec(StdMsgs.createInt64Source()), null);
 
     long getData();
 
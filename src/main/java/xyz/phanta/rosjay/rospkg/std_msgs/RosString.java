@@ -2,10 +2,12 @@ package xyz.phanta.rosjay.rospkg.std_msgs;
 
 import xyz.phanta.rosjay.transport.data.RosData;
 import xyz.phanta.rosjay.transport.msg.RosMessageType;
+import xyz.phanta.rosjay.transport.spec.TypeSpecResolver;
 
 public interface RosString extends RosData<RosString> { // disambiguates from java String type
 
-    RosMessageType<RosString> TYPE = RosMessageType.resolve(StdMsgs.NAMESPACE, "String", RosString.class);
+    RosMessageType<RosString> TYPE = RosMessageType.resolve(StdMsgs.NAMESPACE, "String", RosString.class,
+            () -> TypeSpecResolver.resolveMessageSpec(StdMsgs.createStringSource()), null);
 
     String getData();
 
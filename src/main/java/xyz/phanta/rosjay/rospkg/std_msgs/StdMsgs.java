@@ -1,9 +1,69 @@
 package xyz.phanta.rosjay.rospkg.std_msgs;
 
+import xyz.phanta.rosjay.transport.spec.DataTypeSpecification;
+import xyz.phanta.rosjay.transport.spec.TypeSpecResolver;
+import xyz.phanta.rosjay.util.RosDataSourceFile;
 import xyz.phanta.rosjay.util.id.RosNamespace;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 public class StdMsgs { // TODO more message data types
 
     public static final RosNamespace NAMESPACE = RosNamespace.resolveGlobal("std_msgs");
 
+    // precomputed type specs, so the bundled types resolve without a ros install
+
+    static DataTypeSpecification.Source createHeaderSource() {
+        return TypeSpecResolver.registerMessageSource(new DataTypeSpecification.Source(NAMESPACE.resolveId("Header"),
+                Arrays.asList("uint32 seq", "time stamp", "string frame_id"),
+                new RosDataSourceFile(
+                        new RosDataSourceFile.FieldDecl("uint32", "seq"),
+                        new RosDataSourceFile.FieldDecl("time", "stamp"),
+                        new RosDataSourceFile.FieldDecl("string", "frame_id")),
+                Collections.emptyList(),
+                "uint32 seq\ntime stamp\nstring frame_id",
+                "2176decaecbce78abc3b96ef049fabed"));
+    }
+
+    static DataTypeSpecification.Source createStringSource() {
+        return TypeSpecResolver.registerMessageSource(new DataTypeSpecification.Source(NAMESPACE.resolveId("String"),
+                Arrays.asList("string data"),
+                new RosDataSourceFile(
+                        new RosDataSourceFile.FieldDecl("string", "data")),
+                Collections.emptyList(),
+                "string data",
+                "992ce8a1687cec8c8bd883ec73ca41d1"));
+    }
+
+    static DataTypeSpecification.Source createBoolSource() {
+        return TypeSpecResolver.registerMessageSource(new DataTypeSpecification.Source(NAMESPACE.resolveId("Bool"),
+                Arrays.asList("bool data"),
+                new RosDataSourceFile(
+                        new RosDataSourceFile.FieldDecl("bool", "data")),
+                Collections.emptyList(),
+                "bool data",
+                "8b94c1b53db61fb6aed406028ad6332a"));
+    }
+
+    static DataTypeSpecification.Source createInt64Source() {
+        return TypeSpecResolver.registerMessageSource(new DataTypeSpecification.Source(NAMESPACE.resolveId("Int64"),
+                Arrays.asList("int64 data"),
+                new RosDataSourceFile(
+                        new RosDataSourceFile.FieldDecl("int64", "data")),
+                Collections.emptyList(),
+                "int64 data",
+                "34add168574510e6e17f5d23ecc077ef"));
+    }
+
+    static DataTypeSpecification.Source createFloat32Source() {
+        return TypeSpecResolver.registerMessageSource(new DataTypeSpecification.Source(NAMESPACE.resolveId("Float32"),
+                Arrays.asList("float32 data"),
+                new RosDataSourceFile(
+                        new RosDataSourceFile.FieldDecl("float32", "data")),
+                Collections.emptyList(),
+                "float32 data",
+                "73fcbf46b49191e672908e50842a83d4"));
+    }
+
 }
@@ -0,0 +1,195 @@
+package xyz.phanta.rosjay.tcpros;
+
+import xyz.phanta.rosjay.transport.msg.RosBacklogPolicy;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+
+// per-connection outbound buffer; frames are queued with their length prefix and go out together on flush
+public class TcpRosFrameWriter {
+
+    // how much of the message backlog is committed to the socket at once; the rest stays droppable
+    private static final int BACKLOG_CHUNK_BYTES = 1 << 16;
+
+    @Nullable
+    private final GatheringByteChannel channel;
+    @Nullable
+    private final OutputStream stream;
+    @Nullable
+    private final Runnable onBlocked;
+    @Nullable
+    private final Runnable onLagLimit;
+    private final List<ByteBuffer> pending = new ArrayList<>();
+    private int pendingBytes = 0;
+    private byte[] coalesceBuffer = new byte[0];
+
+    // publication messages that haven't been handed to the socket yet
+    private final Deque<byte[]> backlog = new ArrayDeque<>();
+    @Nullable
+    private RosBacklogPolicy backlogPolicy = null;
+    private long droppedFrames = 0L;
+    private long blockedSince = -1L;
+    private boolean lagLimitHit = false;
+
+    // onBlocked is run when the socket buffer fills, and the rest is kept for the next flush
+    public TcpRosFrameWriter(GatheringByteChannel channel, Runnable onBlocked) {
+        this(channel, onBlocked, null);
+    }
+
+    // onLagLimit is run when the backlog policy's lag limit is exceeded
+    public TcpRosFrameWriter(GatheringByteChannel channel, Runnable onBlocked, @Nullable Runnable onLagLimit) {
+        this.channel = channel;
+        this.stream = null;
+        this.onBlocked = Objects.requireNonNull(onBlocked);
+        this.onLagLimit = onLagLimit;
+    }
+
+    public TcpRosFrameWriter(OutputStream stream) {
+        this.channel = null;
+        this.stream = stream;
+        this.onBlocked = null;
+        this.onLagLimit = null;
+    }
+
+    public synchronized void setBacklogPolicy(@Nullable RosBacklogPolicy backlogPolicy) {
+        this.backlogPolicy = backlogPolicy;
+        if (backlogPolicy != null) {
+            while (backlog.size() > backlogPolicy.getMaxFrames()) {
+                backlog.pollFirst();
+                ++droppedFrames;
+            }
+        }
+    }
+
+    public synchronized long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    // a frame that may be dropped, according to the backlog policy, if the connection can't keep up
+    public synchronized void queueMessage(byte[] body) {
+        if (backlogPolicy != null && backlog.size() >= backlogPolicy.getMaxFrames()) {
+            ++droppedFrames;
+            if (backlogPolicy.getOverflow() == RosBacklogPolicy.Overflow.DROP_NEWEST) {
+                return;
+            }
+            backlog.pollFirst();
+        }
+        backlog.addLast(body);
+    }
+
+    public synchronized void queueFrame(byte[] body) {
+        ByteBuffer prefix = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+        prefix.putInt(body.length).flip();
+        enqueue(prefix);
+        enqueue(ByteBuffer.wrap(body));
+    }
+
+    // service responses carry a status byte ahead of the length-prefixed body
+    public synchronized void queueStatusFrame(boolean ok, byte[] body) {
+        ByteBuffer prefix = ByteBuffer.allocate(5).order(ByteOrder.LITTLE_ENDIAN);
+        prefix.put((byte)(ok ? 1 : 0)).putInt(body.length).flip();
+        enqueue(prefix);
+        enqueue(ByteBuffer.wrap(body));
+    }
+
+    // for data that already carries its own framing, like connection headers
+    public synchronized void queueRaw(byte[] data) {
+        enqueue(ByteBuffer.wrap(data));
+    }
+
+    private void enqueue(ByteBuffer buf) {
+        pending.add(buf);
+        pendingBytes += buf.remaining();
+    }
+
+    public synchronized boolean hasPending() {
+        return !pending.isEmpty() || !backlog.isEmpty();
+    }
+
+    public void writeFrame(byte[] body) throws IOException {
+        queueFrame(body);
+        flush();
+    }
+
+    // the lag limit callback runs outside the monitor, since it may close the connection and take other locks
+    public void flush() throws IOException {
+        if (flushPending() && onLagLimit != null) {
+            onLagLimit.run();
+        }
+    }
+
+    // true the first time the lag limit is exceeded; it's only ever reported once per writer
+    private synchronized boolean flushPending() throws IOException {
+        while (writePending()) {
+            if (backlog.isEmpty()) {
+                blockedSince = -1L;
+                return false;
+            }
+            int chunkBytes = 0;
+            byte[] body;
+            while (chunkBytes < BACKLOG_CHUNK_BYTES && (body = backlog.pollFirst()) != null) {
+                queueFrame(body);
+                chunkBytes += body.length + 4;
+            }
+        }
+        long now = System.nanoTime();
+        if (blockedSince == -1L) {
+            blockedSince = now;
+        } else if (!lagLimitHit && backlogPolicy != null && backlogPolicy.getLagLimitNanos() > 0L
+                && now - blockedSince > backlogPolicy.getLagLimitNanos()) {
+            lagLimitHit = true;
+            return true;
+        }
+        return false;
+    }
+
+    // false if the socket filled up before everything was written
+    private boolean writePending() throws IOException {
+        if (pending.isEmpty()) {
+            return true;
+        }
+        if (channel != null) {
+            ByteBuffer[] bufs = pending.toArray(new ByteBuffer[0]);
+            while (pendingBytes > 0) {
+                long written = channel.write(bufs);
+                pendingBytes -= written;
+                if (written == 0) {
+                    pending.removeIf(buf -> !buf.hasRemaining());
+                    //noinspection ConstantConditions
+                    onBlocked.run();
+                    return false;
+                }
+            }
+            pending.clear();
+        } else {
+            try {
+                if (coalesceBuffer.length < pendingBytes) {
+                    coalesceBuffer = new byte[Math.max(pendingBytes, coalesceBuffer.length * 2)];
+                }
+                int offset = 0;
+                for (ByteBuffer buf : pending) {
+                    int length = buf.remaining();
+                    buf.get(coalesceBuffer, offset, length);
+                    offset += length;
+                }
+                //noinspection ConstantConditions
+                stream.write(coalesceBuffer, 0, offset);
+                stream.flush();
+            } finally {
+                pending.clear();
+                pendingBytes = 0;
+            }
+        }
+        return true;
+    }
+
+}
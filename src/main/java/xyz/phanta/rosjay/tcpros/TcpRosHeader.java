@@ -3,6 +3,7 @@ package xyz.phanta.rosjay.tcpros;
 import xyz.phanta.rosjay.util.lowdata.ByteChunkArray;
 import xyz.phanta.rosjay.util.lowdata.LEDataOutputStream;
 
+import java.io.ByteArrayOutputStream;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -40,14 +41,30 @@ public class TcpRosHeader {
         }
     }
 
+    public byte[] toByteArray() {
+        ByteArrayOutputStream buf = new ByteArrayOutputStream();
+        try {
+            write(new LEDataOutputStream(buf));
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to serialize TCPROS header!", e);
+        }
+        return buf.toByteArray();
+    }
+
     public void writeQuietly(OutputStream dest) {
         try {
-            write(new LEDataOutputStream(dest));
+            dest.write(toByteArray()); // single write, rather than one per field
+            dest.flush();
         } catch (IOException e) {
             throw new IllegalStateException("Failed to write TCPROS header!", e);
         }
     }
 
+    // queues the header without flushing, for connections driven by an event loop
+    public void writeTo(TcpRosFrameWriter dest) {
+        dest.queueRaw(toByteArray());
+    }
+
     private static ByteChunkArray writeField(String name, String value) {
         return new ByteChunkArray(
                 name.getBytes(StandardCharsets.US_ASCII), BYTE_ARR_EQUALS, value.getBytes(StandardCharsets.US_ASCII));
@@ -1,10 +1,8 @@
 package xyz.phanta.rosjay.tcpros.client;
 
 import xyz.phanta.rosjay.node.NodeTransportManager;
-import xyz.phanta.rosjay.tcpros.stator.ExpectDeserializerChain;
+import xyz.phanta.rosjay.tcpros.stator.ExpectDecodedData;
 import xyz.phanta.rosjay.tcpros.stator.TcpStateMachine;
-import xyz.phanta.rosjay.transport.srv.RosServiceType;
-import xyz.phanta.rosjay.util.id.RosId;
 
 import javax.annotation.Nullable;
 import java.nio.ByteBuffer;
@@ -12,13 +10,11 @@ import java.nio.ByteBuffer;
 class ExpectServiceOkayByte implements TcpStateMachine.State {
 
     private final NodeTransportManager transMan;
-    private final RosId serviceId;
-    private final RosServiceType<?, ?> srvType;
+    private final TcpRosTarget.Service<?, ?> target;
 
-    ExpectServiceOkayByte(NodeTransportManager transMan, RosId serviceId, RosServiceType<?, ?> srvType) {
+    ExpectServiceOkayByte(NodeTransportManager transMan, TcpRosTarget.Service<?, ?> target) {
         this.transMan = transMan;
-        this.serviceId = serviceId;
-        this.srvType = srvType;
+        this.target = target;
     }
 
     @Override
@@ -29,9 +25,13 @@ class ExpectServiceOkayByte implements TcpStateMachine.State {
     @Nullable
     @Override
     public TcpStateMachine.State consume(ByteBuffer buf) {
-        return buf.get() != 1 ? ExpectErrorString.expect(err -> transMan.notifyServiceConnectionKilled(serviceId, err))
-                : ExpectDeserializerChain.expect(srvType.getResponseType(),
-                res -> transMan.notifyReceivedServiceResponse(serviceId, res));
+        return buf.get() != 1 ? ExpectErrorString.expect(err -> {
+            target.markCompleted();
+            transMan.notifyServiceConnectionKilled(target.getId(), err);
+        }) : ExpectDecodedData.expectOnce(target.getServiceType().getResponseType(), res -> {
+            target.markCompleted();
+            transMan.notifyReceivedServiceResponse(target.getId(), res);
+        });
     }
 
 }
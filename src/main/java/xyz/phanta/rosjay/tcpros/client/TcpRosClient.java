@@ -2,8 +2,11 @@ package xyz.phanta.rosjay.tcpros.client;
 
 import org.slf4j.Logger;
 import xyz.phanta.rosjay.node.RosNode;
+import xyz.phanta.rosjay.tcpros.TcpRosFrameWriter;
 import xyz.phanta.rosjay.tcpros.TcpRosHeader;
-import xyz.phanta.rosjay.tcpros.stator.ExpectDeserializerChain;
+import xyz.phanta.rosjay.tcpros.loop.TcpRosChannelHandler;
+import xyz.phanta.rosjay.tcpros.loop.TcpRosEventLoop;
+import xyz.phanta.rosjay.tcpros.stator.ExpectFrame;
 import xyz.phanta.rosjay.tcpros.stator.ExpectHeaderDatagram;
 import xyz.phanta.rosjay.tcpros.stator.TcpStateMachine;
 import xyz.phanta.rosjay.transport.msg.RosMessageType;
@@ -11,18 +14,17 @@ import xyz.phanta.rosjay.transport.spec.DataTypeSpecification;
 import xyz.phanta.rosjay.transport.srv.RosServiceType;
 import xyz.phanta.rosjay.util.RosUtils;
 import xyz.phanta.rosjay.util.id.RosId;
-import xyz.phanta.rosjay.util.lowdata.LEDataOutputStream;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
-import java.net.Socket;
 import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
 import java.util.Map;
-import java.util.concurrent.atomic.AtomicBoolean;
 
-public class TcpRosClient {
+// one outgoing connection, multiplexed onto a shared event loop along with every other client and server connection
+public class TcpRosClient implements TcpRosChannelHandler {
 
     private final TcpRosClientManager manager;
     private final RosNode rosNode;
@@ -31,7 +33,18 @@ public class TcpRosClient {
     private final Logger internalLogger;
 
     @Nullable
-    private ClientInstance instance;
+    private SocketChannel channel;
+    @Nullable
+    private TcpRosEventLoop loop;
+    @Nullable
+    private SelectionKey key;
+    @Nullable
+    private TcpRosFrameWriter toServer;
+    private final TcpStateMachine stator;
+    private boolean closeWhenFlushed = false;
+
+    @Nullable
+    private RosId remoteId;
 
     public TcpRosClient(TcpRosClientManager manager, SocketAddress address, TcpRosTarget target) {
         this.manager = manager;
@@ -39,6 +52,7 @@ public class TcpRosClient {
         this.address = address;
         this.target = target;
         this.internalLogger = rosNode.getChildInternalLogger("tcpros_client");
+        this.stator = new TcpStateMachine(ExpectHeaderDatagram.expectHeader(this::processHeader));
     }
 
     SocketAddress getAddress() {
@@ -46,137 +60,134 @@ public class TcpRosClient {
     }
 
     public void connect() throws IOException {
-        if (instance != null) {
+        if (channel != null) {
             throw new IllegalStateException("Client is already running!");
         }
 
         internalLogger.trace("Establishing socket connection to {}...", address);
-        Socket socket = new Socket();
-        socket.connect(address);
+        SocketChannel socketChannel = SocketChannel.open();
+        socketChannel.configureBlocking(false);
+        boolean connected = socketChannel.connect(address);
+        channel = socketChannel;
+        toServer = new TcpRosFrameWriter(socketChannel, this::onWriteBlocked);
+        loop = manager.getEventLoops().next();
+        loop.register(socketChannel, connected ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT, this);
+    }
 
-        internalLogger.trace("Starting socket monitoring thread...");
-        instance = new ClientInstance(socket);
-        instance.start();
+    @Override
+    public void onRegistered(SelectionKey key) throws IOException {
+        this.key = key;
+        if ((key.interestOps() & SelectionKey.OP_CONNECT) == 0) {
+            sendHeader();
+        }
     }
 
-    public void kill() throws IOException {
-        if (instance == null) {
-            throw new IllegalStateException("Client is not running!");
+    @SuppressWarnings("ConstantConditions")
+    @Override
+    public void onReady(SelectionKey key) throws IOException {
+        if (key.isConnectable() && channel.finishConnect()) {
+            key.interestOps(SelectionKey.OP_READ);
+            sendHeader();
         }
-        instance.kill();
-        try {
-            internalLogger.debug("Waiting for client monitor thread to terminate...");
-            instance.join();
-        } catch (InterruptedException e) {
-            internalLogger.error("Interrupted while waiting for TCPROS client to clean up!", e);
+        if (key.isReadable() && !stator.accept(channel)) {
+            closeWhenFlushed = true; // nothing more to read; hang up once anything queued has gone out
+        }
+        toServer.flush();
+        if (!toServer.hasPending()) {
+            if (closeWhenFlushed) {
+                loop.close(key);
+            } else if ((key.interestOps() & SelectionKey.OP_WRITE) != 0) {
+                key.interestOps(SelectionKey.OP_READ);
+            }
         }
-        instance = null;
     }
 
-    private class ClientInstance extends Thread {
-
-        private final Socket socket;
-        private final AtomicBoolean active = new AtomicBoolean(true);
-
-        @Nullable
-        private RosId remoteId;
+    private void sendHeader() throws IOException {
+        internalLogger.trace("Writing connection header...");
+        TcpRosHeader header = new TcpRosHeader();
+        header.putField("callerid", rosNode.getId().toString());
+        target.populateHeader(header);
+        //noinspection ConstantConditions
+        header.writeTo(toServer);
+        toServer.flush();
+    }
 
-        ClientInstance(Socket socket) {
-            super("TCPROS Client: " + socket.getInetAddress());
-            this.socket = socket;
+    private void onWriteBlocked() {
+        if (key != null && loop != null) {
+            loop.setInterest(key, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
         }
+    }
 
-        @Override
-        public void run() {
-            internalLogger.trace("Client monitor thread for {} initialized.", socket.getInetAddress());
-            try (
-                    OutputStream toServer = socket.getOutputStream();
-                    InputStream fromServer = socket.getInputStream()
-            ) {
-                internalLogger.trace("Writing connection header...");
-                TcpRosHeader header = new TcpRosHeader();
-                header.putField("callerid", rosNode.getId().toString());
-                target.populateHeader(header);
-                header.writeQuietly(toServer);
-
-                internalLogger.trace("Beginning monitoring loop...");
-                TcpStateMachine stator = new TcpStateMachine(ExpectHeaderDatagram.expectHeader(
-                        fields -> processHeader(fields, toServer)));
-                //noinspection StatementWithEmptyBody
-                while (active.get() && stator.accept(fromServer)) ;
-            } catch (Exception e) {
-                if (rosNode.isAlive()) {
-                    internalLogger.warn("TCPROS client encountered exception!", e);
-                }
-            }
-
-            internalLogger.trace("Cleaning up TCPROS client {}...", socket.getInetAddress());
-            try {
-                socket.close();
-            } catch (IOException e) {
-                internalLogger.warn("Encountered exception while closing socket!", e);
-            }
-            target.onConnectionClosed(rosNode);
-            if (remoteId != null) {
-                rosNode.getTransportManager().getBusStateTracker().closeIncoming(remoteId, target.getId());
+    @Nullable
+    private TcpStateMachine.State processHeader(Map<String, String> fields) {
+        //noinspection ConstantConditions
+        TcpRosFrameWriter toServer = this.toServer;
+        try {
+            if (fields.containsKey("error")) {
+                throw new IllegalStateException("Server rejected connection: " + fields.get("error"));
             }
-            manager.notifyClientKilled(TcpRosClient.this);
-        }
-
-        @Nullable
-        private TcpStateMachine.State processHeader(Map<String, String> fields, OutputStream toServer) {
-            try {
-                remoteId = RosId.resolveGlobal(fields.get("callerid"));
-                if (target instanceof TcpRosTarget.Topic) {
-                    RosMessageType<?> msgType = ((TcpRosTarget.Topic)target).getMessageType();
-                    DataTypeSpecification.Source msgSrc = msgType.getDataType().getTypeSpecification().getSource();
-                    if (!msgSrc.getMd5Sum().equals(fields.get("md5sum"))) {
-                        throw new IllegalStateException("MD5 checksum mismatch!");
+            remoteId = RosId.resolveGlobal(fields.get("callerid"));
+            if (target instanceof TcpRosTarget.Topic) {
+                RosMessageType<?> msgType = ((TcpRosTarget.Topic)target).getMessageType();
+                DataTypeSpecification.Source msgSrc = msgType.getDataType().getTypeSpecification().getSource();
+                if (!msgSrc.getMd5Sum().equals(fields.get("md5sum"))) {
+                    throw new IllegalStateException("MD5 checksum mismatch!");
+                }
+                rosNode.getTransportManager().getBusStateTracker().openIncoming(remoteId, target.getId());
+                internalLogger.debug("Negotiated topic connection with {} for {}.", remoteId, target);
+                return ExpectFrame.expect(new ExpectFrame.FrameHandler() {
+                    @Override
+                    public boolean retainsFrames() {
+                        return rosNode.getTransportManager().retainsFrames(target.getId());
                     }
-                    rosNode.getTransportManager().getBusStateTracker().openIncoming(remoteId, target.getId());
-                    internalLogger.debug("Negotiated topic connection with {} for {}.", remoteId, target);
-                    return ExpectDeserializerChain.expect(msgType.getDataType(),
-                            msg -> rosNode.getTransportManager().notifyReceivedMessage(target.getId(), msg));
-                } else if (target instanceof TcpRosTarget.Service) {
-                    // TODO persistent service client support
-                    RosServiceType<?, ?> srvType = ((TcpRosTarget.Service)target).getServiceType();
-                    DataTypeSpecification.Source srvSrc = srvType.getRequestType().getTypeSpecification().getSource();
-                    if (!srvSrc.getMd5Sum().equals(fields.get("md5sum"))) {
-                        throw new IllegalStateException("MD5 checksum mismatch!");
+
+                    @Override
+                    public void accept(ByteBuffer frame, boolean retained) {
+                        rosNode.getTransportManager().notifyReceivedFrame(target.getId(), frame, retained);
                     }
-                    internalLogger.debug("Negotiated service connection with {} for {}.", remoteId, target);
-                    rosNode.getTransportManager().getBusStateTracker().openIncoming(remoteId, target.getId());
-                    byte[] reqData = RosUtils.serializeDataPacket(((TcpRosTarget.Service)target).getRequestData(), 0);
-                    LEDataOutputStream dataOutput = new LEDataOutputStream(toServer);
-                    dataOutput.writeInt(reqData.length);
-                    dataOutput.write(reqData);
-                    return new ExpectServiceOkayByte(rosNode.getTransportManager(), target.getId(), srvType);
+                });
+            } else if (target instanceof TcpRosTarget.Service) {
+                // TODO persistent service client support
+                TcpRosTarget.Service<?, ?> srvTarget = (TcpRosTarget.Service<?, ?>)target;
+                RosServiceType<?, ?> srvType = srvTarget.getServiceType();
+                DataTypeSpecification.Source srvSrc = srvType.getRequestType().getTypeSpecification().getSource();
+                if (!srvSrc.getMd5Sum().equals(fields.get("md5sum"))) {
+                    throw new IllegalStateException("MD5 checksum mismatch!");
                 }
-            } catch (Exception e) {
-                TcpRosHeader header = new TcpRosHeader();
-                header.putField("error", e.toString());
-                header.writeQuietly(toServer);
-                markShouldDie();
+                internalLogger.debug("Negotiated service connection with {} for {}.", remoteId, target);
+                rosNode.getTransportManager().getBusStateTracker().openIncoming(remoteId, target.getId());
+                toServer.queueFrame(RosUtils.serializeDataPacket(srvTarget.getRequestData(), 0));
+                return new ExpectServiceOkayByte(rosNode.getTransportManager(), srvTarget);
             }
-            return null;
+        } catch (Exception e) {
+            internalLogger.warn("TCPROS client connection to {} failed!", address, e);
+            TcpRosHeader header = new TcpRosHeader();
+            header.putField("error", e.toString());
+            header.writeTo(toServer);
+            closeWhenFlushed = true;
         }
+        return null;
+    }
 
-        private void markShouldDie() {
-            active.set(false);
+    @Override
+    public void onClosed() {
+        internalLogger.trace("Cleaning up TCPROS client {}...", address);
+        target.onConnectionClosed(rosNode);
+        if (remoteId != null) {
+            rosNode.getTransportManager().getBusStateTracker().closeIncoming(remoteId, target.getId());
         }
+        manager.notifyClientKilled(this);
+    }
 
-        void kill() throws IOException {
-            internalLogger.trace("Closing socket...");
-            socket.close();
-
-            try {
-                internalLogger.debug("Waiting for monitoring thread to terminate...");
-                join();
-            } catch (InterruptedException e) {
-                internalLogger.error("Interrupted while waiting for TCPROS client to clean up!", e);
-            }
+    public void kill() throws IOException {
+        if (channel == null) {
+            throw new IllegalStateException("Client is not running!");
+        }
+        if (key != null && loop != null) {
+            loop.close(key);
+        } else { // not registered yet; the registration will fail and clean up
+            channel.close();
         }
-
     }
 
 }
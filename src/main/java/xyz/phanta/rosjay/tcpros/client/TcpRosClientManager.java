@@ -2,6 +2,7 @@ package xyz.phanta.rosjay.tcpros.client;
 
 import org.slf4j.Logger;
 import xyz.phanta.rosjay.node.RosNode;
+import xyz.phanta.rosjay.tcpros.loop.TcpRosEventLoopGroup;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
@@ -13,19 +14,25 @@ public class TcpRosClientManager {
 
     private final RosNode rosNode;
     private final Logger internalLog;
+    private final TcpRosEventLoopGroup eventLoops;
     private final Map<SocketAddress, TcpRosClient> clients = new HashMap<>();
 
     private boolean alive = true;
 
-    public TcpRosClientManager(RosNode rosNode) {
+    public TcpRosClientManager(RosNode rosNode, TcpRosEventLoopGroup eventLoops) {
         this.rosNode = rosNode;
         this.internalLog = rosNode.getChildInternalLogger("tcpros_climan");
+        this.eventLoops = eventLoops;
     }
 
     RosNode getRosNode() {
         return rosNode;
     }
 
+    TcpRosEventLoopGroup getEventLoops() {
+        return eventLoops;
+    }
+
     public void openConnection(SocketAddress address, TcpRosTarget target) throws IOException {
         TcpRosClient client = new TcpRosClient(this, address, target);
         client.connect();
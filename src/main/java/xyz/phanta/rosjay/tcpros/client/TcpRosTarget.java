@@ -59,6 +59,7 @@ public abstract class TcpRosTarget {
 
         private final RosServiceType<REQ, RES> srvType;
         private final REQ reqData;
+        private volatile boolean completed = false;
 
         public Service(RosId targetId, RosServiceType<REQ, RES> srvType, REQ reqData) {
             super(targetId);
@@ -81,9 +82,16 @@ public abstract class TcpRosTarget {
             header.putField("md5sum", srvType.getRequestType().getTypeSpecification().getSource().getMd5Sum());
         }
 
+        // once a response or error has been delivered, the server hanging up is expected
+        void markCompleted() {
+            completed = true;
+        }
+
         @Override
         public void onConnectionClosed(RosNode node) {
-            node.getTransportManager().notifyServiceConnectionKilled(getId(), "Connection closed!");
+            if (!completed) {
+                node.getTransportManager().notifyServiceConnectionKilled(getId(), "Connection closed!");
+            }
         }
 
         @Override
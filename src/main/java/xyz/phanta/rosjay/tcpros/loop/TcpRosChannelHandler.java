@@ -0,0 +1,18 @@
+package xyz.phanta.rosjay.tcpros.loop;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+
+public interface TcpRosChannelHandler {
+
+    // called on the loop thread once the channel is registered with the selector
+    default void onRegistered(SelectionKey key) throws IOException {
+        // NO-OP
+    }
+
+    void onReady(SelectionKey key) throws IOException;
+
+    // called on the loop thread after the channel's key is cancelled, whether due to an error or a shutdown
+    void onClosed();
+
+}
@@ -0,0 +1,157 @@
+package xyz.phanta.rosjay.tcpros.loop;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.channels.CancelledKeyException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
+
+// a single selector thread driving any number of non-blocking channels
+public class TcpRosEventLoop {
+
+    private final Logger internalLogger;
+    private final Selector selector;
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+    private final Thread thread;
+    private volatile boolean alive = true;
+
+    TcpRosEventLoop(ThreadFactory threadFactory, Logger internalLogger) throws IOException {
+        this.internalLogger = internalLogger;
+        this.selector = Selector.open();
+        this.thread = threadFactory.newThread(this::run);
+        this.thread.start();
+    }
+
+    public boolean isInLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    public void execute(Runnable task) {
+        if (!alive) {
+            throw new IllegalStateException("Event loop is terminated!");
+        }
+        tasks.add(task);
+        selector.wakeup();
+    }
+
+    public void register(SelectableChannel channel, int interestOps, TcpRosChannelHandler handler) {
+        execute(() -> {
+            try {
+                channel.configureBlocking(false);
+                handler.onRegistered(channel.register(selector, interestOps, handler));
+            } catch (Exception e) {
+                internalLogger.warn("Failed to register channel with event loop!", e);
+                closeQuietly(channel);
+                handler.onClosed();
+            }
+        });
+    }
+
+    // safe to call from any thread
+    public void setInterest(SelectionKey key, int interestOps) {
+        if (isInLoop()) {
+            updateInterest(key, interestOps);
+        } else {
+            execute(() -> updateInterest(key, interestOps));
+        }
+    }
+
+    private static void updateInterest(SelectionKey key, int interestOps) {
+        if (key.isValid()) {
+            key.interestOps(interestOps);
+        }
+    }
+
+    public void close(SelectionKey key) {
+        if (isInLoop()) {
+            closeKey(key);
+        } else {
+            execute(() -> closeKey(key));
+        }
+    }
+
+    private void run() {
+        while (alive) {
+            try {
+                selector.select();
+                runTasks();
+                Iterator<SelectionKey> iter = selector.selectedKeys().iterator();
+                while (iter.hasNext()) {
+                    SelectionKey key = iter.next();
+                    iter.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    try {
+                        ((TcpRosChannelHandler)key.attachment()).onReady(key);
+                    } catch (CancelledKeyException e) {
+                        closeKey(key);
+                    } catch (Exception e) {
+                        internalLogger.debug("Closing channel after handler exception!", e);
+                        closeKey(key);
+                    }
+                }
+            } catch (Exception e) {
+                if (alive) {
+                    internalLogger.warn("TCPROS event loop encountered exception!", e);
+                }
+            }
+        }
+        runTasks();
+        for (SelectionKey key : selector.keys()) {
+            closeKey(key);
+        }
+        try {
+            selector.close();
+        } catch (IOException e) {
+            internalLogger.warn("Encountered exception while closing selector!", e);
+        }
+    }
+
+    private void runTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception e) {
+                internalLogger.warn("Event loop task failed!", e);
+            }
+        }
+    }
+
+    private void closeKey(SelectionKey key) {
+        boolean wasOpen = key.channel().isOpen();
+        key.cancel();
+        closeQuietly(key.channel());
+        if (wasOpen) {
+            ((TcpRosChannelHandler)key.attachment()).onClosed();
+        }
+    }
+
+    private void closeQuietly(SelectableChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            internalLogger.warn("Encountered exception while closing channel!", e);
+        }
+    }
+
+    void shutdown() {
+        alive = false;
+        selector.wakeup();
+        if (!isInLoop()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                internalLogger.warn("Interrupted while waiting for event loop to terminate!", e);
+            }
+        }
+    }
+
+}
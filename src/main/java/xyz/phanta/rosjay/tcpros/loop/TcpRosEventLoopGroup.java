@@ -0,0 +1,59 @@
+package xyz.phanta.rosjay.tcpros.loop;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// fixed set of event loops; channels are spread over them round-robin
+public class TcpRosEventLoopGroup {
+
+    public static int getDefaultLoopCount() {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    private final ThreadFactory threadFactory;
+    private final Logger internalLogger;
+    private final int loopCount;
+    private final AtomicInteger nextLoop = new AtomicInteger(0);
+    private TcpRosEventLoop[] loops = new TcpRosEventLoop[0];
+
+    public TcpRosEventLoopGroup(ThreadFactory threadFactory, int loopCount, Logger internalLogger) {
+        if (loopCount < 1) {
+            throw new IllegalArgumentException("Need at least one event loop!");
+        }
+        this.threadFactory = threadFactory;
+        this.loopCount = loopCount;
+        this.internalLogger = internalLogger;
+    }
+
+    // loops are started on first use, so nodes that never open a connection don't spawn any threads
+    public synchronized TcpRosEventLoop next() {
+        if (loops.length == 0) {
+            TcpRosEventLoop[] started = new TcpRosEventLoop[loopCount];
+            try {
+                for (int i = 0; i < loopCount; i++) {
+                    started[i] = new TcpRosEventLoop(threadFactory, internalLogger);
+                }
+            } catch (IOException e) {
+                for (TcpRosEventLoop loop : started) {
+                    if (loop != null) {
+                        loop.shutdown();
+                    }
+                }
+                throw new IllegalStateException("Failed to start TCPROS event loops!", e);
+            }
+            loops = started;
+        }
+        return loops[Math.floorMod(nextLoop.getAndIncrement(), loops.length)];
+    }
+
+    public synchronized void shutdown() {
+        for (TcpRosEventLoop loop : loops) {
+            loop.shutdown();
+        }
+        loops = new TcpRosEventLoop[0];
+    }
+
+}
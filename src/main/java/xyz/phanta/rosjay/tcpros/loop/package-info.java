@@ -0,0 +1,4 @@
+@NothingNull
+package xyz.phanta.rosjay.tcpros.loop;
+
+import xyz.phanta.jsr305.NothingNull;
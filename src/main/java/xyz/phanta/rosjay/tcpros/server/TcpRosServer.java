@@ -2,22 +2,34 @@ package xyz.phanta.rosjay.tcpros.server;
 
 import org.slf4j.Logger;
 import xyz.phanta.rosjay.node.RosNode;
+import xyz.phanta.rosjay.tcpros.loop.TcpRosChannelHandler;
+import xyz.phanta.rosjay.tcpros.loop.TcpRosEventLoop;
+import xyz.phanta.rosjay.tcpros.loop.TcpRosEventLoopGroup;
 
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.net.ServerSocket;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 public class TcpRosServer {
 
     private final RosNode rosNode;
     private final Logger internalLogger;
+    private final TcpRosEventLoopGroup eventLoops;
 
     @Nullable
     private ServerInstance instance;
 
-    public TcpRosServer(RosNode rosNode) {
+    public TcpRosServer(RosNode rosNode, TcpRosEventLoopGroup eventLoops) {
         this.rosNode = rosNode;
         this.internalLogger = rosNode.getChildInternalLogger("tcpros_server");
+        this.eventLoops = eventLoops;
     }
 
     public void serve(int port) throws IOException {
@@ -26,12 +38,13 @@ public class TcpRosServer {
         }
 
         internalLogger.trace("Opening server socket...");
-        ServerSocket socket = new ServerSocket(port);
+        ServerSocketChannel socket = ServerSocketChannel.open();
+        socket.bind(new InetSocketAddress(port));
 
-        internalLogger.trace("Starting server thread...");
-        TcpRosServerThread serverThread = new TcpRosServerThread(rosNode, socket, internalLogger);
-        serverThread.start();
-        instance = new ServerInstance(socket, serverThread);
+        internalLogger.trace("Registering server socket with event loop...");
+        ServerInstance serverInstance = new ServerInstance(socket);
+        eventLoops.next().register(socket, SelectionKey.OP_ACCEPT, serverInstance);
+        instance = serverInstance;
     }
 
     public int getActivePort() {
@@ -49,29 +62,56 @@ public class TcpRosServer {
         instance = null;
     }
 
-    private class ServerInstance {
+    private class ServerInstance implements TcpRosChannelHandler {
 
-        private final ServerSocket socket;
-        private final TcpRosServerThread serverThread;
+        private final ServerSocketChannel socket;
+        private final Set<TcpRosServerConnection> connections = new HashSet<>();
 
-        ServerInstance(ServerSocket socket, TcpRosServerThread serverThread) {
+        ServerInstance(ServerSocketChannel socket) {
             this.socket = socket;
-            this.serverThread = serverThread;
         }
 
         int getPort() {
-            return socket.getLocalPort();
+            return socket.socket().getLocalPort();
+        }
+
+        @Override
+        public void onReady(SelectionKey key) throws IOException {
+            SocketChannel clientChannel;
+            while ((clientChannel = socket.accept()) != null) {
+                internalLogger.debug("Connection received from {}.", clientChannel.socket().getInetAddress());
+                TcpRosEventLoop loop = eventLoops.next();
+                TcpRosServerConnection connection = new TcpRosServerConnection(
+                        rosNode, internalLogger, clientChannel, loop, this::notifyConnectionClosed);
+                synchronized (connections) {
+                    connections.add(connection);
+                }
+                loop.register(clientChannel, SelectionKey.OP_READ, connection);
+            }
+        }
+
+        private void notifyConnectionClosed(TcpRosServerConnection connection) {
+            synchronized (connections) {
+                connections.remove(connection);
+            }
+        }
+
+        @Override
+        public void onClosed() {
+            internalLogger.trace("Server socket closed.");
         }
 
         void kill() throws IOException {
             internalLogger.trace("Closing server socket...");
             socket.close();
 
-            try {
-                internalLogger.debug("Waiting for server thread to terminate...");
-                serverThread.join();
-            } catch (InterruptedException e) {
-                internalLogger.error("Interrupted while waiting for TCPROS server to clean up!", e);
+            internalLogger.trace("Closing client connections...");
+            List<TcpRosServerConnection> toClose;
+            synchronized (connections) {
+                toClose = new ArrayList<>(connections);
+            }
+            for (TcpRosServerConnection connection : toClose) {
+                connection.close();
             }
         }
 
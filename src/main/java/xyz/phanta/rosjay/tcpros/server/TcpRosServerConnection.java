@@ -0,0 +1,209 @@
+package xyz.phanta.rosjay.tcpros.server;
+
+import org.slf4j.Logger;
+import xyz.phanta.rosjay.node.RosNode;
+import xyz.phanta.rosjay.tcpros.TcpRosFrameWriter;
+import xyz.phanta.rosjay.tcpros.TcpRosHeader;
+import xyz.phanta.rosjay.tcpros.loop.TcpRosChannelHandler;
+import xyz.phanta.rosjay.tcpros.loop.TcpRosEventLoop;
+import xyz.phanta.rosjay.tcpros.stator.ExpectDecodedData;
+import xyz.phanta.rosjay.tcpros.stator.ExpectHeaderDatagram;
+import xyz.phanta.rosjay.tcpros.stator.TcpStateMachine;
+import xyz.phanta.rosjay.transport.msg.RosMessageType;
+import xyz.phanta.rosjay.transport.spec.DataTypeSpecification;
+import xyz.phanta.rosjay.transport.srv.RosServiceType;
+import xyz.phanta.rosjay.util.id.RosId;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+// one accepted subscriber or service caller, driven entirely by its event loop
+class TcpRosServerConnection implements TcpRosChannelHandler {
+
+    private final RosNode rosNode;
+    private final Logger internalLogger;
+    private final SocketChannel channel;
+    private final TcpRosEventLoop loop;
+    private final Consumer<TcpRosServerConnection> closeCallback;
+    private final TcpStateMachine stator;
+    private final TcpRosFrameWriter toClient;
+
+    @Nullable
+    private SelectionKey key;
+    @Nullable
+    private ByteBuffer idleBuffer;
+    private boolean closeWhenFlushed = false;
+
+    @Nullable
+    private RosId remoteId;
+    @Nullable
+    private RosId targetId;
+
+    TcpRosServerConnection(RosNode rosNode, Logger internalLogger, SocketChannel channel, TcpRosEventLoop loop,
+                           Consumer<TcpRosServerConnection> closeCallback) {
+        this.rosNode = rosNode;
+        this.internalLogger = internalLogger;
+        this.channel = channel;
+        this.loop = loop;
+        this.closeCallback = closeCallback;
+        this.stator = new TcpStateMachine(ExpectHeaderDatagram.expectHeader(this::processHeader));
+        this.toClient = new TcpRosFrameWriter(channel, this::onWriteBlocked, this::onLagLimit);
+    }
+
+    @Override
+    public void onRegistered(SelectionKey key) {
+        this.key = key;
+        internalLogger.trace("Waiting for connection header from {}...", channel.socket().getInetAddress());
+    }
+
+    @Override
+    public void onReady(SelectionKey key) throws IOException {
+        if (key.isReadable()) {
+            if (stator.isAlive()) {
+                stator.accept(channel);
+            } else { // nothing more is expected from the client, so just wait for it to hang up
+                if (idleBuffer == null) {
+                    idleBuffer = ByteBuffer.allocate(256);
+                }
+                idleBuffer.clear();
+                if (channel.read(idleBuffer) == -1) {
+                    loop.close(key);
+                    return;
+                }
+            }
+        }
+        toClient.flush();
+        if (!toClient.hasPending()) {
+            if (closeWhenFlushed) {
+                loop.close(key);
+            } else if ((key.interestOps() & SelectionKey.OP_WRITE) != 0) {
+                key.interestOps(SelectionKey.OP_READ);
+            }
+        }
+    }
+
+    private void onWriteBlocked() {
+        if (key != null) {
+            loop.setInterest(key, SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void onLagLimit() {
+        if (key != null && key.isValid()) {
+            internalLogger.warn("Disconnecting {} from {}; it fell too far behind!", remoteId, targetId);
+            loop.close(key);
+        }
+    }
+
+    void close() {
+        if (key != null) {
+            loop.close(key);
+        }
+    }
+
+    @Override
+    public void onClosed() {
+        if (targetId != null) {
+            internalLogger.trace("Cleaning up client connection {} for {}...", channel.socket().getInetAddress(), targetId);
+        } else {
+            internalLogger.trace("Cleaning up client connection {}...", channel.socket().getInetAddress());
+        }
+        if (remoteId != null && targetId != null) {
+            rosNode.getTransportManager().getBusStateTracker().closeOutgoing(remoteId, targetId);
+        }
+        rosNode.getTransportManager().notifyPubConnectionKilled(channel.socket());
+        closeCallback.accept(this);
+    }
+
+    @Nullable
+    private TcpStateMachine.State processHeader(Map<String, String> fields) {
+        try {
+            internalLogger.trace("Received connection header: {}", fields);
+            remoteId = RosId.resolveGlobal(fields.get("callerid"));
+            if (fields.containsKey("topic")) {
+                RosId typeId = RosId.resolveGlobal(fields.get("type"));
+                RosMessageType<?> msgType = RosMessageType.get(typeId);
+                if (msgType == null) {
+                    internalLogger.warn("Connection requested topic for unknown message type {}!", typeId);
+                    throw new NoSuchElementException("Unknown message type: " + typeId);
+                }
+                DataTypeSpecification.Source msgSrc = msgType.getDataType().getTypeSpecification().getSource();
+                if (!msgSrc.getMd5Sum().equals(fields.get("md5sum"))) {
+                    internalLogger.warn("Connection requested topic for message type {} with bad MD5!", typeId);
+                    internalLogger.warn("Expected {} but got {}!", msgSrc.getMd5Sum(), fields.get("md5sum"));
+                    throw new IllegalStateException("MD5 checksum mismatch!");
+                }
+                targetId = RosId.resolveGlobal(fields.get("topic"));
+                if (fields.containsKey("tcp_nodelay") && fields.get("tcp_nodelay").equals("1")) {
+                    channel.socket().setTcpNoDelay(true);
+                }
+                TcpRosHeader header = new TcpRosHeader();
+                header.putField("callerid", rosNode.getId().toString());
+                header.putField("type", typeId.toString());
+                header.putField("md5sum", msgSrc.getMd5Sum());
+                header.putField("latching", rosNode.getTransportManager().isLatching(targetId) ? "1" : "0");
+                header.writeTo(toClient);
+                toClient.flush();
+                rosNode.getTransportManager().getBusStateTracker().openOutgoing(remoteId, targetId);
+                rosNode.getTransportManager().registerPubConnection(targetId, channel.socket(), toClient);
+                internalLogger.debug("Negotiated topic connection with {} for {} ({}).",
+                        remoteId, targetId, typeId.toUnrootedString());
+            } else if (fields.containsKey("service")) {
+                if (fields.containsKey("persistent") && fields.get("persistent").equals("1")) {
+                    // TODO persistent service server connections
+                    throw new UnsupportedOperationException("Persistent connections are not supported!");
+                }
+                targetId = RosId.resolveGlobal(fields.get("service"));
+                RosServiceType<?, ?> srvType = rosNode.getTransportManager().getServiceType(targetId);
+                if (srvType == null) {
+                    internalLogger.warn("Connection requested unadvertised service {}!", targetId);
+                    throw new NoSuchElementException("Service is not being advertised!");
+                }
+                if (fields.containsKey("probe") && fields.get("probe").equals("1")) {
+                    TcpRosHeader header = new TcpRosHeader();
+                    header.putField("callerid", rosNode.getId().toString());
+                    header.putField("type", srvType.getId().toUnrootedString());
+                    header.writeTo(toClient);
+                    internalLogger.debug("Handled service probe connection with {} for {} ({}).",
+                            remoteId, targetId, srvType.getId().toUnrootedString());
+                    closeWhenFlushed = true;
+                } else {
+                    DataTypeSpecification.Source srvSrc = srvType.getRequestType().getTypeSpecification().getSource();
+                    if (!srvSrc.getMd5Sum().equals(fields.get("md5sum"))) {
+                        internalLogger.warn("Connection requested service for type {} with bad MD5!", srvType);
+                        internalLogger.warn("Expected {} but got {}!", srvSrc.getMd5Sum(), fields.get("md5sum"));
+                        throw new IllegalStateException("MD5 checksum mismatch!");
+                    }
+                    TcpRosHeader header = new TcpRosHeader();
+                    header.putField("callerid", rosNode.getId().toString());
+                    header.putField("type", srvType.getId().toUnrootedString());
+                    header.putField("md5sum", srvSrc.getMd5Sum());
+                    header.writeTo(toClient);
+                    toClient.flush();
+                    rosNode.getTransportManager().getBusStateTracker().openOutgoing(remoteId, targetId);
+                    internalLogger.debug("Negotiated service connection with {} for {} ({}).",
+                            remoteId, targetId, srvType.getId().toUnrootedString());
+                    RosId serviceId = targetId;
+                    return ExpectDecodedData.expect(srvType.getRequestType(),
+                            req -> rosNode.getTransportManager().queueServiceRequest(serviceId, req, toClient));
+                }
+            } else {
+                internalLogger.warn("Connection did not specify a valid transport type!");
+                throw new IllegalArgumentException("TCPROS client connection did not specify a transport!");
+            }
+        } catch (Exception e) {
+            TcpRosHeader header = new TcpRosHeader();
+            header.putField("error", e.toString());
+            header.writeTo(toClient);
+            closeWhenFlushed = true;
+        }
+        return null;
+    }
+
+}
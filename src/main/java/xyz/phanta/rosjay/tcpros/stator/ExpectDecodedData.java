@@ -0,0 +1,57 @@
+package xyz.phanta.rosjay.tcpros.stator;
+
+import xyz.phanta.rosjay.transport.data.RosData;
+import xyz.phanta.rosjay.transport.data.RosDataDecodePlan;
+import xyz.phanta.rosjay.transport.data.RosDataPool;
+import xyz.phanta.rosjay.transport.data.RosDataType;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+// reads each length-prefixed frame whole, then decodes it in one pass with the type's precompiled plan
+// frames are decoded into spare instances from the type's pool whenever something has been recycled into it
+public class ExpectDecodedData<T extends RosData<T>> implements TcpStateMachine.State {
+
+    public static <T extends RosData<T>> TcpStateMachine.State expect(RosDataType<T> type, Consumer<T> callback) {
+        return new ExpectDecodedData<>(type, callback, false).expectLength;
+    }
+
+    // terminates the state machine after a single frame, e.g. for non-persistent service responses
+    public static <T extends RosData<T>> TcpStateMachine.State expectOnce(RosDataType<T> type, Consumer<T> callback) {
+        return new ExpectDecodedData<>(type, callback, true).expectLength;
+    }
+
+    private final RosDataDecodePlan<T> plan;
+    private final RosDataPool<T> pool;
+    private final Consumer<T> callback;
+    private final boolean once;
+    private final TcpStateMachine.State expectLength;
+    private int length;
+
+    private ExpectDecodedData(RosDataType<T> type, Consumer<T> callback, boolean once) {
+        this.plan = type.getDecodePlan();
+        this.pool = type.getInstancePool();
+        this.callback = callback;
+        this.once = once;
+        this.expectLength = new ExpectDatagramLength(len -> {
+            this.length = len;
+            return this;
+        });
+    }
+
+    @Override
+    public int getExpectedBytes() {
+        return length;
+    }
+
+    @Nullable
+    @Override
+    public TcpStateMachine.State consume(ByteBuffer buf) {
+        T instance = pool.acquire();
+        plan.decodeInto(instance, buf);
+        callback.accept(instance);
+        return once ? null : expectLength;
+    }
+
+}
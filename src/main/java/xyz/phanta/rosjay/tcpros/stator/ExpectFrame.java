@@ -0,0 +1,62 @@
+package xyz.phanta.rosjay.tcpros.stator;
+
+import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+
+// hands each length-prefixed frame over whole, leaving it to the receiver to decide how to decode it
+public class ExpectFrame implements TcpStateMachine.State {
+
+    public static TcpStateMachine.State expect(FrameHandler handler) {
+        return new ExpectFrame(handler).expectLength;
+    }
+
+    private final FrameHandler handler;
+    private final TcpStateMachine.State expectLength;
+    private int length;
+
+    private ExpectFrame(FrameHandler handler) {
+        this.handler = handler;
+        this.expectLength = new ExpectDatagramLength(len -> {
+            this.length = len;
+            return this;
+        });
+    }
+
+    @Override
+    public int getExpectedBytes() {
+        return length;
+    }
+
+    @Nullable
+    @Override
+    public TcpStateMachine.State consume(ByteBuffer buf) {
+        handler.accept(buf, false);
+        return expectLength;
+    }
+
+    @Override
+    public boolean retainsFrames() {
+        return handler.retainsFrames();
+    }
+
+    @Nullable
+    @Override
+    public TcpStateMachine.State consumeRetained(ByteBuffer buf) {
+        handler.accept(buf, true);
+        return expectLength;
+    }
+
+    public interface FrameHandler {
+
+        // only asked about frames that don't fit in the read-ahead buffer
+        boolean retainsFrames();
+
+        /**
+         * @param retained Whether the frame now belongs to the handler. Otherwise, its contents are only valid until
+         *                 this returns.
+         */
+        void accept(ByteBuffer frame, boolean retained);
+
+    }
+
+}
@@ -0,0 +1,65 @@
+package xyz.phanta.rosjay.tcpros.stator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// power-of-two size classes of receive buffers, shared between connections for frames too big to read ahead
+public class ReceiveBufferPool {
+
+    public static final ReceiveBufferPool SHARED = new ReceiveBufferPool(1 << 13, 1 << 24, 4);
+
+    private final int minClassSize, maxClassSize, buffersPerClass;
+    private final List<Deque<byte[]>> classes;
+
+    public ReceiveBufferPool(int minClassSize, int maxClassSize, int buffersPerClass) {
+        if (Integer.bitCount(minClassSize) != 1 || Integer.bitCount(maxClassSize) != 1 || minClassSize > maxClassSize) {
+            throw new IllegalArgumentException("Size class bounds must be ascending powers of two!");
+        }
+        this.minClassSize = minClassSize;
+        this.maxClassSize = maxClassSize;
+        this.buffersPerClass = buffersPerClass;
+        int classCount = getClassIndex(maxClassSize) + 1;
+        this.classes = new ArrayList<>(classCount);
+        for (int i = 0; i < classCount; i++) {
+            classes.add(new ArrayDeque<>());
+        }
+    }
+
+    // the returned buffer may be longer than requested
+    public byte[] acquire(int minLength) {
+        if (minLength > maxClassSize) { // too big to be worth keeping around
+            return new byte[minLength];
+        }
+        int classIndex = getClassIndex(minLength);
+        Deque<byte[]> pooled = classes.get(classIndex);
+        synchronized (pooled) {
+            byte[] buf = pooled.pollFirst();
+            if (buf != null) {
+                return buf;
+            }
+        }
+        return new byte[minClassSize << classIndex];
+    }
+
+    public void release(byte[] buf) {
+        if (buf.length < minClassSize || buf.length > maxClassSize || Integer.bitCount(buf.length) != 1) {
+            return; // not one of ours
+        }
+        Deque<byte[]> pooled = classes.get(getClassIndex(buf.length));
+        synchronized (pooled) {
+            if (pooled.size() < buffersPerClass) {
+                pooled.addFirst(buf);
+            }
+        }
+    }
+
+    private int getClassIndex(int length) {
+        if (length <= minClassSize) {
+            return 0;
+        }
+        return (32 - Integer.numberOfLeadingZeros(length - 1)) - Integer.numberOfTrailingZeros(minClassSize);
+    }
+
+}
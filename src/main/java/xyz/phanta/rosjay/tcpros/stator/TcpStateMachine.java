@@ -5,54 +5,131 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
 
+// reads ahead from the stream so that every state already buffered is served without another read
 public class TcpStateMachine {
 
+    private static final int READ_AHEAD_SIZE = 8192;
+
+    private final ReceiveBufferPool bufferPool;
     @Nullable
     private State state;
-    @SuppressWarnings("NullableProblems")
-    private byte[] stage;
-    private int stagePointer;
+    private final byte[] readAhead = new byte[READ_AHEAD_SIZE];
+    private int readStart = 0, readEnd = 0;
+    // states that don't fit in the read-ahead buffer are read straight into a pooled buffer
+    @Nullable
+    private byte[] frame = null;
+    private int frameLength, framePointer;
+    // frames for states that keep them are allocated fresh instead, since they never come back to the pool
+    private boolean frameRetained = false;
 
     public TcpStateMachine(State initialState) {
+        this(initialState, ReceiveBufferPool.SHARED);
+    }
+
+    public TcpStateMachine(State initialState, ReceiveBufferPool bufferPool) {
         this.state = initialState;
-        reallocStage();
+        this.bufferPool = bufferPool;
     }
 
     public boolean accept(InputStream strIn) throws IOException {
+        return accept(strIn::read);
+    }
+
+    // for non-blocking channels, a read that returns nothing just leaves the machine where it was
+    public boolean accept(ReadableByteChannel channel) throws IOException {
+        return accept((dest, offset, length) -> channel.read(ByteBuffer.wrap(dest, offset, length)));
+    }
+
+    private boolean accept(Source src) throws IOException {
         if (state == null) {
             throw new IllegalStateException("State machine is terminated!");
         }
-        int readLength = strIn.read(stage, stagePointer, stage.length - stagePointer);
+        if (frame != null) {
+            int readLength = src.read(frame, framePointer, frameLength - framePointer);
+            if (readLength == -1) {
+                terminate();
+                return false;
+            }
+            framePointer += readLength;
+            if (framePointer < frameLength) {
+                return true;
+            }
+            byte[] frameBuf = frame;
+            frame = null;
+            if (frameRetained) {
+                state = state.consumeRetained(wrap(frameBuf, 0, frameLength));
+            } else {
+                try {
+                    state = state.consume(wrap(frameBuf, 0, frameLength));
+                } finally {
+                    bufferPool.release(frameBuf);
+                }
+            }
+            return state != null && consumeBuffered();
+        }
+        if (readStart > 0) { // compact so the rest of a partially-buffered state fits
+            System.arraycopy(readAhead, readStart, readAhead, 0, readEnd - readStart);
+            readEnd -= readStart;
+            readStart = 0;
+        }
+        int readLength = src.read(readAhead, readEnd, readAhead.length - readEnd);
         if (readLength == -1) {
-            state = null;
+            terminate();
             return false;
         }
-        stagePointer += readLength;
-        if (stagePointer >= stage.length) {
-            ByteBuffer buf = ByteBuffer.wrap(stage);
-            buf.order(ByteOrder.LITTLE_ENDIAN);
-            state = state.consume(buf);
-            if (state != null) {
-                reallocStage();
-                return true;
+        readEnd += readLength;
+        return consumeBuffered();
+    }
+
+    private boolean consumeBuffered() {
+        while (state != null) {
+            int expected = state.getExpectedBytes();
+            int buffered = readEnd - readStart;
+            if (expected <= buffered) {
+                ByteBuffer buf = wrap(readAhead, readStart, expected);
+                readStart += expected;
+                state = state.consume(buf);
             } else {
-                return false;
+                if (expected > readAhead.length) {
+                    frameRetained = state.retainsFrames();
+                    frame = frameRetained ? new byte[expected] : bufferPool.acquire(expected);
+                    frameLength = expected;
+                    System.arraycopy(readAhead, readStart, frame, 0, buffered);
+                    framePointer = buffered;
+                    readStart = readEnd = 0;
+                }
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void terminate() {
+        state = null;
+        if (frame != null) {
+            if (!frameRetained) {
+                bufferPool.release(frame);
             }
+            frame = null;
         }
-        return true;
     }
 
     public boolean isAlive() {
         return state != null;
     }
 
-    private void reallocStage() {
-        if (state == null) {
-            throw new IllegalStateException("State machine is terminated!");
-        }
-        stage = new byte[state.getExpectedBytes()];
-        stagePointer = 0;
+    // states must not hold on to the buffer after consuming it, since its backing array gets reused
+    private static ByteBuffer wrap(byte[] data, int offset, int length) {
+        return ByteBuffer.wrap(data, offset, length).slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    @FunctionalInterface
+    private interface Source {
+
+        int read(byte[] dest, int offset, int length) throws IOException;
+
     }
 
     public interface State {
@@ -62,6 +139,19 @@ public class TcpStateMachine {
         @Nullable
         State consume(ByteBuffer buf);
 
+        /**
+         * Whether this state wants to keep the frames it consumes. If so, frames too large for the read-ahead buffer
+         * are passed to {@link #consumeRetained} instead, and belong to the state from then on.
+         */
+        default boolean retainsFrames() {
+            return false;
+        }
+
+        @Nullable
+        default State consumeRetained(ByteBuffer buf) {
+            return consume(buf);
+        }
+
     }
 
 }
@@ -10,6 +10,9 @@ public interface RosData<T extends RosData<T>> {
 
     RosDataType<T> retrieveDataType(); // break nomenclature to make sure ros datatype property getters don't conflict
 
+    // exactly the number of bytes serializeData will write
+    int computeSerializedSize();
+
     void serializeData(DataOutput dest, int seqIndex) throws IOException;
 
     DeserializationChain linkDeserializer(@Nullable DeserializationChain next);
@@ -0,0 +1,86 @@
+package xyz.phanta.rosjay.transport.data;
+
+import org.slf4j.Logger;
+import xyz.phanta.rosjay.transport.data.field.RosDataField;
+import xyz.phanta.rosjay.util.RosUtils;
+
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.function.Supplier;
+
+class RosDataClassFactory<T extends RosData<T>> implements Supplier<T> {
+
+    private static final Logger LOGGER = RosUtils.getGlobalInternalLogger("datagen");
+
+    @Nullable
+    static <T extends RosData<T>> RosDataClassFactory<T> tryCreate(RosDataType<T> dataType, List<RosDataField<?>> propertyList) {
+        Class<T> dataClass = dataType.getDataClass();
+        RosDataClassGenerator gen = RosDataClassGenerator.plan(dataClass, propertyList);
+        if (gen == null) {
+            LOGGER.debug("Data class {} can't be generated; falling back to proxy delegate.", dataClass.getCanonicalName());
+            return null;
+        }
+        try {
+            LOGGER.trace("Generating data class {}...", gen.getClassName());
+            @SuppressWarnings("unchecked") // the generated class extends RosDataObject and implements the data interface
+            Class<? extends RosDataObject<T>> implClass = (Class<? extends RosDataObject<T>>)new GeneratedClassLoader(
+                    dataClass.getClassLoader()).define(gen.getClassName(), gen.generate());
+            return new RosDataClassFactory<>(dataType, implClass);
+        } catch (Throwable e) {
+            LOGGER.warn("Failed to generate data class for " + dataClass.getCanonicalName() + "; falling back to proxy delegate.", e);
+            return null;
+        }
+    }
+
+    private final RosDataType<T> dataType;
+    private final Class<? extends RosDataObject<T>> implClass;
+
+    @Nullable
+    private RosDataObject<T> prototype = null;
+
+    private RosDataClassFactory(RosDataType<T> dataType, Class<? extends RosDataObject<T>> implClass) {
+        this.dataType = dataType;
+        this.implClass = implClass;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public T get() {
+        RosDataObject<T> proto = prototype;
+        if (proto == null) { // instantiated lazily, since field defaults may depend on types still being resolved
+            try {
+                proto = implClass.getConstructor(RosDataType.class).newInstance(dataType);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Failed to instantiate generated data class: " + implClass.getName(), e);
+            }
+            prototype = proto;
+        }
+        return (T)proto.createSibling();
+    }
+
+    private static class GeneratedClassLoader extends ClassLoader {
+
+        GeneratedClassLoader(@Nullable ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            // the data interface may live in a different loader than RosJay itself
+            if (name.startsWith("xyz.phanta.rosjay.")) {
+                try {
+                    return Class.forName(name, false, RosDataObject.class.getClassLoader());
+                } catch (ClassNotFoundException e) {
+                    // fall through to the parent loader
+                }
+            }
+            return super.loadClass(name, resolve);
+        }
+
+        Class<?> define(String name, byte[] classBytes) {
+            return defineClass(name, classBytes, 0, classBytes.length);
+        }
+
+    }
+
+}
@@ -0,0 +1,373 @@
+package xyz.phanta.rosjay.transport.data;
+
+import xyz.phanta.rosjay.transport.data.field.RosDataField;
+import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.transport.data.field.RosPrimitiveFieldType;
+import xyz.phanta.rosjay.transport.data.field.impl.*;
+import xyz.phanta.rosjay.util.RosUtils;
+import xyz.phanta.rosjay.util.bytecode.ClassFileBuilder;
+import xyz.phanta.rosjay.util.bytecode.CodeBuilder;
+
+import javax.annotation.Nullable;
+import java.io.DataOutput;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static xyz.phanta.rosjay.util.bytecode.TypeDescriptors.*;
+
+class RosDataClassGenerator {
+
+    private static final String BASE_CLASS = getInternalName(RosDataObject.class);
+    private static final String DATA_TYPE_DESC = getDescriptor(RosDataType.class);
+    private static final String DATA_OUTPUT = getInternalName(DataOutput.class);
+
+    private static final Map<RosDataFieldType<?>, Class<?>> SCALAR_VALUE_CLASSES = new HashMap<>();
+    private static final Class<?>[] PRIMITIVE_SLOT_TYPES = {
+            Boolean.TYPE, Byte.TYPE, Short.TYPE, Integer.TYPE, Long.TYPE, Float.TYPE, Double.TYPE
+    };
+
+    static {
+        SCALAR_VALUE_CLASSES.put(FieldTypeBool.TYPE, Boolean.class);
+        SCALAR_VALUE_CLASSES.put(FieldTypeInt8.TYPE, Byte.class);
+        SCALAR_VALUE_CLASSES.put(FieldTypeInt16.TYPE, Short.class);
+        SCALAR_VALUE_CLASSES.put(FieldTypeInt32.TYPE, Integer.class);
+        SCALAR_VALUE_CLASSES.put(FieldTypeInt64.TYPE, Long.class);
+        SCALAR_VALUE_CLASSES.put(FieldTypeFloat32.TYPE, Float.class);
+        SCALAR_VALUE_CLASSES.put(FieldTypeFloat64.TYPE, Double.class);
+        SCALAR_VALUE_CLASSES.put(FieldTypeString.TYPE, String.class);
+        SCALAR_VALUE_CLASSES.put(FieldTypeTime.TYPE, Instant.class);
+        SCALAR_VALUE_CLASSES.put(FieldTypeDuration.TYPE, Duration.class);
+    }
+
+    private final Class<?> dataClass;
+    private final List<RosDataField<?>> fields;
+    private final String className;
+    private final Class<?>[] storageTypes;
+    // non-null for time and duration fields stored packed into a long
+    private final RosPrimitiveFieldType.OfPackedTime<?>[] packedTimeTypes;
+    private final Map<Method, Integer> getters = new HashMap<>();
+    private final Map<Method, Integer> setters = new HashMap<>();
+
+    private RosDataClassGenerator(Class<?> dataClass, List<RosDataField<?>> fields) {
+        this.dataClass = dataClass;
+        this.fields = fields;
+        this.className = getInternalName(dataClass) + "$RosJayImpl";
+        this.storageTypes = new Class<?>[fields.size()];
+        this.packedTimeTypes = new RosPrimitiveFieldType.OfPackedTime<?>[fields.size()];
+    }
+
+    String getClassName() {
+        return className.replace('/', '.');
+    }
+
+    // returns null if the data interface declares anything the generated class can't faithfully implement
+    @Nullable
+    static RosDataClassGenerator plan(Class<?> dataClass, List<RosDataField<?>> fields) {
+        if (!dataClass.isInterface() || !Modifier.isPublic(dataClass.getModifiers())) {
+            return null;
+        }
+        RosDataClassGenerator gen = new RosDataClassGenerator(dataClass, fields);
+        Map<String, Integer> fieldIndices = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            fieldIndices.put(fields.get(i).getName(), i);
+        }
+        for (Method method : dataClass.getMethods()) {
+            if (method.getDeclaringClass() == RosData.class || method.isDefault() || Modifier.isStatic(method.getModifiers())) {
+                continue;
+            }
+            String name = method.getName();
+            Integer index = name.length() > 3 ? fieldIndices.get(RosUtils.pascalToSnake(name.substring(3))) : null;
+            if (index == null) {
+                return null;
+            }
+            Class<?> accessType;
+            if (name.startsWith("get") && method.getParameterCount() == 0 && method.getReturnType() != Void.TYPE) {
+                accessType = method.getReturnType();
+                gen.getters.put(method, index);
+            } else if (name.startsWith("set") && method.getParameterCount() == 1 && method.getReturnType() == Void.TYPE) {
+                accessType = method.getParameterTypes()[0];
+                gen.setters.put(method, index);
+            } else {
+                return null;
+            }
+            if (gen.storageTypes[index] == null) {
+                gen.storageTypes[index] = accessType;
+            } else if (gen.storageTypes[index] != accessType) {
+                return null;
+            }
+        }
+        boolean packAllTimes = dataClass.isAnnotationPresent(RosPackedTime.class);
+        for (int i = 0; i < fields.size(); i++) {
+            RosDataFieldType<?> fieldType = fields.get(i).getType();
+            Class<?> valueClass = resolveValueClass(fieldType);
+            if ((fieldType == FieldTypeTime.TYPE || fieldType == FieldTypeDuration.TYPE)
+                    && (packAllTimes || gen.storageTypes[i] == Long.TYPE)) {
+                if (gen.storageTypes[i] != null && gen.storageTypes[i] != Long.TYPE
+                        && !gen.storageTypes[i].isAssignableFrom(valueClass)) {
+                    return null;
+                }
+                gen.storageTypes[i] = Long.TYPE; // accessors with the unpacked type convert on each call
+                gen.packedTimeTypes[i] = (RosPrimitiveFieldType.OfPackedTime<?>)fieldType;
+            } else if (gen.storageTypes[i] == null) {
+                gen.storageTypes[i] = Object.class;
+            } else if (!getWrapperType(gen.storageTypes[i]).isAssignableFrom(valueClass)) {
+                return null;
+            }
+        }
+        return gen;
+    }
+
+    private static Class<?> resolveValueClass(RosDataFieldType<?> fieldType) {
+        Class<?> valueClass = SCALAR_VALUE_CLASSES.get(fieldType);
+        if (valueClass != null) {
+            return valueClass;
+        } else if (fieldType instanceof FieldTypePrimitiveArray) {
+            return ((FieldTypePrimitiveArray<?>)fieldType).getArrayClass();
+        } else if (fieldType instanceof FieldTypeArrayFixed || fieldType instanceof FieldTypeArrayVariable) {
+            return List.class;
+        } else if (fieldType instanceof FieldTypeMessage) {
+            return ((FieldTypeMessage<?>)fieldType).getMessageType().getDataType().getDataClass();
+        }
+        return Object.class;
+    }
+
+    byte[] generate() {
+        ClassFileBuilder cls = new ClassFileBuilder(ClassFileBuilder.ACC_PUBLIC | ClassFileBuilder.ACC_FINAL,
+                className, BASE_CLASS, getInternalName(dataClass));
+        for (int i = 0; i < fields.size(); i++) {
+            cls.addField(ClassFileBuilder.ACC_PRIVATE, getStorageName(i), getDescriptor(storageTypes[i]));
+        }
+        emitConstructor(cls);
+        emitCreateSibling(cls);
+        for (Map.Entry<Method, Integer> getter : getters.entrySet()) {
+            emitGetter(cls, getter.getKey(), getter.getValue());
+        }
+        for (Map.Entry<Method, Integer> setter : setters.entrySet()) {
+            emitSetter(cls, setter.getKey(), setter.getValue());
+        }
+        emitGetFieldValue(cls);
+        emitSetFieldValue(cls);
+        for (Class<?> type : PRIMITIVE_SLOT_TYPES) {
+            String typeName = type.getName();
+            emitSlotSetFieldValue(cls, "set" + Character.toUpperCase(typeName.charAt(0)) + typeName.substring(1)
+                    + "FieldValue", type, false);
+        }
+        emitSlotSetFieldValue(cls, "setPackedTimeFieldValue", Long.TYPE, true);
+        emitSerializeData(cls);
+        return cls.toByteArray();
+    }
+
+    private String getStorageName(int index) {
+        return "f" + index + "_" + fields.get(index).getName();
+    }
+
+    private String getStorageDesc(int index) {
+        return getDescriptor(storageTypes[index]);
+    }
+
+    private void emitConstructor(ClassFileBuilder cls) {
+        CodeBuilder code = cls.addMethod(ClassFileBuilder.ACC_PUBLIC, "<init>", "(" + DATA_TYPE_DESC + ")V", 4, 2);
+        code.varOp(CodeBuilder.ALOAD, 0).varOp(CodeBuilder.ALOAD, 1)
+                .invoke(CodeBuilder.INVOKESPECIAL, BASE_CLASS, "<init>", "(" + DATA_TYPE_DESC + ")V");
+        for (int i = 0; i < fields.size(); i++) {
+            if (packedTimeTypes[i] != null) { // zero is already the epoch, or a zero duration
+                continue;
+            }
+            code.varOp(CodeBuilder.ALOAD, 0).varOp(CodeBuilder.ALOAD, 0).pushInt(i)
+                    .invoke(CodeBuilder.INVOKEVIRTUAL, BASE_CLASS, "getDefaultFieldValue", "(I)Ljava/lang/Object;");
+            emitUnbox(code, storageTypes[i]);
+            code.fieldOp(CodeBuilder.PUTFIELD, className, getStorageName(i), getStorageDesc(i));
+        }
+        code.op(CodeBuilder.RETURN);
+    }
+
+    private void emitCreateSibling(ClassFileBuilder cls) {
+        cls.addMethod(ClassFileBuilder.ACC_PROTECTED, "createSibling", "()L" + BASE_CLASS + ";", 3, 1)
+                .typeOp(CodeBuilder.NEW, className).op(CodeBuilder.DUP).varOp(CodeBuilder.ALOAD, 0)
+                .invoke(CodeBuilder.INVOKEVIRTUAL, BASE_CLASS, "retrieveDataType", "()" + DATA_TYPE_DESC)
+                .invoke(CodeBuilder.INVOKESPECIAL, className, "<init>", "(" + DATA_TYPE_DESC + ")V")
+                .op(CodeBuilder.ARETURN);
+    }
+
+    private void emitGetter(ClassFileBuilder cls, Method method, int index) {
+        Class<?> type = method.getReturnType();
+        CodeBuilder code = cls.addMethod(ClassFileBuilder.ACC_PUBLIC, method.getName(), getMethodDescriptor(type),
+                3, 1);
+        if (isConvertedTime(index, type)) {
+            emitUnpackedTimeLoad(code, index);
+        } else {
+            code.varOp(CodeBuilder.ALOAD, 0)
+                    .fieldOp(CodeBuilder.GETFIELD, className, getStorageName(index), getStorageDesc(index));
+        }
+        code.op(getReturnOpcode(type));
+    }
+
+    private void emitSetter(ClassFileBuilder cls, Method method, int index) {
+        Class<?> type = method.getParameterTypes()[0];
+        CodeBuilder code = cls.addMethod(ClassFileBuilder.ACC_PUBLIC, method.getName(),
+                getMethodDescriptor(Void.TYPE, type), 3, 1 + getSlotSize(type))
+                .varOp(CodeBuilder.ALOAD, 0).varOp(getLoadOpcode(type), 1);
+        if (isConvertedTime(index, type)) {
+            emitTimePack(code, index);
+        }
+        code.fieldOp(CodeBuilder.PUTFIELD, className, getStorageName(index), getStorageDesc(index))
+                .op(CodeBuilder.RETURN);
+    }
+
+    // whether an accessor sees a packed time as an Instant or Duration rather than the raw long
+    private boolean isConvertedTime(int index, Class<?> accessType) {
+        return packedTimeTypes[index] != null && accessType != Long.TYPE;
+    }
+
+    private String getPackedTimeOwner(int index) {
+        return getInternalName(packedTimeTypes[index].getClass());
+    }
+
+    private String getPackedTimeValueDesc(int index) {
+        return getDescriptor(resolveValueClass(fields.get(index).getType()));
+    }
+
+    private void emitUnpackedTimeLoad(CodeBuilder code, int index) {
+        String owner = getPackedTimeOwner(index);
+        code.fieldOp(CodeBuilder.GETSTATIC, owner, "TYPE", "L" + owner + ";").varOp(CodeBuilder.ALOAD, 0)
+                .fieldOp(CodeBuilder.GETFIELD, className, getStorageName(index), getStorageDesc(index))
+                .invoke(CodeBuilder.INVOKEVIRTUAL, owner, "unpack", "(J)" + getPackedTimeValueDesc(index));
+    }
+
+    // expects the unpacked value on top of the stack, and swaps it for the packed one
+    private void emitTimePack(CodeBuilder code, int index) {
+        String owner = getPackedTimeOwner(index), valueDesc = getPackedTimeValueDesc(index);
+        code.typeOp(CodeBuilder.CHECKCAST, valueDesc.substring(1, valueDesc.length() - 1))
+                .fieldOp(CodeBuilder.GETSTATIC, owner, "TYPE", "L" + owner + ";").op(CodeBuilder.SWAP)
+                .invoke(CodeBuilder.INVOKEVIRTUAL, owner, "pack", "(" + valueDesc + ")J");
+    }
+
+    private void emitGetFieldValue(ClassFileBuilder cls) {
+        CodeBuilder code = cls.addMethod(ClassFileBuilder.ACC_PROTECTED, "getFieldValue", "(I)Ljava/lang/Object;", 3, 2);
+        CodeBuilder.Label[] cases = emitFieldSwitch(code);
+        for (int i = 0; i < fields.size(); i++) {
+            code.mark(cases[i]);
+            if (packedTimeTypes[i] != null) {
+                emitUnpackedTimeLoad(code, i);
+            } else {
+                code.varOp(CodeBuilder.ALOAD, 0)
+                        .fieldOp(CodeBuilder.GETFIELD, className, getStorageName(i), getStorageDesc(i));
+                emitBox(code, storageTypes[i]);
+            }
+            code.op(CodeBuilder.ARETURN);
+        }
+    }
+
+    private void emitSetFieldValue(ClassFileBuilder cls) {
+        CodeBuilder code = cls.addMethod(ClassFileBuilder.ACC_PROTECTED, "setFieldValue", "(ILjava/lang/Object;)V", 3, 3);
+        CodeBuilder.Label[] cases = emitFieldSwitch(code);
+        for (int i = 0; i < fields.size(); i++) {
+            code.mark(cases[i]).varOp(CodeBuilder.ALOAD, 0).varOp(CodeBuilder.ALOAD, 2);
+            if (packedTimeTypes[i] != null) {
+                emitTimePack(code, i);
+            } else {
+                emitUnbox(code, storageTypes[i]);
+            }
+            code.fieldOp(CodeBuilder.PUTFIELD, className, getStorageName(i), getStorageDesc(i)).op(CodeBuilder.RETURN);
+        }
+    }
+
+    // overrides the boxing fallback in RosDataObject, but only if some field is actually stored as this primitive
+    private void emitSlotSetFieldValue(ClassFileBuilder cls, String name, Class<?> type, boolean packedTime) {
+        CodeBuilder.Label fallback = new CodeBuilder.Label();
+        CodeBuilder.Label[] cases = new CodeBuilder.Label[fields.size()];
+        boolean stored = false;
+        for (int i = 0; i < cases.length; i++) {
+            if (storageTypes[i] == type && (packedTimeTypes[i] != null) == packedTime) {
+                cases[i] = new CodeBuilder.Label();
+                stored = true;
+            } else {
+                cases[i] = fallback;
+            }
+        }
+        if (!stored) {
+            return;
+        }
+        String desc = getMethodDescriptor(Void.TYPE, Integer.TYPE, type);
+        int slots = 2 + getSlotSize(type);
+        CodeBuilder code = cls.addMethod(ClassFileBuilder.ACC_PROTECTED, name, desc, slots, slots);
+        code.varOp(CodeBuilder.ILOAD, 1).tableSwitch(0, fallback, cases);
+        for (int i = 0; i < cases.length; i++) {
+            if (cases[i] != fallback) {
+                code.mark(cases[i]).varOp(CodeBuilder.ALOAD, 0).varOp(getLoadOpcode(type), 2)
+                        .fieldOp(CodeBuilder.PUTFIELD, className, getStorageName(i), getStorageDesc(i))
+                        .op(CodeBuilder.RETURN);
+            }
+        }
+        code.mark(fallback).varOp(CodeBuilder.ALOAD, 0).varOp(CodeBuilder.ILOAD, 1).varOp(getLoadOpcode(type), 2)
+                .invoke(CodeBuilder.INVOKESPECIAL, BASE_CLASS, name, desc)
+                .op(CodeBuilder.RETURN);
+    }
+
+    private CodeBuilder.Label[] emitFieldSwitch(CodeBuilder code) {
+        CodeBuilder.Label[] cases = new CodeBuilder.Label[fields.size()];
+        CodeBuilder.Label defaultCase = new CodeBuilder.Label();
+        if (cases.length > 0) {
+            for (int i = 0; i < cases.length; i++) {
+                cases[i] = new CodeBuilder.Label();
+            }
+            code.varOp(CodeBuilder.ILOAD, 1).tableSwitch(0, defaultCase, cases);
+        }
+        code.mark(defaultCase).varOp(CodeBuilder.ALOAD, 0).varOp(CodeBuilder.ILOAD, 1)
+                .invoke(CodeBuilder.INVOKEVIRTUAL, BASE_CLASS, "noSuchField", "(I)Ljava/lang/IndexOutOfBoundsException;")
+                .op(CodeBuilder.ATHROW);
+        return cases;
+    }
+
+    private void emitSerializeData(ClassFileBuilder cls) {
+        CodeBuilder code = cls.addMethod(ClassFileBuilder.ACC_PUBLIC, "serializeData", "(L" + DATA_OUTPUT + ";I)V", 6, 3);
+        for (int i = 0; i < fields.size(); i++) {
+            Class<?> type = storageTypes[i];
+            if (packedTimeTypes[i] != null) {
+                String owner = getPackedTimeOwner(i);
+                code.fieldOp(CodeBuilder.GETSTATIC, owner, "TYPE", "L" + owner + ";").varOp(CodeBuilder.ALOAD, 0)
+                        .fieldOp(CodeBuilder.GETFIELD, className, getStorageName(i), getStorageDesc(i))
+                        .varOp(CodeBuilder.ALOAD, 1)
+                        .invoke(CodeBuilder.INVOKEVIRTUAL, owner, "writePacked", "(JL" + DATA_OUTPUT + ";)V");
+            } else if (type.isPrimitive()) {
+                code.varOp(CodeBuilder.ALOAD, 1).varOp(CodeBuilder.ALOAD, 0)
+                        .fieldOp(CodeBuilder.GETFIELD, className, getStorageName(i), getStorageDesc(i));
+                emitPrimitiveWrite(code, type);
+            } else {
+                code.varOp(CodeBuilder.ALOAD, 0).pushInt(i).varOp(CodeBuilder.ALOAD, 0)
+                        .fieldOp(CodeBuilder.GETFIELD, className, getStorageName(i), getStorageDesc(i))
+                        .varOp(CodeBuilder.ALOAD, 1).varOp(CodeBuilder.ILOAD, 2)
+                        .invoke(CodeBuilder.INVOKEVIRTUAL, BASE_CLASS, "serializeObjectField",
+                                "(ILjava/lang/Object;L" + DATA_OUTPUT + ";I)V");
+            }
+        }
+        code.op(CodeBuilder.RETURN);
+    }
+
+    private static void emitPrimitiveWrite(CodeBuilder code, Class<?> type) {
+        String method;
+        if (type == Boolean.TYPE) {
+            method = "writeBoolean";
+        } else if (type == Byte.TYPE) {
+            method = "writeByte";
+        } else if (type == Short.TYPE) {
+            method = "writeShort";
+        } else if (type == Long.TYPE) {
+            method = "writeLong";
+        } else if (type == Float.TYPE) {
+            method = "writeFloat";
+        } else if (type == Double.TYPE) {
+            method = "writeDouble";
+        } else {
+            method = "writeInt";
+        }
+        Class<?> argType = (type == Byte.TYPE || type == Short.TYPE) ? Integer.TYPE : type;
+        code.invoke(CodeBuilder.INVOKEINTERFACE, DATA_OUTPUT, method, getMethodDescriptor(Void.TYPE, argType));
+    }
+
+}
@@ -0,0 +1,693 @@
+package xyz.phanta.rosjay.transport.data;
+
+import xyz.phanta.rosjay.transport.data.field.RosDataField;
+import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.transport.data.field.impl.*;
+import xyz.phanta.rosjay.util.RosUtils;
+import xyz.phanta.rosjay.util.deserchain.DeserChainUtils;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+// flat decode program compiled once per data type; runs directly over a complete little-endian frame
+public final class RosDataDecodePlan<T extends RosData<T>> {
+
+    private static final int OP_CHECK = 0;
+    private static final int OP_BOOL = 1;
+    private static final int OP_INT8 = 2;
+    private static final int OP_INT16 = 3;
+    private static final int OP_INT32 = 4;
+    private static final int OP_INT64 = 5;
+    private static final int OP_FLOAT32 = 6;
+    private static final int OP_FLOAT64 = 7;
+    private static final int OP_STRING = 8;
+    private static final int OP_TIME = 9;
+    private static final int OP_DURATION = 10;
+    private static final int OP_MESSAGE = 11;
+    private static final int OP_PRIM_ARRAY = 12;
+    private static final int OP_LIST = 13;
+    private static final int OP_GENERIC = 14;
+    private static final int OP_SKIP = 15;
+    private static final int OP_STRING_INTERN = 16;
+    private static final int OP_STRING_LAZY = 17;
+
+    static <T extends RosData<T>> RosDataDecodePlan<T> compile(RosDataType<T> dataType) {
+        Compiler compiler = new Compiler();
+        List<RosDataField<?>> fields = dataType.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            RosDataField<?> field = fields.get(i);
+            boolean lazyString = field.getType() == FieldTypeString.TYPE && isLazyString(dataType, field);
+            compiler.addField(i, field.getType(), lazyString);
+        }
+        return compiler.build(dataType);
+    }
+
+    // string fields are read lazily if the data interface asks for a CharSequence rather than a String
+    private static boolean isLazyString(RosDataType<?> dataType, RosDataField<?> field) {
+        try {
+            Method getter = dataType.getDataClass().getMethod("get" + RosUtils.snakeToPascal(field.getName()));
+            return getter.getReturnType() == CharSequence.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private final RosDataType<T> dataType;
+    private final int[] ops, operands;
+    private final Object[] args;
+    private final int fixedSize;
+    // per field, for random access by views; offsets are -1 for fields that come after a variable-size one
+    private final int[] fieldOps, fieldOffsets;
+    private final Object[] fieldArgs;
+
+    private RosDataDecodePlan(RosDataType<T> dataType, int[] ops, int[] operands, Object[] args, int fixedSize,
+                              int[] fieldOps, Object[] fieldArgs, int[] fieldOffsets) {
+        this.dataType = dataType;
+        this.ops = ops;
+        this.operands = operands;
+        this.args = args;
+        this.fixedSize = fixedSize;
+        this.fieldOps = fieldOps;
+        this.fieldArgs = fieldArgs;
+        this.fieldOffsets = fieldOffsets;
+    }
+
+    public RosDataType<T> getDataType() {
+        return dataType;
+    }
+
+    // -1 if the encoded size depends on the data
+    public int getFixedSize() {
+        return fixedSize;
+    }
+
+    public T decode(ByteBuffer buf) {
+        T instance = dataType.newInstance();
+        decodeInto(instance, buf);
+        return instance;
+    }
+
+    /**
+     * Decodes over every field of an existing instance. Nested messages, primitive arrays of the same length and
+     * arrays previously produced by the decoder are overwritten in place rather than replaced, so nothing else may
+     * still be holding on to them.
+     */
+    public void decodeInto(T instance, ByteBuffer buf) {
+        // generated classes take scalars through unboxed setters; anything else gets them boxed
+        RosDataObject<?> unboxedDest = instance instanceof RosDataObject ? (RosDataObject<?>)instance : null;
+        try {
+            for (int pc = 0; pc < ops.length; pc++) {
+                int op = ops[pc];
+                if (op == OP_CHECK) {
+                    checkRemaining(buf, operands[pc]);
+                } else if (op == OP_SKIP) { // reset, so nothing from whatever the instance held before shows through
+                    SkipSpec skip = (SkipSpec)args[pc];
+                    skipValue(skip.op, skip.arg, buf);
+                    dataType.setFieldValue(instance, operands[pc], skip.fieldType.getDefaultValue());
+                } else if (unboxedDest != null && (op <= OP_FLOAT64 || op == OP_TIME || op == OP_DURATION)) {
+                    readPrimitiveInto(op, unboxedDest, operands[pc], buf);
+                } else {
+                    int slot = operands[pc];
+                    Object reuse = isReusable(op) ? dataType.getFieldValue(instance, slot) : null;
+                    dataType.setFieldValue(instance, slot, readValue(op, args[pc], buf, reuse));
+                }
+            }
+        } catch (BufferUnderflowException e) { // length prefixes of variable-size fields aren't covered by run checks
+            throw new IllegalArgumentException(
+                    "Data frame truncated while decoding " + dataType.getDataClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Derives a plan that only decodes the given fields, and skips over everything else using its length prefixes.
+     * Paths are field names, with nested message fields separated by dots (e.g. {@code header.stamp}); a path into an
+     * array of messages applies to every element. Fields that are skipped are set to their defaults, rather than
+     * keeping whatever a recycled instance held before.
+     *
+     * @throws IllegalArgumentException If any path doesn't name a field.
+     */
+    public RosDataDecodePlan<T> project(Collection<String> fieldPaths) {
+        List<RosDataField<?>> fields = dataType.getFields();
+        // null means the whole field is wanted
+        Map<String, List<String>> wanted = new HashMap<>();
+        for (String path : fieldPaths) {
+            int dot = path.indexOf('.');
+            String name = dot == -1 ? path : path.substring(0, dot);
+            if (fields.stream().noneMatch(field -> field.getName().equals(name))) {
+                throw new IllegalArgumentException("No such field in " + dataType.getDataClass().getSimpleName() + ": "
+                        + path);
+            }
+            if (dot == -1) {
+                wanted.put(name, null);
+            } else if (!wanted.containsKey(name) || wanted.get(name) != null) {
+                wanted.computeIfAbsent(name, k -> new ArrayList<>()).add(path.substring(dot + 1));
+            }
+        }
+        int[] projOps = ops.clone();
+        Object[] projArgs = args.clone();
+        for (int pc = 0; pc < ops.length; pc++) {
+            if (ops[pc] == OP_CHECK) {
+                continue;
+            }
+            String name = fields.get(operands[pc]).getName();
+            if (!wanted.containsKey(name)) {
+                projOps[pc] = OP_SKIP;
+                projArgs[pc] = new SkipSpec(ops[pc], args[pc], fields.get(operands[pc]).getType());
+            } else {
+                List<String> subPaths = wanted.get(name);
+                if (subPaths != null) {
+                    projArgs[pc] = projectNested(name, ops[pc], args[pc], subPaths);
+                }
+            }
+        }
+        return new RosDataDecodePlan<>(dataType, projOps, operands, projArgs, fixedSize, fieldOps, fieldArgs,
+                fieldOffsets);
+    }
+
+    /**
+     * Derives a plan that decodes each string field through its own small cache keyed on the raw bytes, so fields that
+     * keep repeating the same few values (e.g. {@code header.frame_id}) come out as the same {@link String} instance
+     * without allocating. Strings read lazily as {@link RosLazyString} are left as they are.
+     */
+    public RosDataDecodePlan<T> internStrings() {
+        int[] internOps = ops.clone();
+        Object[] internArgs = args.clone();
+        for (int pc = 0; pc < ops.length; pc++) {
+            switch (ops[pc]) {
+                case OP_STRING:
+                    internOps[pc] = OP_STRING_INTERN;
+                    internArgs[pc] = new RosStringInternCache();
+                    break;
+                case OP_MESSAGE:
+                    //noinspection ConstantConditions
+                    internArgs[pc] = ((RosDataDecodePlan<?>)args[pc]).internStrings();
+                    break;
+                case OP_LIST:
+                    ListSpec listSpec = (ListSpec)args[pc];
+                    //noinspection ConstantConditions
+                    if (listSpec.elementOp == OP_STRING) { // one cache shared by all the elements
+                        internArgs[pc] = new ListSpec(listSpec.size, OP_STRING_INTERN, new RosStringInternCache());
+                    } else if (listSpec.elementOp == OP_MESSAGE) {
+                        //noinspection ConstantConditions
+                        RosDataDecodePlan<?> elementPlan = ((RosDataDecodePlan<?>)listSpec.elementArg).internStrings();
+                        internArgs[pc] = new ListSpec(listSpec.size, OP_MESSAGE, elementPlan);
+                    }
+                    break;
+            }
+        }
+        return new RosDataDecodePlan<>(dataType, internOps, operands, internArgs, fixedSize, fieldOps, fieldArgs,
+                fieldOffsets);
+    }
+
+    private static Object projectNested(String name, int op, @Nullable Object arg, List<String> subPaths) {
+        if (op == OP_MESSAGE) {
+            //noinspection ConstantConditions
+            return ((RosDataDecodePlan<?>)arg).project(subPaths);
+        } else if (op == OP_LIST && ((ListSpec)arg).elementOp == OP_MESSAGE) {
+            ListSpec listSpec = (ListSpec)arg;
+            //noinspection ConstantConditions
+            RosDataDecodePlan<?> elementPlan = ((RosDataDecodePlan<?>)listSpec.elementArg).project(subPaths);
+            return new ListSpec(listSpec.size, OP_MESSAGE, elementPlan);
+        }
+        throw new IllegalArgumentException("Field has no nested fields to project: " + name);
+    }
+
+    int getStaticFieldOffset(int slot) {
+        return fieldOffsets[slot];
+    }
+
+    // the decode plan for a nested message field, or null if the field isn't one
+    @Nullable
+    RosDataDecodePlan<?> getFieldPlan(int slot) {
+        return fieldOps[slot] == OP_MESSAGE ? (RosDataDecodePlan<?>)fieldArgs[slot] : null;
+    }
+
+    @Nullable
+    FieldTypePrimitiveArray<?> getFieldArrayType(int slot) {
+        return fieldOps[slot] == OP_PRIM_ARRAY ? (FieldTypePrimitiveArray<?>)fieldArgs[slot] : null;
+    }
+
+    // decodes a single field starting at the buffer's position
+    @Nullable
+    Object readField(int slot, ByteBuffer buf) {
+        if (fieldOps[slot] == OP_STRING_LAZY && buf.hasArray()) { // views keep their frame, so it needn't be copied
+            int length = buf.getInt();
+            checkRemaining(buf, length);
+            RosLazyString value = new RosLazyString(buf.array(), buf.arrayOffset() + buf.position(), length);
+            buf.position(buf.position() + length);
+            return value;
+        }
+        return readValue(fieldOps[slot], fieldArgs[slot], buf, null);
+    }
+
+    // advances the buffer past a single field using only its length prefixes
+    void skipField(int slot, ByteBuffer buf) {
+        skipValue(fieldOps[slot], fieldArgs[slot], buf);
+    }
+
+    /**
+     * Advances a buffer past one whole serialized instance without decoding any of it.
+     */
+    public void skip(ByteBuffer buf) {
+        try {
+            if (fixedSize != -1) {
+                skipBytes(buf, fixedSize);
+                return;
+            }
+            for (int slot = 0; slot < fieldOps.length; slot++) {
+                skipValue(fieldOps[slot], fieldArgs[slot], buf);
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException(
+                    "Data frame truncated while skipping " + dataType.getDataClass().getSimpleName(), e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T decodeReusing(@Nullable Object reuse, ByteBuffer buf) {
+        // dynamic types all share a data class, so the type itself has to match too
+        if (!dataType.getDataClass().isInstance(reuse) || ((T)reuse).retrieveDataType() != dataType) {
+            return decode(buf);
+        }
+        decodeInto((T)reuse, buf);
+        return (T)reuse;
+    }
+
+    private static boolean isReusable(int op) {
+        return op == OP_MESSAGE || op == OP_PRIM_ARRAY || op == OP_LIST;
+    }
+
+    private static void readPrimitiveInto(int op, RosDataObject<?> dest, int slot, ByteBuffer buf) {
+        switch (op) {
+            case OP_BOOL:
+                dest.setBooleanFieldValue(slot, FieldTypeBool.TYPE.readBoolean(buf));
+                break;
+            case OP_INT8:
+                dest.setByteFieldValue(slot, FieldTypeInt8.TYPE.readByte(buf));
+                break;
+            case OP_INT16:
+                dest.setShortFieldValue(slot, FieldTypeInt16.TYPE.readShort(buf));
+                break;
+            case OP_INT32:
+                dest.setIntFieldValue(slot, FieldTypeInt32.TYPE.readInt(buf));
+                break;
+            case OP_INT64:
+                dest.setLongFieldValue(slot, FieldTypeInt64.TYPE.readLong(buf));
+                break;
+            case OP_FLOAT32:
+                dest.setFloatFieldValue(slot, FieldTypeFloat32.TYPE.readFloat(buf));
+                break;
+            case OP_FLOAT64:
+                dest.setDoubleFieldValue(slot, FieldTypeFloat64.TYPE.readDouble(buf));
+                break;
+            case OP_TIME:
+                dest.setPackedTimeFieldValue(slot, FieldTypeTime.TYPE.readPacked(buf));
+                break;
+            case OP_DURATION:
+                dest.setPackedTimeFieldValue(slot, FieldTypeDuration.TYPE.readPacked(buf));
+                break;
+            default:
+                throw new IllegalStateException("Bad decode plan opcode: " + op);
+        }
+    }
+
+    @Nullable
+    private static Object readValue(int op, @Nullable Object arg, ByteBuffer buf, @Nullable Object reuse) {
+        switch (op) {
+            case OP_BOOL:
+                return FieldTypeBool.TYPE.readBoolean(buf);
+            case OP_INT8:
+                return FieldTypeInt8.TYPE.readByte(buf);
+            case OP_INT16:
+                return FieldTypeInt16.TYPE.readShort(buf);
+            case OP_INT32:
+                return FieldTypeInt32.TYPE.readInt(buf);
+            case OP_INT64:
+                return FieldTypeInt64.TYPE.readLong(buf);
+            case OP_FLOAT32:
+                return FieldTypeFloat32.TYPE.readFloat(buf);
+            case OP_FLOAT64:
+                return FieldTypeFloat64.TYPE.readDouble(buf);
+            case OP_STRING:
+                return readString(buf, null);
+            case OP_STRING_INTERN:
+                return readString(buf, (RosStringInternCache)arg);
+            case OP_STRING_LAZY:
+                int length = buf.getInt();
+                checkRemaining(buf, length);
+                byte[] strBytes = new byte[length];
+                buf.get(strBytes);
+                return new RosLazyString(strBytes, 0, length);
+            case OP_TIME:
+                return FieldTypeTime.TYPE.unpack(FieldTypeTime.TYPE.readPacked(buf));
+            case OP_DURATION:
+                return FieldTypeDuration.TYPE.unpack(FieldTypeDuration.TYPE.readPacked(buf));
+            case OP_MESSAGE:
+                //noinspection ConstantConditions
+                return ((RosDataDecodePlan<?>)arg).decodeReusing(reuse, buf);
+            case OP_PRIM_ARRAY:
+                //noinspection ConstantConditions
+                return ((FieldTypePrimitiveArray<?>)arg).decodeFrom(buf, reuse);
+            case OP_LIST:
+                //noinspection ConstantConditions
+                return ((ListSpec)arg).read(buf, reuse);
+            case OP_GENERIC:
+                //noinspection ConstantConditions
+                return readGeneric((RosDataFieldType<?>)arg, buf);
+            default:
+                throw new IllegalStateException("Bad decode plan opcode: " + op);
+        }
+    }
+
+    private static void skipValue(int op, @Nullable Object arg, ByteBuffer buf) {
+        int size = Compiler.getFixedSize(op, arg);
+        if (size != -1) {
+            skipBytes(buf, size);
+            return;
+        }
+        switch (op) {
+            case OP_STRING:
+            case OP_STRING_INTERN:
+            case OP_STRING_LAZY:
+                skipBytes(buf, buf.getInt());
+                break;
+            case OP_MESSAGE:
+                //noinspection ConstantConditions
+                ((RosDataDecodePlan<?>)arg).skip(buf);
+                break;
+            case OP_PRIM_ARRAY: // must be variable-size, since fixed-size ones were handled above
+                //noinspection ConstantConditions
+                skipElements(buf, buf.getInt(), ((FieldTypePrimitiveArray<?>)arg).getElementSize());
+                break;
+            case OP_LIST:
+                //noinspection ConstantConditions
+                ((ListSpec)arg).skip(buf);
+                break;
+            default: // nothing to go on but the field type's own deserializer
+                //noinspection ConstantConditions
+                readGeneric((RosDataFieldType<?>)arg, buf);
+                break;
+        }
+    }
+
+    private static void skipBytes(ByteBuffer buf, int length) {
+        checkRemaining(buf, length);
+        buf.position(buf.position() + length);
+    }
+
+    // the length comes off the wire, so the byte count is worked out in long where a huge one can't wrap around
+    private static void skipElements(ByteBuffer buf, int count, int elementSize) {
+        long length = (long)count * elementSize;
+        if (count < 0 || length > buf.remaining()) {
+            throw new IllegalArgumentException("Data frame truncated: expected " + length + " bytes but only "
+                    + buf.remaining() + " remain!");
+        }
+        buf.position(buf.position() + (int)length);
+    }
+
+    // fallback for field types the plan doesn't know about; runs their chain over the frame instead
+    @Nullable
+    private static Object readGeneric(RosDataFieldType<?> fieldType, ByteBuffer buf) {
+        Object[] result = new Object[1];
+        DeserChainUtils.runToCompletion(fieldType.linkDeserializer(null, value -> result[0] = value), buf);
+        return result[0];
+    }
+
+    private static String readString(ByteBuffer buf, @Nullable RosStringInternCache cache) {
+        int length = buf.getInt();
+        checkRemaining(buf, length);
+        return cache != null ? cache.read(buf, length) : decodeAscii(buf, length);
+    }
+
+    // the caller has already checked that the bytes are there
+    static String decodeAscii(ByteBuffer buf, int length) {
+        String value;
+        if (buf.hasArray()) {
+            value = new String(buf.array(), buf.arrayOffset() + buf.position(), length, StandardCharsets.US_ASCII);
+            buf.position(buf.position() + length);
+        } else {
+            byte[] strBytes = new byte[length];
+            buf.get(strBytes);
+            value = new String(strBytes, StandardCharsets.US_ASCII);
+        }
+        return value;
+    }
+
+    private static void checkRemaining(ByteBuffer buf, int length) {
+        if (length < 0 || buf.remaining() < length) {
+            throw new IllegalArgumentException("Data frame truncated: expected " + length + " bytes but only "
+                    + buf.remaining() + " remain!");
+        }
+    }
+
+    private static class ListSpec {
+
+        final int size, elementOp;
+        @Nullable
+        final Object elementArg;
+
+        ListSpec(int size, int elementOp, @Nullable Object elementArg) {
+            this.size = size;
+            this.elementOp = elementOp;
+            this.elementArg = elementArg;
+        }
+
+        List<Object> read(ByteBuffer buf, @Nullable Object reuse) {
+            int length = size != FieldTypePrimitiveArray.VARIABLE_SIZE ? size : buf.getInt();
+            if (length < 0) {
+                throw new IllegalArgumentException("Negative array length in data frame: " + length);
+            } else if (size == FieldTypePrimitiveArray.VARIABLE_SIZE
+                    && length > buf.remaining() / Math.max(Compiler.getFixedSize(elementOp, elementArg), 1)) {
+                // checked before allocating anything, since the length hasn't been validated against the frame yet
+                throw new IllegalArgumentException("Data frame truncated while reading array of length " + length);
+            }
+            DecodedList list;
+            if (reuse instanceof DecodedList && ((DecodedList)reuse).elements.length >= length) {
+                list = (DecodedList)reuse;
+            } else {
+                list = new DecodedList(new Object[length]);
+            }
+            // elements past the old length are left in the backing array, so their storage can be reused later too
+            Object[] elements = list.elements;
+            boolean reuseElements = isReusable(elementOp);
+            for (int i = 0; i < length; i++) {
+                elements[i] = readValue(elementOp, elementArg, buf, reuseElements ? elements[i] : null);
+            }
+            list.size = length;
+            return list;
+        }
+
+        void skip(ByteBuffer buf) {
+            int length = size != FieldTypePrimitiveArray.VARIABLE_SIZE ? size : buf.getInt();
+            if (length < 0) {
+                throw new IllegalArgumentException("Negative array length in data frame: " + length);
+            }
+            int elementSize = Compiler.getFixedSize(elementOp, elementArg);
+            if (elementSize != -1) {
+                skipElements(buf, length, elementSize);
+            } else {
+                for (int i = 0; i < length; i++) {
+                    skipValue(elementOp, elementArg, buf);
+                }
+            }
+        }
+
+    }
+
+    private static class SkipSpec {
+
+        final int op;
+        @Nullable
+        final Object arg;
+        final RosDataFieldType<?> fieldType;
+
+        SkipSpec(int op, @Nullable Object arg, RosDataFieldType<?> fieldType) {
+            this.op = op;
+            this.arg = arg;
+            this.fieldType = fieldType;
+        }
+
+    }
+
+    // only lists made by the decoder are reused, since anything else might be shared or immutable
+    private static class DecodedList extends AbstractList<Object> implements RandomAccess {
+
+        final Object[] elements;
+        int size;
+
+        DecodedList(Object[] elements) {
+            this.elements = elements;
+            this.size = elements.length;
+        }
+
+        @Override
+        public Object get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+            }
+            return elements[index];
+        }
+
+        @Override
+        public Object set(int index, Object element) {
+            Object prev = get(index);
+            elements[index] = element;
+            return prev;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+    }
+
+    private static class Compiler {
+
+        private final List<Integer> ops = new ArrayList<>(), operands = new ArrayList<>();
+        private final List<Object> args = new ArrayList<>();
+        private final List<Integer> fieldOps = new ArrayList<>(), fieldOffsets = new ArrayList<>();
+        private final List<Object> fieldArgs = new ArrayList<>();
+        private int runCheckIndex = -1;
+        private int totalFixedSize = 0;
+
+        void addField(int slot, RosDataFieldType<?> fieldType, boolean lazyString) {
+            int op = lazyString ? OP_STRING_LAZY : getOp(fieldType);
+            Object arg = getArg(op, fieldType);
+            int size = getFixedSize(op, arg);
+            fieldOps.add(op);
+            fieldArgs.add(arg);
+            fieldOffsets.add(totalFixedSize); // already -1 if anything before this was variable-size
+            if (size >= 0) {
+                if (runCheckIndex == -1) { // one bounds check covers each run of fixed-size fields
+                    runCheckIndex = ops.size();
+                    emit(OP_CHECK, 0, null);
+                }
+                operands.set(runCheckIndex, operands.get(runCheckIndex) + size);
+                if (totalFixedSize != -1) {
+                    totalFixedSize += size;
+                }
+            } else {
+                runCheckIndex = -1;
+                totalFixedSize = -1;
+            }
+            emit(op, slot, arg);
+        }
+
+        private void emit(int op, int operand, @Nullable Object arg) {
+            ops.add(op);
+            operands.add(operand);
+            args.add(arg);
+        }
+
+        <T extends RosData<T>> RosDataDecodePlan<T> build(RosDataType<T> dataType) {
+            return new RosDataDecodePlan<>(dataType, ops.stream().mapToInt(Integer::intValue).toArray(),
+                    operands.stream().mapToInt(Integer::intValue).toArray(), args.toArray(), totalFixedSize,
+                    fieldOps.stream().mapToInt(Integer::intValue).toArray(), fieldArgs.toArray(),
+                    fieldOffsets.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        private static int getOp(RosDataFieldType<?> fieldType) {
+            if (fieldType == FieldTypeBool.TYPE) {
+                return OP_BOOL;
+            } else if (fieldType == FieldTypeInt8.TYPE) {
+                return OP_INT8;
+            } else if (fieldType == FieldTypeInt16.TYPE) {
+                return OP_INT16;
+            } else if (fieldType == FieldTypeInt32.TYPE) {
+                return OP_INT32;
+            } else if (fieldType == FieldTypeInt64.TYPE) {
+                return OP_INT64;
+            } else if (fieldType == FieldTypeFloat32.TYPE) {
+                return OP_FLOAT32;
+            } else if (fieldType == FieldTypeFloat64.TYPE) {
+                return OP_FLOAT64;
+            } else if (fieldType == FieldTypeString.TYPE) {
+                return OP_STRING;
+            } else if (fieldType == FieldTypeTime.TYPE) {
+                return OP_TIME;
+            } else if (fieldType == FieldTypeDuration.TYPE) {
+                return OP_DURATION;
+            } else if (fieldType instanceof FieldTypeMessage) {
+                return OP_MESSAGE;
+            } else if (fieldType instanceof FieldTypePrimitiveArray) {
+                return OP_PRIM_ARRAY;
+            } else if (fieldType instanceof FieldTypeArrayFixed || fieldType instanceof FieldTypeArrayVariable) {
+                return OP_LIST;
+            }
+            return OP_GENERIC;
+        }
+
+        @Nullable
+        private static Object getArg(int op, RosDataFieldType<?> fieldType) {
+            switch (op) {
+                case OP_MESSAGE:
+                    return ((FieldTypeMessage<?>)fieldType).getMessageType().getDataType().getDecodePlan();
+                case OP_PRIM_ARRAY:
+                case OP_GENERIC:
+                    return fieldType;
+                case OP_LIST:
+                    RosDataFieldType<?> elementType;
+                    int size;
+                    if (fieldType instanceof FieldTypeArrayFixed) {
+                        elementType = ((FieldTypeArrayFixed<?>)fieldType).getElementType();
+                        size = ((FieldTypeArrayFixed<?>)fieldType).getSize();
+                    } else {
+                        elementType = ((FieldTypeArrayVariable<?>)fieldType).getElementType();
+                        size = FieldTypePrimitiveArray.VARIABLE_SIZE;
+                    }
+                    int elementOp = getOp(elementType);
+                    return new ListSpec(size, elementOp, getArg(elementOp, elementType));
+                default:
+                    return null;
+            }
+        }
+
+        private static int getFixedSize(int op, @Nullable Object arg) {
+            switch (op) {
+                case OP_BOOL:
+                case OP_INT8:
+                    return 1;
+                case OP_INT16:
+                    return 2;
+                case OP_INT32:
+                case OP_FLOAT32:
+                    return 4;
+                case OP_INT64:
+                case OP_FLOAT64:
+                case OP_TIME:
+                case OP_DURATION:
+                    return 8;
+                case OP_MESSAGE:
+                    //noinspection ConstantConditions
+                    return ((RosDataDecodePlan<?>)arg).getFixedSize();
+                case OP_PRIM_ARRAY:
+                    FieldTypePrimitiveArray<?> arrType = (FieldTypePrimitiveArray<?>)arg;
+                    //noinspection ConstantConditions
+                    return arrType.isFixedSize() ? arrType.getSize() * arrType.getElementSize() : -1;
+                case OP_LIST:
+                    ListSpec listSpec = (ListSpec)arg;
+                    //noinspection ConstantConditions
+                    if (listSpec.size == FieldTypePrimitiveArray.VARIABLE_SIZE) {
+                        return -1;
+                    }
+                    int elementSize = getFixedSize(listSpec.elementOp, listSpec.elementArg);
+                    return elementSize >= 0 ? listSpec.size * elementSize : -1;
+                default:
+                    return -1;
+            }
+        }
+
+    }
+
+}
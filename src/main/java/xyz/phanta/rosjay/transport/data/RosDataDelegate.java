@@ -1,6 +1,7 @@
 package xyz.phanta.rosjay.transport.data;
 
 import xyz.phanta.rosjay.transport.data.field.RosDataField;
+import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
 import xyz.phanta.rosjay.transport.data.field.impl.FieldTypeHeader;
 import xyz.phanta.rosjay.rospkg.std_msgs.Header;
 import xyz.phanta.rosjay.util.deserchain.DeserializationChain;
@@ -8,11 +9,11 @@ import xyz.phanta.rosjay.util.deserchain.DeserializationChain;
 import javax.annotation.Nullable;
 import java.io.DataOutput;
 import java.lang.reflect.InvocationHandler;
-import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.time.Instant;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Objects;
 
 class RosDataDelegate<T extends RosData<T>> implements InvocationHandler {
 
@@ -28,6 +29,15 @@ class RosDataDelegate<T extends RosData<T>> implements InvocationHandler {
         }
     }
 
+    @Nullable
+    Object getProperty(int index) {
+        return properties.get(factory.getProperty(index).getName());
+    }
+
+    void setProperty(int index, @Nullable Object value) {
+        properties.put(factory.getProperty(index).getName(), value);
+    }
+
     @Nullable
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
@@ -50,6 +60,19 @@ class RosDataDelegate<T extends RosData<T>> implements InvocationHandler {
         try {
             METHOD_PROXIES.put(RosData.class.getDeclaredMethod("retrieveDataType"),
                     (instance, args) -> instance.factory.getDataType());
+            METHOD_PROXIES.put(RosData.class.getDeclaredMethod("computeSerializedSize"),
+                    (instance, args) -> {
+                        int size = instance.factory.getDataType().getFixedSize();
+                        if (size != RosDataFieldType.VARIABLE_SIZE) {
+                            return size;
+                        }
+                        size = 0;
+                        for (RosDataField prop : instance.factory.getProperties()) {
+                            //noinspection unchecked
+                            size += prop.getType().computeSize(instance.properties.get(prop.getName()));
+                        }
+                        return size;
+                    });
             METHOD_PROXIES.put(RosData.class.getDeclaredMethod("serializeData", DataOutput.class, Integer.TYPE),
                     (instance, args) -> {
                         DataOutput dest = (DataOutput)args[0];
@@ -57,8 +80,7 @@ class RosDataDelegate<T extends RosData<T>> implements InvocationHandler {
                             RosDataField prop = instance.factory.getProperty(i);
                             if (prop.getType() instanceof FieldTypeHeader && i == 0) {
                                 Header header = (Header)instance.properties.get(prop.getName());
-                                header.setSeq((int)args[1]);
-                                header.setStamp(Instant.now());
+                                RosDataType.stampHeader(header, (int)args[1]);
                                 FieldTypeHeader.TYPE.serializeField(header, dest, 0);
                             } else {
                                 //noinspection unchecked
@@ -77,24 +99,25 @@ class RosDataDelegate<T extends RosData<T>> implements InvocationHandler {
                         }
                         return deser;
                     });
+            // the same field-ordered scheme as data objects and views, so all three hash and compare interchangeably
             METHOD_PROXIES.put(Object.class.getDeclaredMethod("hashCode"),
-                    (instance, args) -> instance.properties.hashCode());
+                    (instance, args) -> {
+                        int hash = instance.factory.getDataType().hashCode();
+                        for (int i = 0; i < instance.factory.getProperties().size(); i++) {
+                            hash = hash * 31 + Arrays.deepHashCode(new Object[] {instance.getProperty(i)});
+                        }
+                        return hash;
+                    });
             METHOD_PROXIES.put(Object.class.getDeclaredMethod("equals", Object.class),
                     (instance, args) -> {
                         Object o = args[0];
-                        if (!instance.factory.getDataClass().isInstance(o)) {
+                        RosDataType<?> dataType = instance.factory.getDataType();
+                        if (!instance.factory.getDataClass().isInstance(o)
+                                || ((RosData<?>)o).retrieveDataType() != dataType) {
                             return false;
                         }
-                        for (Map.Entry<Method, RosDataDelegateFactory.DataDelegateAccessor> propEntry
-                                : instance.factory.getDelegateMap().entrySet()) {
-                            RosDataDelegateFactory.DataDelegateAccessor accessor = propEntry.getValue();
-                            try {
-                                if (accessor instanceof RosDataDelegateFactory.DataDelegateGetter
-                                        && !((RosDataDelegateFactory.DataDelegateGetter)accessor).getValue(instance.properties)
-                                        .equals(propEntry.getKey().invoke(o))) {
-                                    return false;
-                                }
-                            } catch (IllegalAccessException | InvocationTargetException e) {
+                        for (int i = 0; i < instance.factory.getProperties().size(); i++) {
+                            if (!Objects.deepEquals(instance.getProperty(i), getFieldValue(dataType, o, i))) {
                                 return false;
                             }
                         }
@@ -107,6 +130,12 @@ class RosDataDelegate<T extends RosData<T>> implements InvocationHandler {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    @Nullable
+    private static <T extends RosData<T>> Object getFieldValue(RosDataType<T> dataType, Object instance, int index) {
+        return dataType.getFieldValue((T)instance, index);
+    }
+
     @FunctionalInterface
     private interface MethodProxy {
 
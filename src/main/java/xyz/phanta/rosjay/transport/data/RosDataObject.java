@@ -0,0 +1,159 @@
+package xyz.phanta.rosjay.transport.data;
+
+import xyz.phanta.rosjay.rospkg.std_msgs.Header;
+import xyz.phanta.rosjay.transport.data.field.RosDataField;
+import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.transport.data.field.RosPrimitiveFieldType;
+import xyz.phanta.rosjay.transport.data.field.impl.FieldTypeHeader;
+import xyz.phanta.rosjay.util.deserchain.DeserializationChain;
+
+import javax.annotation.Nullable;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+// base class for the concrete data classes from RosDataClassGenerator and RosPackageCodeGenerator; must stay public
+public abstract class RosDataObject<T extends RosData<T>> implements RosData<T> {
+
+    private final RosDataType<T> dataType;
+    private final List<RosDataField<?>> fields;
+
+    protected RosDataObject(RosDataType<T> dataType) {
+        this.dataType = dataType;
+        this.fields = dataType.getFields();
+    }
+
+    @Override
+    public RosDataType<T> retrieveDataType() {
+        return dataType;
+    }
+
+    protected abstract RosDataObject<T> createSibling();
+
+    @Nullable
+    protected abstract Object getFieldValue(int index);
+
+    protected abstract void setFieldValue(int index, @Nullable Object value);
+
+    // unboxed setters for the decoder; subclasses override these for fields kept in primitive slots
+    protected void setBooleanFieldValue(int index, boolean value) {
+        setFieldValue(index, value);
+    }
+
+    protected void setByteFieldValue(int index, byte value) {
+        setFieldValue(index, value);
+    }
+
+    protected void setShortFieldValue(int index, short value) {
+        setFieldValue(index, value);
+    }
+
+    protected void setIntFieldValue(int index, int value) {
+        setFieldValue(index, value);
+    }
+
+    protected void setLongFieldValue(int index, long value) {
+        setFieldValue(index, value);
+    }
+
+    protected void setFloatFieldValue(int index, float value) {
+        setFieldValue(index, value);
+    }
+
+    protected void setDoubleFieldValue(int index, double value) {
+        setFieldValue(index, value);
+    }
+
+    // for time and duration fields, with the value packed as by RosTime
+    protected void setPackedTimeFieldValue(int index, long value) {
+        setFieldValue(index, ((RosPrimitiveFieldType.OfPackedTime<?>)fields.get(index).getType()).unpack(value));
+    }
+
+    protected final Object getDefaultFieldValue(int index) {
+        return fields.get(index).getType().getDefaultValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    protected final <V> RosDataFieldType<V> getFieldType(int index) {
+        return (RosDataFieldType<V>)fields.get(index).getType();
+    }
+
+    @Override
+    public int computeSerializedSize() {
+        int size = dataType.getFixedSize();
+        if (size != RosDataFieldType.VARIABLE_SIZE) {
+            return size;
+        }
+        size = 0;
+        for (int i = 0; i < fields.size(); i++) {
+            RosDataFieldType<Object> type = getFieldType(i);
+            int fieldSize = type.getFixedSize();
+            // fixed-size fields are skipped without reading them, which spares boxing primitive ones
+            size += fieldSize != RosDataFieldType.VARIABLE_SIZE ? fieldSize : type.computeSize(getFieldValue(i));
+        }
+        return size;
+    }
+
+    protected final void serializeObjectField(int index, Object value, DataOutput dest, int seqIndex) throws IOException {
+        if (index == 0 && fields.get(index).getType() instanceof FieldTypeHeader) {
+            Header header = (Header)value;
+            RosDataType.stampHeader(header, seqIndex);
+            FieldTypeHeader.TYPE.serializeField(header, dest, 0);
+        } else {
+            this.<Object>getFieldType(index).serializeField(value, dest, 0);
+        }
+    }
+
+    protected final IndexOutOfBoundsException noSuchField(int index) {
+        return new IndexOutOfBoundsException("No such field index for " + dataType.getDataClass().getSimpleName() + ": " + index);
+    }
+
+    @Override
+    public DeserializationChain linkDeserializer(@Nullable DeserializationChain next) {
+        for (int i = fields.size() - 1; i >= 0; i--) {
+            int index = i;
+            next = fields.get(i).getType().linkDeserializer(next, value -> setFieldValue(index, value));
+        }
+        return next;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = dataType.hashCode();
+        for (int i = 0; i < fields.size(); i++) {
+            hash = hash * 31 + Arrays.deepHashCode(new Object[] {getFieldValue(i)});
+        }
+        return hash;
+    }
+
+    // field by field through the data type, so instances compare equal to views of the same data and vice versa
+    @SuppressWarnings("unchecked")
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof RosData) || ((RosData<?>)obj).retrieveDataType() != dataType) {
+            return false;
+        }
+        for (int i = 0; i < fields.size(); i++) {
+            if (!Objects.deepEquals(getFieldValue(i), dataType.getFieldValue((T)obj, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(dataType.getDataClass().getSimpleName()).append(" {");
+        for (int i = 0; i < fields.size(); i++) {
+            if (i != 0) {
+                sb.append(", ");
+            }
+            String valueStr = Arrays.deepToString(new Object[] {getFieldValue(i)});
+            sb.append(fields.get(i).getName()).append("=").append(valueStr, 1, valueStr.length() - 1);
+        }
+        return sb.append("}").toString();
+    }
+
+}
@@ -0,0 +1,46 @@
+package xyz.phanta.rosjay.transport.data;
+
+import xyz.phanta.rosjay.util.RosDataQueue;
+
+/**
+ * A bounded, thread-safe pool of spare instances of one data type. Incoming messages are decoded into pooled
+ * instances when there are any, reusing their nested messages and array storage along the way.
+ * <p>
+ * Nothing is ever put back automatically unless a subscriber opts into recycling. Anything released to the pool may
+ * be overwritten at any time afterwards, so it must not be touched again by whoever released it.
+ */
+public class RosDataPool<T extends RosData<T>> {
+
+    public static final int DEFAULT_CAPACITY = 32;
+
+    private final RosDataType<T> dataType;
+    // overwriting the oldest spare when full just leaves it to the garbage collector
+    private final RosDataQueue<T> spares;
+
+    RosDataPool(RosDataType<T> dataType, int capacity) {
+        this.dataType = dataType;
+        this.spares = RosDataQueue.multiProducer(capacity);
+    }
+
+    public RosDataType<T> getDataType() {
+        return dataType;
+    }
+
+    /**
+     * Takes a spare instance, or creates a new one if there are none. Spares still hold whatever they held when they
+     * were released.
+     */
+    public T acquire() {
+        T instance = spares.poll();
+        return instance != null ? instance : dataType.newInstance();
+    }
+
+    public void release(T instance) {
+        spares.offer(instance);
+    }
+
+    public int getSpareCount() {
+        return spares.getCount();
+    }
+
+}
@@ -1,29 +1,120 @@
 package xyz.phanta.rosjay.transport.data;
 
+import xyz.phanta.rosjay.rospkg.std_msgs.Header;
+import xyz.phanta.rosjay.transport.data.field.RosDataField;
+import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.transport.data.field.impl.FieldTypeArrayFixed;
+import xyz.phanta.rosjay.transport.data.field.impl.FieldTypeArrayVariable;
+import xyz.phanta.rosjay.transport.data.field.impl.FieldTypePrimitiveArray;
 import xyz.phanta.rosjay.transport.spec.DataTypeSpecification;
+import xyz.phanta.rosjay.util.RosTime;
+import xyz.phanta.rosjay.util.RosUtils;
 
+import javax.annotation.Nullable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 public class RosDataType<T extends RosData<T>> {
 
     private static final Map<Class, RosDataType> dataTypeCache = new HashMap<>();
+    private static final int HEADER_STAMP_INDEX = 1; // after seq
 
-    @SuppressWarnings("unchecked")
     public static <T extends RosData<T>> RosDataType<T> resolve(Class<T> dataClass,
                                                                 Supplier<DataTypeSpecification> typeSpecProvider) {
-        return dataTypeCache.computeIfAbsent(dataClass, k -> new RosDataType(dataClass, typeSpecProvider.get()));
+        return resolve(dataClass, typeSpecProvider, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T extends RosData<T>> RosDataType<T> resolve(Class<T> dataClass,
+                                                                Supplier<DataTypeSpecification> typeSpecProvider,
+                                                                @Nullable Function<RosDataType<T>, ? extends T> implFactory) {
+        RosDataType<T> dataType = dataTypeCache.get(dataClass);
+        if (dataType == null) { // resolving the spec can recursively resolve other data types, so no computeIfAbsent
+            dataType = new RosDataType<>(dataClass, typeSpecProvider.get(), implFactory);
+            dataTypeCache.put(dataClass, dataType);
+        }
+        return dataType;
     }
 
     private final Class<T> dataClass;
     private final DataTypeSpecification typeSpec;
+    private final List<RosDataField<?>> fields;
     private final Supplier<T> factory;
+    @Nullable
+    private volatile RosDataDecodePlan<T> decodePlan = null;
+    @Nullable
+    private volatile RosDataPool<T> instancePool = null;
+    @Nullable
+    private volatile RosDataViewFactory<T> viewFactory = null;
 
-    private RosDataType(Class<T> dataClass, DataTypeSpecification typeSpec) {
+    // dynamic types share a data class, so they're constructed directly rather than cached by it
+    RosDataType(Class<T> dataClass, DataTypeSpecification typeSpec,
+                @Nullable Function<RosDataType<T>, ? extends T> implFactory) {
         this.dataClass = dataClass;
         this.typeSpec = typeSpec;
-        this.factory = new RosDataDelegateFactory<>(this, typeSpec.getDataFields());
+        this.fields = resolveFields(dataClass, typeSpec.getDataFields());
+        if (implFactory != null) { // precompiled implementation from the build-time generator
+            this.factory = () -> implFactory.apply(this);
+        } else {
+            Supplier<T> generatedFactory = RosDataClassFactory.tryCreate(this, fields);
+            this.factory = generatedFactory != null ? generatedFactory : new RosDataDelegateFactory<>(this, fields);
+        }
+    }
+
+    // primitive arrays are only kept as java arrays if the data interface declares them that way; otherwise, they're
+    // read and written as boxed lists, like any other array
+    private static List<RosDataField<?>> resolveFields(Class<?> dataClass, List<RosDataField<?>> specFields) {
+        if (!dataClass.isInterface()) {
+            return specFields;
+        }
+        List<RosDataField<?>> fields = null;
+        for (int i = 0; i < specFields.size(); i++) {
+            RosDataField<?> field = specFields.get(i);
+            if (!(field.getType() instanceof FieldTypePrimitiveArray)) {
+                continue;
+            }
+            FieldTypePrimitiveArray<?> arrayType = (FieldTypePrimitiveArray<?>)field.getType();
+            Class<?> accessType = getAccessType(dataClass, field.getName());
+            if (accessType == null || accessType == arrayType.getArrayClass()) {
+                continue;
+            } else if (!accessType.isAssignableFrom(List.class)) {
+                throw new IllegalArgumentException("Field " + field.getName() + " of " + dataClass.getName()
+                        + " must be accessed as " + arrayType.getArrayClass().getSimpleName() + " or a List");
+            }
+            if (fields == null) {
+                fields = new ArrayList<>(specFields);
+            }
+            RosDataFieldType<?> listType;
+            if (arrayType.isFixedSize()) {
+                listType = new FieldTypeArrayFixed<>(arrayType.getElementType(), arrayType.getSize());
+            } else {
+                listType = new FieldTypeArrayVariable<>(arrayType.getElementType());
+            }
+            fields.set(i, new RosDataField<>(field.getName(), listType));
+        }
+        return fields != null ? Collections.unmodifiableList(fields) : specFields;
+    }
+
+    @Nullable
+    private static Class<?> getAccessType(Class<?> dataClass, String fieldName) {
+        String accessorSuffix = RosUtils.snakeToPascal(fieldName);
+        for (Method method : dataClass.getMethods()) {
+            if (method.getName().equals("get" + accessorSuffix) && method.getParameterCount() == 0) {
+                return method.getReturnType();
+            } else if (method.getName().equals("set" + accessorSuffix) && method.getParameterCount() == 1) {
+                return method.getParameterTypes()[0];
+            }
+        }
+        return null;
     }
 
     public Class<T> getDataClass() {
@@ -34,8 +125,100 @@ public class RosDataType<T extends RosData<T>> {
         return typeSpec;
     }
 
+    /**
+     * The fields as this type reads and writes them. These are the specification's fields, except that primitive
+     * arrays the data interface exposes as {@link List}s are handled as lists of boxed values.
+     */
+    public List<RosDataField<?>> getFields() {
+        return fields;
+    }
+
+    /**
+     * @see DataTypeSpecification#getFixedSize()
+     */
+    public int getFixedSize() {
+        return typeSpec.getFixedSize();
+    }
+
     public T newInstance() {
         return factory.get();
     }
 
+    public RosDataDecodePlan<T> getDecodePlan() {
+        RosDataDecodePlan<T> plan = decodePlan;
+        if (plan == null) { // compiling twice on a race is harmless, since plans are immutable
+            plan = decodePlan = RosDataDecodePlan.compile(this);
+        }
+        return plan;
+    }
+
+    public RosDataPool<T> getInstancePool() {
+        RosDataPool<T> pool = instancePool;
+        if (pool == null) {
+            synchronized (this) { // unlike plans, pools hold state, so there must only ever be one
+                pool = instancePool;
+                if (pool == null) {
+                    pool = instancePool = new RosDataPool<>(this, RosDataPool.DEFAULT_CAPACITY);
+                }
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Wraps a complete little-endian data frame in a lazily-decoded {@link RosDataView}. The frame is read from its
+     * current position, and must not be modified for as long as the view is in use.
+     *
+     * @throws UnsupportedOperationException If the type has no data interface for the view to implement.
+     */
+    public T newView(ByteBuffer frame) {
+        if (!dataClass.isInterface()) {
+            throw new UnsupportedOperationException("No data interface to view as: " + typeSpec.getSource().getId());
+        }
+        return getViewFactory().wrap(frame);
+    }
+
+    RosDataViewFactory<T> getViewFactory() {
+        RosDataViewFactory<T> factory = viewFactory;
+        if (factory == null) { // like plans, building two on a race is harmless
+            factory = viewFactory = new RosDataViewFactory<>(this);
+        }
+        return factory;
+    }
+
+    @Nullable
+    Object getFieldValue(T instance, int index) {
+        if (instance instanceof RosDataObject) {
+            return ((RosDataObject<?>)instance).getFieldValue(index);
+        }
+        InvocationHandler handler = Proxy.getInvocationHandler(instance);
+        if (handler instanceof RosDataView) {
+            return ((RosDataView<?>)handler).getFieldValue(index);
+        }
+        return ((RosDataDelegate<?>)handler).getProperty(index);
+    }
+
+    void setFieldValue(T instance, int index, @Nullable Object value) {
+        if (instance instanceof RosDataObject) {
+            ((RosDataObject<?>)instance).setFieldValue(index, value);
+            return;
+        }
+        InvocationHandler handler = Proxy.getInvocationHandler(instance);
+        if (handler instanceof RosDataView) {
+            ((RosDataView<?>)handler).setFieldValue(index, value);
+        } else {
+            ((RosDataDelegate<?>)handler).setProperty(index, value);
+        }
+    }
+
+    // stamps a header on its way out; without allocating, if the header keeps its stamp packed
+    static void stampHeader(Header header, int seqIndex) {
+        header.setSeq(seqIndex);
+        if (header instanceof RosDataObject) {
+            ((RosDataObject<?>)header).setPackedTimeFieldValue(HEADER_STAMP_INDEX, RosTime.now());
+        } else {
+            header.setStamp(RosTime.toInstant(RosTime.now()));
+        }
+    }
+
 }
@@ -0,0 +1,297 @@
+package xyz.phanta.rosjay.transport.data;
+
+import xyz.phanta.rosjay.rospkg.std_msgs.Header;
+import xyz.phanta.rosjay.transport.data.field.RosDataField;
+import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.transport.data.field.impl.FieldTypeHeader;
+import xyz.phanta.rosjay.transport.data.field.impl.FieldTypePrimitiveArray;
+
+import javax.annotation.Nullable;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * A lazily-decoded message backed by the frame it was received in. Each field is decoded the first time it's read and
+ * cached from then on; offsets past variable-size fields are found by skipping over length prefixes, also only once.
+ * Nested messages are views themselves, so reading {@code getHeader().getStamp()} decodes nothing but the stamp.
+ * <p>
+ * Fields can still be set, and serializing a view copies every field that was never touched straight from the frame.
+ */
+public final class RosDataView<T extends RosData<T>> implements InvocationHandler {
+
+    /**
+     * Gets the view behind a message, if it is one.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public static <T extends RosData<T>> RosDataView<T> of(T data) {
+        if (Proxy.isProxyClass(data.getClass())) {
+            InvocationHandler handler = Proxy.getInvocationHandler(data);
+            if (handler instanceof RosDataView) {
+                return (RosDataView<T>)handler;
+            }
+        }
+        return null;
+    }
+
+    private static final Object UNDECODED = new Object();
+
+    private final RosDataViewFactory<T> factory;
+    private final RosDataDecodePlan<T> plan;
+    private final ByteBuffer frame;
+    // one extra offset at the end, which is where the message stops
+    private final int[] offsets;
+    private final Object[] values;
+    private int decodedCount = 0;
+
+    RosDataView(RosDataViewFactory<T> factory, ByteBuffer frame) {
+        this.factory = factory;
+        this.plan = factory.getPlan();
+        this.frame = frame;
+        int fieldCount = factory.getFields().size();
+        this.offsets = new int[fieldCount + 1];
+        for (int i = 0; i < fieldCount; i++) {
+            offsets[i] = plan.getStaticFieldOffset(i);
+        }
+        offsets[fieldCount] = plan.getFixedSize();
+        this.values = new Object[fieldCount];
+        Arrays.fill(values, UNDECODED);
+    }
+
+    public RosDataType<T> getDataType() {
+        return factory.getDataType();
+    }
+
+    /**
+     * The whole message as it was received. This never reflects fields that have since been set.
+     */
+    public synchronized ByteBuffer getFrame() {
+        return slice(0, offsetOf(offsets.length - 1));
+    }
+
+    /**
+     * The serialized bytes of one field as they were received. For primitive arrays, this covers only the elements,
+     * without any length prefix, so it can be read directly with e.g. {@link ByteBuffer#asFloatBuffer()}.
+     */
+    public synchronized ByteBuffer getFieldSlice(String fieldName) {
+        List<RosDataField<?>> fields = factory.getFields();
+        for (int i = 0; i < fields.size(); i++) {
+            if (fields.get(i).getName().equals(fieldName)) {
+                return getFieldSlice(i);
+            }
+        }
+        throw new IllegalArgumentException("No such field in " + getDataType().getDataClass().getSimpleName() + ": "
+                + fieldName);
+    }
+
+    private ByteBuffer getFieldSlice(int slot) {
+        int start = offsetOf(slot);
+        FieldTypePrimitiveArray<?> arrType = plan.getFieldArrayType(slot);
+        if (arrType != null) {
+            int length = arrType.isFixedSize() ? arrType.getSize() : at(start).getInt();
+            int elemStart = arrType.isFixedSize() ? start : start + 4;
+            return slice(elemStart, elemStart + length * arrType.getElementSize());
+        }
+        return slice(start, offsetOf(slot + 1));
+    }
+
+    @Nullable
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        Integer slot = factory.lookUpGetter(method);
+        if (slot != null) {
+            return getFieldValue(slot);
+        }
+        slot = factory.lookUpSetter(method);
+        if (slot != null) {
+            setFieldValue(slot, args[0]);
+            return null;
+        }
+        switch (method.getName()) {
+            case "retrieveDataType":
+                return getDataType();
+            case "computeSerializedSize":
+                return computeSerializedSize();
+            case "serializeData":
+                serializeData((DataOutput)args[0], (int)args[1]);
+                return null;
+            case "linkDeserializer":
+                throw new UnsupportedOperationException("Data views can't be deserialized into!");
+            case "hashCode":
+                return computeHashCode();
+            case "equals":
+                return proxy == args[0] || computeEquals(args[0]);
+            case "toString":
+                return computeString();
+            default:
+                throw new UnsupportedOperationException("Unsupported method invocation: " + method.getName());
+        }
+    }
+
+    @Nullable
+    synchronized Object getFieldValue(int slot) {
+        Object value = values[slot];
+        if (value == UNDECODED) {
+            ByteBuffer buf = at(offsetOf(slot));
+            RosDataDecodePlan<?> nestedPlan = plan.getFieldPlan(slot);
+            try {
+                if (nestedPlan != null) {
+                    value = nestedPlan.getDataType().getViewFactory().wrap(buf);
+                } else {
+                    value = plan.readField(slot, buf);
+                    if (offsets[slot + 1] == -1) { // might as well, since we know where the field ended
+                        offsets[slot + 1] = buf.position();
+                    }
+                }
+            } catch (BufferUnderflowException e) {
+                throw new IllegalArgumentException("Data frame truncated while reading field " + slot + " of "
+                        + getDataType().getDataClass().getSimpleName(), e);
+            }
+            values[slot] = value;
+            ++decodedCount;
+        }
+        return value;
+    }
+
+    synchronized void setFieldValue(int slot, @Nullable Object value) {
+        if (values[slot] == UNDECODED) {
+            ++decodedCount;
+        }
+        values[slot] = value;
+    }
+
+    private int offsetOf(int slot) {
+        if (offsets[slot] != -1) {
+            return offsets[slot];
+        }
+        int known = slot - 1;
+        while (offsets[known] == -1) { // the first field always starts at zero, so this terminates
+            --known;
+        }
+        ByteBuffer buf = at(offsets[known]);
+        try {
+            for (int i = known; i < slot; i++) {
+                plan.skipField(i, buf);
+                offsets[i + 1] = buf.position();
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Data frame truncated while seeking field " + slot + " of "
+                    + getDataType().getDataClass().getSimpleName(), e);
+        }
+        return offsets[slot];
+    }
+
+    private ByteBuffer at(int offset) {
+        ByteBuffer buf = frame.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        buf.position(offset);
+        return buf;
+    }
+
+    private ByteBuffer slice(int start, int end) {
+        ByteBuffer buf = frame.duplicate();
+        buf.position(start).limit(end);
+        return buf.slice().asReadOnlyBuffer().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private synchronized int computeSerializedSize() {
+        int fieldCount = values.length;
+        if (decodedCount == 0) {
+            return offsetOf(fieldCount);
+        }
+        int size = 0;
+        for (int i = 0; i < fieldCount; i++) {
+            Object value = values[i];
+            if (value == UNDECODED) {
+                size += offsetOf(i + 1) - offsetOf(i);
+            } else {
+                size += this.<Object>getFieldType(i).computeSize(value);
+            }
+        }
+        return size;
+    }
+
+    private synchronized void serializeData(DataOutput dest, int seqIndex) throws IOException {
+        int rawStart = -1; // runs of untouched fields are copied over in one go
+        for (int i = 0; i < values.length; i++) {
+            if (i == 0 && factory.getFields().get(0).getType() instanceof FieldTypeHeader) {
+                Header header = (Header)getFieldValue(0);
+                //noinspection ConstantConditions
+                RosDataType.stampHeader(header, seqIndex);
+                FieldTypeHeader.TYPE.serializeField(header, dest, 0);
+            } else if (values[i] == UNDECODED) {
+                if (rawStart == -1) {
+                    rawStart = offsetOf(i);
+                }
+            } else {
+                if (rawStart != -1) {
+                    writeRaw(rawStart, offsetOf(i), dest);
+                    rawStart = -1;
+                }
+                this.<Object>getFieldType(i).serializeField(values[i], dest, 0);
+            }
+        }
+        if (rawStart != -1) {
+            writeRaw(rawStart, offsetOf(values.length), dest);
+        }
+    }
+
+    private void writeRaw(int start, int end, DataOutput dest) throws IOException {
+        if (frame.hasArray()) {
+            dest.write(frame.array(), frame.arrayOffset() + start, end - start);
+        } else {
+            byte[] data = new byte[end - start];
+            at(start).get(data);
+            dest.write(data);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <V> RosDataFieldType<V> getFieldType(int slot) {
+        return (RosDataFieldType<V>)factory.getFields().get(slot).getType();
+    }
+
+    private int computeHashCode() {
+        int hash = getDataType().hashCode();
+        for (int i = 0; i < values.length; i++) {
+            hash = hash * 31 + Arrays.deepHashCode(new Object[] {getFieldValue(i)});
+        }
+        return hash;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean computeEquals(@Nullable Object obj) {
+        RosDataType<T> dataType = getDataType();
+        if (!dataType.getDataClass().isInstance(obj) || ((T)obj).retrieveDataType() != dataType) {
+            return false;
+        }
+        for (int i = 0; i < values.length; i++) {
+            if (!Objects.deepEquals(getFieldValue(i), dataType.getFieldValue((T)obj, i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String computeString() {
+        List<RosDataField<?>> fields = factory.getFields();
+        StringBuilder sb = new StringBuilder(getDataType().getDataClass().getSimpleName()).append(" {");
+        for (int i = 0; i < fields.size(); i++) {
+            if (i != 0) {
+                sb.append(", ");
+            }
+            String valueStr = Arrays.deepToString(new Object[] {getFieldValue(i)});
+            sb.append(fields.get(i).getName()).append("=").append(valueStr, 1, valueStr.length() - 1);
+        }
+        return sb.append("}").toString();
+    }
+
+}
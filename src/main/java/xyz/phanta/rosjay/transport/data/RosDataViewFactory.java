@@ -0,0 +1,76 @@
+package xyz.phanta.rosjay.transport.data;
+
+import xyz.phanta.rosjay.transport.data.field.RosDataField;
+import xyz.phanta.rosjay.util.RosUtils;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// maps the data interface's accessors onto field slots once per type, so views only ever index into arrays
+class RosDataViewFactory<T extends RosData<T>> {
+
+    private final RosDataType<T> dataType;
+    private final Class<?>[] dataClass;
+    private final List<RosDataField<?>> fields;
+    private final Map<Method, Integer> getters = new HashMap<>(), setters = new HashMap<>();
+
+    RosDataViewFactory(RosDataType<T> dataType) {
+        this.dataType = dataType;
+        this.dataClass = new Class<?>[] { dataType.getDataClass() };
+        this.fields = dataType.getFields();
+        Map<String, Integer> fieldIndices = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            fieldIndices.put(fields.get(i).getName(), i);
+        }
+        for (Method method : dataClass[0].getMethods()) {
+            String name = method.getName();
+            if (method.getDeclaringClass() == RosData.class || method.isDefault() || name.length() <= 3) {
+                continue;
+            }
+            Integer index = fieldIndices.get(RosUtils.pascalToSnake(name.substring(3)));
+            if (index == null) {
+                continue;
+            }
+            if (name.startsWith("get") && method.getParameterCount() == 0) {
+                getters.put(method, index);
+            } else if (name.startsWith("set") && method.getParameterCount() == 1) {
+                setters.put(method, index);
+            }
+        }
+    }
+
+    RosDataType<T> getDataType() {
+        return dataType;
+    }
+
+    RosDataDecodePlan<T> getPlan() {
+        return dataType.getDecodePlan();
+    }
+
+    List<RosDataField<?>> getFields() {
+        return fields;
+    }
+
+    @Nullable
+    Integer lookUpGetter(Method method) {
+        return getters.get(method);
+    }
+
+    @Nullable
+    Integer lookUpSetter(Method method) {
+        return setters.get(method);
+    }
+
+    @SuppressWarnings("unchecked")
+    T wrap(ByteBuffer frame) {
+        return (T)Proxy.newProxyInstance(RosDataViewFactory.class.getClassLoader(), dataClass,
+                new RosDataView<>(this, frame.slice().order(ByteOrder.LITTLE_ENDIAN)));
+    }
+
+}
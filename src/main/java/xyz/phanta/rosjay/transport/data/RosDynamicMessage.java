@@ -0,0 +1,358 @@
+package xyz.phanta.rosjay.transport.data;
+
+import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.transport.data.field.RosPrimitiveFieldType;
+import xyz.phanta.rosjay.transport.data.field.impl.FieldTypeString;
+
+import javax.annotation.Nullable;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * An instance of a {@link RosDynamicType}. Fields are read and written by {@link RosDynamicType.Field} handle or by
+ * name, either boxed through {@link #get} and {@link #set} or unboxed through the typed accessors, which throw
+ * {@link IllegalArgumentException} if the field isn't of their type. Times and durations are accessed packed, as
+ * described by {@link xyz.phanta.rosjay.util.RosTime}. Unsigned fields read as their signed counterparts.
+ */
+public final class RosDynamicMessage extends RosDataObject<RosDynamicMessage> {
+
+    private final RosDynamicType type;
+    private final List<RosDynamicType.Field> fields;
+    // both indexed by field ordinal; primitive fields keep their raw bits in one, everything else lives in the other
+    private final long[] bits;
+    private final Object[] objects;
+
+    RosDynamicMessage(RosDynamicType type) {
+        super(type.getDataType());
+        this.type = type;
+        this.fields = type.getFields();
+        this.bits = new long[fields.size()]; // all zeroes are already every primitive default
+        this.objects = new Object[fields.size()];
+        for (int i = 0; i < objects.length; i++) {
+            if (!fields.get(i).primitive) {
+                objects[i] = getDefaultFieldValue(i);
+            }
+        }
+    }
+
+    public RosDynamicType getDynamicType() {
+        return type;
+    }
+
+    @Nullable
+    public Object get(RosDynamicType.Field field) {
+        return getFieldValue(slotOf(field));
+    }
+
+    @Nullable
+    public Object get(String fieldName) {
+        return get(type.getField(fieldName));
+    }
+
+    public void set(RosDynamicType.Field field, @Nullable Object value) {
+        setFieldValue(slotOf(field), value);
+    }
+
+    public void set(String fieldName, @Nullable Object value) {
+        set(type.getField(fieldName), value);
+    }
+
+    public boolean getBoolean(RosDynamicType.Field field) {
+        return bits[slotOf(field, RosPrimitiveFieldType.OfBoolean.class, "boolean")] != 0;
+    }
+
+    public boolean getBoolean(String fieldName) {
+        return getBoolean(type.getField(fieldName));
+    }
+
+    public void setBoolean(RosDynamicType.Field field, boolean value) {
+        bits[slotOf(field, RosPrimitiveFieldType.OfBoolean.class, "boolean")] = value ? 1 : 0;
+    }
+
+    public void setBoolean(String fieldName, boolean value) {
+        setBoolean(type.getField(fieldName), value);
+    }
+
+    public byte getByte(RosDynamicType.Field field) {
+        return (byte)bits[slotOf(field, RosPrimitiveFieldType.OfByte.class, "byte")];
+    }
+
+    public byte getByte(String fieldName) {
+        return getByte(type.getField(fieldName));
+    }
+
+    public void setByte(RosDynamicType.Field field, byte value) {
+        bits[slotOf(field, RosPrimitiveFieldType.OfByte.class, "byte")] = value;
+    }
+
+    public void setByte(String fieldName, byte value) {
+        setByte(type.getField(fieldName), value);
+    }
+
+    public short getShort(RosDynamicType.Field field) {
+        return (short)bits[slotOf(field, RosPrimitiveFieldType.OfShort.class, "short")];
+    }
+
+    public short getShort(String fieldName) {
+        return getShort(type.getField(fieldName));
+    }
+
+    public void setShort(RosDynamicType.Field field, short value) {
+        bits[slotOf(field, RosPrimitiveFieldType.OfShort.class, "short")] = value;
+    }
+
+    public void setShort(String fieldName, short value) {
+        setShort(type.getField(fieldName), value);
+    }
+
+    public int getInt(RosDynamicType.Field field) {
+        return (int)bits[slotOf(field, RosPrimitiveFieldType.OfInt.class, "int")];
+    }
+
+    public int getInt(String fieldName) {
+        return getInt(type.getField(fieldName));
+    }
+
+    public void setInt(RosDynamicType.Field field, int value) {
+        bits[slotOf(field, RosPrimitiveFieldType.OfInt.class, "int")] = value;
+    }
+
+    public void setInt(String fieldName, int value) {
+        setInt(type.getField(fieldName), value);
+    }
+
+    public long getLong(RosDynamicType.Field field) {
+        return bits[slotOf(field, RosPrimitiveFieldType.OfLong.class, "long")];
+    }
+
+    public long getLong(String fieldName) {
+        return getLong(type.getField(fieldName));
+    }
+
+    public void setLong(RosDynamicType.Field field, long value) {
+        bits[slotOf(field, RosPrimitiveFieldType.OfLong.class, "long")] = value;
+    }
+
+    public void setLong(String fieldName, long value) {
+        setLong(type.getField(fieldName), value);
+    }
+
+    public float getFloat(RosDynamicType.Field field) {
+        return Float.intBitsToFloat((int)bits[slotOf(field, RosPrimitiveFieldType.OfFloat.class, "float")]);
+    }
+
+    public float getFloat(String fieldName) {
+        return getFloat(type.getField(fieldName));
+    }
+
+    public void setFloat(RosDynamicType.Field field, float value) {
+        bits[slotOf(field, RosPrimitiveFieldType.OfFloat.class, "float")] = Float.floatToRawIntBits(value);
+    }
+
+    public void setFloat(String fieldName, float value) {
+        setFloat(type.getField(fieldName), value);
+    }
+
+    public double getDouble(RosDynamicType.Field field) {
+        return Double.longBitsToDouble(bits[slotOf(field, RosPrimitiveFieldType.OfDouble.class, "double")]);
+    }
+
+    public double getDouble(String fieldName) {
+        return getDouble(type.getField(fieldName));
+    }
+
+    public void setDouble(RosDynamicType.Field field, double value) {
+        bits[slotOf(field, RosPrimitiveFieldType.OfDouble.class, "double")] = Double.doubleToRawLongBits(value);
+    }
+
+    public void setDouble(String fieldName, double value) {
+        setDouble(type.getField(fieldName), value);
+    }
+
+    // for time and duration fields
+    public long getPackedTime(RosDynamicType.Field field) {
+        return bits[slotOf(field, RosPrimitiveFieldType.OfPackedTime.class, "packed time")];
+    }
+
+    public long getPackedTime(String fieldName) {
+        return getPackedTime(type.getField(fieldName));
+    }
+
+    public void setPackedTime(RosDynamicType.Field field, long value) {
+        bits[slotOf(field, RosPrimitiveFieldType.OfPackedTime.class, "packed time")] = value;
+    }
+
+    public void setPackedTime(String fieldName, long value) {
+        setPackedTime(type.getField(fieldName), value);
+    }
+
+    // string fields may hold any CharSequence, so this converts them if need be
+    public String getString(RosDynamicType.Field field) {
+        int slot = slotOf(field);
+        if (field.getType() != FieldTypeString.TYPE) {
+            throw wrongType(field, "string");
+        }
+        return objects[slot].toString();
+    }
+
+    public String getString(String fieldName) {
+        return getString(type.getField(fieldName));
+    }
+
+    private int slotOf(RosDynamicType.Field field) {
+        if (field.getOwner() != type) {
+            throw new IllegalArgumentException("Field " + field + " does not belong to " + type);
+        }
+        return field.getOrdinal();
+    }
+
+    private int slotOf(RosDynamicType.Field field, Class<?> kind, String accessType) {
+        int slot = slotOf(field);
+        if (!kind.isInstance(field.getType())) {
+            throw wrongType(field, accessType);
+        }
+        return slot;
+    }
+
+    private static IllegalArgumentException wrongType(RosDynamicType.Field field, String accessType) {
+        return new IllegalArgumentException("Field " + field + " of type " + field.getType() + " can't be accessed as "
+                + accessType);
+    }
+
+    @Override
+    protected RosDataObject<RosDynamicMessage> createSibling() {
+        return new RosDynamicMessage(type);
+    }
+
+    @Nullable
+    @Override
+    protected Object getFieldValue(int index) {
+        RosDynamicType.Field field = fields.get(index);
+        return field.primitive ? fromBits(field.getType(), bits[index]) : objects[index];
+    }
+
+    @Override
+    protected void setFieldValue(int index, @Nullable Object value) {
+        RosDynamicType.Field field = fields.get(index);
+        if (field.primitive) {
+            bits[index] = toBits(field.getType(), value);
+        } else {
+            objects[index] = value;
+        }
+    }
+
+    // the decoder only ever calls these for fields of the matching type
+    @Override
+    protected void setBooleanFieldValue(int index, boolean value) {
+        bits[index] = value ? 1 : 0;
+    }
+
+    @Override
+    protected void setByteFieldValue(int index, byte value) {
+        bits[index] = value;
+    }
+
+    @Override
+    protected void setShortFieldValue(int index, short value) {
+        bits[index] = value;
+    }
+
+    @Override
+    protected void setIntFieldValue(int index, int value) {
+        bits[index] = value;
+    }
+
+    @Override
+    protected void setLongFieldValue(int index, long value) {
+        bits[index] = value;
+    }
+
+    @Override
+    protected void setFloatFieldValue(int index, float value) {
+        bits[index] = Float.floatToRawIntBits(value);
+    }
+
+    @Override
+    protected void setDoubleFieldValue(int index, double value) {
+        bits[index] = Double.doubleToRawLongBits(value);
+    }
+
+    @Override
+    protected void setPackedTimeFieldValue(int index, long value) {
+        bits[index] = value;
+    }
+
+    @Override
+    public void serializeData(DataOutput dest, int seqIndex) throws IOException {
+        for (int i = 0; i < bits.length; i++) {
+            RosDynamicType.Field field = fields.get(i);
+            if (field.primitive) {
+                writeBits(field.getType(), bits[i], dest);
+            } else {
+                serializeObjectField(i, objects[i], dest, seqIndex);
+            }
+        }
+    }
+
+    private static Object fromBits(RosDataFieldType<?> type, long bits) {
+        if (type instanceof RosPrimitiveFieldType.OfBoolean) {
+            return bits != 0;
+        } else if (type instanceof RosPrimitiveFieldType.OfByte) {
+            return (byte)bits;
+        } else if (type instanceof RosPrimitiveFieldType.OfShort) {
+            return (short)bits;
+        } else if (type instanceof RosPrimitiveFieldType.OfInt) {
+            return (int)bits;
+        } else if (type instanceof RosPrimitiveFieldType.OfLong) {
+            return bits;
+        } else if (type instanceof RosPrimitiveFieldType.OfFloat) {
+            return Float.intBitsToFloat((int)bits);
+        } else if (type instanceof RosPrimitiveFieldType.OfDouble) {
+            return Double.longBitsToDouble(bits);
+        }
+        return ((RosPrimitiveFieldType.OfPackedTime<?>)type).unpack(bits);
+    }
+
+    // values must be of the field's own boxed type, as with generated classes
+    @SuppressWarnings("unchecked")
+    private static long toBits(RosDataFieldType<?> type, @Nullable Object value) {
+        if (type instanceof RosPrimitiveFieldType.OfBoolean) {
+            return (Boolean)value ? 1 : 0;
+        } else if (type instanceof RosPrimitiveFieldType.OfByte) {
+            return (Byte)value;
+        } else if (type instanceof RosPrimitiveFieldType.OfShort) {
+            return (Short)value;
+        } else if (type instanceof RosPrimitiveFieldType.OfInt) {
+            return (Integer)value;
+        } else if (type instanceof RosPrimitiveFieldType.OfLong) {
+            return (Long)value;
+        } else if (type instanceof RosPrimitiveFieldType.OfFloat) {
+            return Float.floatToRawIntBits((Float)value);
+        } else if (type instanceof RosPrimitiveFieldType.OfDouble) {
+            return Double.doubleToRawLongBits((Double)value);
+        }
+        return ((RosPrimitiveFieldType.OfPackedTime<Object>)type).pack(value);
+    }
+
+    private static void writeBits(RosDataFieldType<?> type, long bits, DataOutput dest) throws IOException {
+        if (type instanceof RosPrimitiveFieldType.OfBoolean) {
+            ((RosPrimitiveFieldType.OfBoolean)type).writeBoolean(bits != 0, dest);
+        } else if (type instanceof RosPrimitiveFieldType.OfByte) {
+            ((RosPrimitiveFieldType.OfByte)type).writeByte((byte)bits, dest);
+        } else if (type instanceof RosPrimitiveFieldType.OfShort) {
+            ((RosPrimitiveFieldType.OfShort)type).writeShort((short)bits, dest);
+        } else if (type instanceof RosPrimitiveFieldType.OfInt) {
+            ((RosPrimitiveFieldType.OfInt)type).writeInt((int)bits, dest);
+        } else if (type instanceof RosPrimitiveFieldType.OfLong) {
+            ((RosPrimitiveFieldType.OfLong)type).writeLong(bits, dest);
+        } else if (type instanceof RosPrimitiveFieldType.OfFloat) {
+            ((RosPrimitiveFieldType.OfFloat)type).writeFloat(Float.intBitsToFloat((int)bits), dest);
+        } else if (type instanceof RosPrimitiveFieldType.OfDouble) {
+            ((RosPrimitiveFieldType.OfDouble)type).writeDouble(Double.longBitsToDouble(bits), dest);
+        } else {
+            ((RosPrimitiveFieldType.OfPackedTime<?>)type).writePacked(bits, dest);
+        }
+    }
+
+}
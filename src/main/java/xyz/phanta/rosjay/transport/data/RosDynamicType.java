@@ -0,0 +1,130 @@
+package xyz.phanta.rosjay.transport.data;
+
+import xyz.phanta.rosjay.transport.data.field.RosDataField;
+import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.transport.data.field.RosPrimitiveFieldType;
+import xyz.phanta.rosjay.transport.spec.DataTypeSpecification;
+import xyz.phanta.rosjay.util.id.RosId;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A data type known only by its {@link DataTypeSpecification}, with no data interface behind it, for tools that have
+ * to handle whatever type they're given. Its instances are {@link RosDynamicMessage}s, which keep their fields in
+ * slots indexed by field ordinal; resolving a {@link Field} handle once up front saves looking it up by name on every
+ * access.
+ */
+public final class RosDynamicType {
+
+    private static final Map<DataTypeSpecification, RosDynamicType> dynamicTypeCache = new HashMap<>();
+
+    public static synchronized RosDynamicType resolve(DataTypeSpecification typeSpec) {
+        return dynamicTypeCache.computeIfAbsent(typeSpec, RosDynamicType::new);
+    }
+
+    private final DataTypeSpecification typeSpec;
+    private final RosDataType<RosDynamicMessage> dataType;
+    private final List<Field> fields;
+    private final Map<String, Field> fieldsByName = new HashMap<>();
+
+    private RosDynamicType(DataTypeSpecification typeSpec) {
+        this.typeSpec = typeSpec;
+        this.dataType = new RosDataType<>(RosDynamicMessage.class, typeSpec, t -> new RosDynamicMessage(this));
+        List<RosDataField<?>> dataFields = typeSpec.getDataFields();
+        List<Field> fields = new ArrayList<>(dataFields.size());
+        for (int i = 0; i < dataFields.size(); i++) {
+            Field field = new Field(this, i, dataFields.get(i));
+            fields.add(field);
+            fieldsByName.put(field.getName(), field);
+        }
+        this.fields = Collections.unmodifiableList(fields);
+    }
+
+    public RosId getId() {
+        return typeSpec.getSource().getId();
+    }
+
+    public DataTypeSpecification getTypeSpecification() {
+        return typeSpec;
+    }
+
+    public RosDataType<RosDynamicMessage> getDataType() {
+        return dataType;
+    }
+
+    public RosDynamicMessage newInstance() {
+        return dataType.newInstance();
+    }
+
+    public List<Field> getFields() {
+        return fields;
+    }
+
+    public Field getField(int ordinal) {
+        return fields.get(ordinal);
+    }
+
+    public Field getField(String name) {
+        Field field = fieldsByName.get(name);
+        if (field == null) {
+            throw new NoSuchElementException("No such field in " + getId() + ": " + name);
+        }
+        return field;
+    }
+
+    public boolean hasField(String name) {
+        return fieldsByName.containsKey(name);
+    }
+
+    @Override
+    public String toString() {
+        return getId().toString();
+    }
+
+    /**
+     * A field of a dynamic type, resolved to its slot. Handles only work with messages of the type they came from.
+     */
+    public static final class Field {
+
+        private final RosDynamicType owner;
+        private final int ordinal;
+        private final RosDataField<?> dataField;
+        // primitive fields, including times and durations, are kept unboxed
+        final boolean primitive;
+
+        private Field(RosDynamicType owner, int ordinal, RosDataField<?> dataField) {
+            this.owner = owner;
+            this.ordinal = ordinal;
+            this.dataField = dataField;
+            this.primitive = dataField.getType() instanceof RosPrimitiveFieldType;
+        }
+
+        public RosDynamicType getOwner() {
+            return owner;
+        }
+
+        public int getOrdinal() {
+            return ordinal;
+        }
+
+        public String getName() {
+            return dataField.getName();
+        }
+
+        public RosDataFieldType<?> getType() {
+            return dataField.getType();
+        }
+
+        @Override
+        public String toString() {
+            return owner + "." + getName();
+        }
+
+    }
+
+}
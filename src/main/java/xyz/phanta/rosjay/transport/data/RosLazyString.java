@@ -0,0 +1,97 @@
+package xyz.phanta.rosjay.transport.data;
+
+import javax.annotation.Nullable;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A string field value that's kept as its raw ASCII bytes and only decoded into a {@link String} when
+ * {@link #toString()} is first called. Decoders produce these for string fields whose getter is declared to return
+ * {@link CharSequence}, so messages whose strings are mostly ignored don't pay for them. Instances are immutable.
+ */
+public final class RosLazyString implements CharSequence {
+
+    private final byte[] bytes;
+    private final int offset, length;
+    @Nullable
+    private String decoded = null;
+    private int hash = 0;
+
+    RosLazyString(byte[] bytes, int offset, int length) {
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + length);
+        }
+        byte b = bytes[offset + index];
+        return b >= 0 ? (char)b : '\uFFFD'; // the same replacement the US-ASCII decoder makes
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException(
+                    "Range [" + start + ", " + end + ") out of bounds for length " + length);
+        }
+        return new RosLazyString(bytes, offset + start, end - start);
+    }
+
+    /**
+     * Whether this holds exactly the given characters, without decoding it.
+     */
+    public boolean contentEquals(CharSequence other) {
+        if (other.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (charAt(i) != other.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // writes the raw bytes, without a length prefix
+    public void writeTo(DataOutput dest) throws IOException {
+        dest.write(bytes, offset, length);
+    }
+
+    @Override
+    public String toString() {
+        String value = decoded;
+        if (value == null) { // racing threads may each decode, which is harmless
+            decoded = value = new String(bytes, offset, length, StandardCharsets.US_ASCII);
+        }
+        return value;
+    }
+
+    // same as the decoded string's hash code
+    @Override
+    public int hashCode() {
+        int h = hash;
+        if (h == 0) {
+            for (int i = 0; i < length; i++) {
+                h = h * 31 + charAt(i);
+            }
+            hash = h;
+        }
+        return h;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof RosLazyString && contentEquals((RosLazyString)obj);
+    }
+
+}
@@ -0,0 +1,17 @@
+package xyz.phanta.rosjay.transport.data;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Makes the generated implementation of a data interface store its time and duration fields packed into longs (see
+ * {@link xyz.phanta.rosjay.util.RosTime}), so they're decoded and encoded without allocating. Accessors typed as
+ * {@code Instant} or {@code Duration} then convert on each call; accessors typed as {@code long} get the packed value
+ * directly, and opt their field in even without this annotation.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.TYPE)
+public @interface RosPackedTime {
+}
@@ -0,0 +1,53 @@
+package xyz.phanta.rosjay.transport.data;
+
+import java.nio.ByteBuffer;
+
+// small direct-mapped cache of decoded strings for a single field, keyed on their raw bytes
+class RosStringInternCache {
+
+    private static final int CAPACITY = 16; // must be a power of two
+    // longer strings are unlikely to repeat, and comparing them costs about as much as decoding them
+    private static final int MAX_INTERNED_LENGTH = 64;
+
+    // shared between the event loops decoding into the same plan; a lost store just means a later miss
+    private final String[] entries = new String[CAPACITY];
+
+    // decodes a string of the given length from the buffer's position, and advances past it
+    String read(ByteBuffer buf, int length) {
+        if (length > MAX_INTERNED_LENGTH) {
+            return RosDataDecodePlan.decodeAscii(buf, length);
+        }
+        int start = buf.position();
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = hash * 31 + toChar(buf.get(start + i));
+        }
+        int index = (hash ^ (hash >>> 16)) & (CAPACITY - 1);
+        String cached = entries[index];
+        if (cached != null && cached.hashCode() == hash && matches(cached, buf, start, length)) {
+            buf.position(start + length);
+            return cached;
+        }
+        String value = RosDataDecodePlan.decodeAscii(buf, length);
+        entries[index] = value;
+        return value;
+    }
+
+    private static boolean matches(String cached, ByteBuffer buf, int start, int length) {
+        if (cached.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (cached.charAt(i) != toChar(buf.get(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // the same replacement the US-ASCII decoder makes, so hashes agree with the decoded strings
+    private static char toChar(byte b) {
+        return b >= 0 ? (char)b : '\uFFFD';
+    }
+
+}
@@ -2,6 +2,7 @@ package xyz.phanta.rosjay.transport.data.field;
 
 import xyz.phanta.rosjay.transport.data.field.impl.FieldTypeArrayFixed;
 import xyz.phanta.rosjay.transport.data.field.impl.FieldTypeArrayVariable;
+import xyz.phanta.rosjay.transport.data.field.impl.FieldTypePrimitiveArray;
 import xyz.phanta.rosjay.util.RosDataSourceFile;
 import xyz.phanta.rosjay.util.id.RosNamespace;
 
@@ -10,7 +11,7 @@ import java.util.regex.Pattern;
 
 public class RosDataField<T> {
 
-    private static final Pattern DATA_TYPE_PATTERN = Pattern.compile("([A-Za-z\\d]+(?:/[\\w\\d]+)*)(\\[\\d*])?");
+    private static final Pattern DATA_TYPE_PATTERN = Pattern.compile("([A-Za-z][\\w]*(?:/[\\w]+)*)(\\[\\d*])?");
 
     public static RosDataField<?> resolve(RosNamespace ns, RosDataSourceFile.FieldDecl fieldDecl) {
         Matcher m = DATA_TYPE_PATTERN.matcher(fieldDecl.typeName);
@@ -19,8 +20,13 @@ public class RosDataField<T> {
             String arrDef = m.group(2);
             if (arrDef != null) {
                 arrDef = arrDef.substring(1, arrDef.length() - 1);
-                fieldType = arrDef.isEmpty() ? new FieldTypeArrayVariable<>(fieldType)
-                        : new FieldTypeArrayFixed<>(fieldType, Integer.parseInt(arrDef));
+                int size = arrDef.isEmpty() ? FieldTypePrimitiveArray.VARIABLE_SIZE : Integer.parseInt(arrDef);
+                RosDataFieldType<?> primArrayType = FieldTypePrimitiveArray.forElementType(fieldType, size);
+                if (primArrayType != null) {
+                    fieldType = primArrayType;
+                } else {
+                    fieldType = arrDef.isEmpty() ? new FieldTypeArrayVariable<>(fieldType) : new FieldTypeArrayFixed<>(fieldType, size);
+                }
             }
             return new RosDataField<>(fieldDecl.name, fieldType);
         }
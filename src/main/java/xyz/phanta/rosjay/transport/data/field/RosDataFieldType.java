@@ -9,8 +9,29 @@ import java.util.function.Consumer;
 
 public interface RosDataFieldType<T> {
 
+    int VARIABLE_SIZE = -1;
+
     T getDefaultValue();
 
+    /**
+     * The number of bytes every value of this type serializes to, or {@link #VARIABLE_SIZE} if it depends on the value.
+     */
+    default int getFixedSize() {
+        return VARIABLE_SIZE;
+    }
+
+    /**
+     * The exact number of bytes {@link #serializeField} will write for the given value. Types with a variable size
+     * must override this.
+     */
+    default int computeSize(T value) {
+        int size = getFixedSize();
+        if (size == VARIABLE_SIZE) {
+            throw new UnsupportedOperationException("No size computation for variable-size field type: " + this);
+        }
+        return size;
+    }
+
     void serializeField(T value, DataOutput dest, int seqIndex) throws IOException;
 
     @Nullable
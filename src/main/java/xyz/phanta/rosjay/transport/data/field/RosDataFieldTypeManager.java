@@ -1,6 +1,6 @@
 package xyz.phanta.rosjay.transport.data.field;
 
-import xyz.phanta.rosjay.rospkg.std_msgs.Header;
+import xyz.phanta.rosjay.rospkg.std_msgs.StdMsgs;
 import xyz.phanta.rosjay.transport.data.RosData;
 import xyz.phanta.rosjay.transport.data.field.impl.*;
 import xyz.phanta.rosjay.transport.msg.RosMessageType;
@@ -16,6 +16,7 @@ public class RosDataFieldTypeManager {
 
     private static final Map<String, RosDataFieldType<?>> primitiveFieldTypes = new HashMap<>();
     private static final NamespacedMap<RosDataFieldType<?>> namespacedFieldTypes = new NamespacedMap<>();
+    private static final RosId HEADER_ID = StdMsgs.NAMESPACE.resolveId("Header");
 
     static {
         primitiveFieldTypes.put("bool", FieldTypeBool.TYPE);
@@ -34,8 +35,6 @@ public class RosDataFieldTypeManager {
         primitiveFieldTypes.put("string", FieldTypeString.TYPE);
         primitiveFieldTypes.put("time", FieldTypeTime.TYPE);
         primitiveFieldTypes.put("duration", FieldTypeDuration.TYPE);
-        namespacedFieldTypes.put(RosId.resolveGlobal("Header"), FieldTypeHeader.TYPE);
-        namespacedFieldTypes.put(Header.TYPE.getId(), FieldTypeHeader.TYPE);
     }
 
     public static RosDataFieldType<?> getType(RosNamespace namespace, String name) {
@@ -43,6 +42,9 @@ public class RosDataFieldTypeManager {
         if (fieldType != null) {
             return fieldType;
         }
+        if (name.equals("Header") || namespace.resolveId(name).equals(HEADER_ID) || RosId.resolveGlobal(name).equals(HEADER_ID)) {
+            return FieldTypeHeader.TYPE; // not registered eagerly, since Header.TYPE may still be initializing
+        }
         fieldType = namespacedFieldTypes.resolve(namespace, name);
         if (fieldType != null) {
             return fieldType;
@@ -54,6 +56,10 @@ public class RosDataFieldTypeManager {
         return primitiveFieldTypes.containsKey(typeName);
     }
 
+    public static boolean isMessageTypeRegistered(RosId id) {
+        return id.equals(HEADER_ID) || namespacedFieldTypes.containsKey(id);
+    }
+
     public static <T extends RosData<T>> void registerMessageType(RosMessageType<T> msgType) {
         namespacedFieldTypes.put(msgType.getId(), new FieldTypeMessage<>(msgType));
     }
@@ -0,0 +1,90 @@
+package xyz.phanta.rosjay.transport.data.field;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A field type whose values are Java primitives. Each variant can read and write its values unboxed, which storage
+ * backends with primitive slots should prefer over the boxed {@link RosDataFieldType} contract.
+ */
+public interface RosPrimitiveFieldType<T> extends RosDataFieldType<T> {
+
+    /**
+     * The primitive class values are stored as, e.g. {@code int.class}.
+     */
+    Class<?> getPrimitiveClass();
+
+    interface OfBoolean extends RosPrimitiveFieldType<Boolean> {
+
+        boolean readBoolean(ByteBuffer buf);
+
+        void writeBoolean(boolean value, DataOutput dest) throws IOException;
+
+    }
+
+    interface OfByte extends RosPrimitiveFieldType<Byte> {
+
+        byte readByte(ByteBuffer buf);
+
+        void writeByte(byte value, DataOutput dest) throws IOException;
+
+    }
+
+    interface OfShort extends RosPrimitiveFieldType<Short> {
+
+        short readShort(ByteBuffer buf);
+
+        void writeShort(short value, DataOutput dest) throws IOException;
+
+    }
+
+    interface OfInt extends RosPrimitiveFieldType<Integer> {
+
+        int readInt(ByteBuffer buf);
+
+        void writeInt(int value, DataOutput dest) throws IOException;
+
+    }
+
+    interface OfLong extends RosPrimitiveFieldType<Long> {
+
+        long readLong(ByteBuffer buf);
+
+        void writeLong(long value, DataOutput dest) throws IOException;
+
+    }
+
+    interface OfFloat extends RosPrimitiveFieldType<Float> {
+
+        float readFloat(ByteBuffer buf);
+
+        void writeFloat(float value, DataOutput dest) throws IOException;
+
+    }
+
+    interface OfDouble extends RosPrimitiveFieldType<Double> {
+
+        double readDouble(ByteBuffer buf);
+
+        void writeDouble(double value, DataOutput dest) throws IOException;
+
+    }
+
+    /**
+     * Times and durations, whose primitive form is packed into a {@code long} as described by
+     * {@link xyz.phanta.rosjay.util.RosTime}.
+     */
+    interface OfPackedTime<T> extends RosPrimitiveFieldType<T> {
+
+        long readPacked(ByteBuffer buf);
+
+        void writePacked(long value, DataOutput dest) throws IOException;
+
+        long pack(T value);
+
+        T unpack(long value);
+
+    }
+
+}
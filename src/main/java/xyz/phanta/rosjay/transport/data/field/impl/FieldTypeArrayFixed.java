@@ -21,6 +21,14 @@ public class FieldTypeArrayFixed<T> implements RosDataFieldType<List<T>> { // FI
         this.size = size;
     }
 
+    public RosDataFieldType<T> getElementType() {
+        return elementType;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
     @Override
     public List<T> getDefaultValue() {
         //noinspection unchecked
@@ -31,6 +39,25 @@ public class FieldTypeArrayFixed<T> implements RosDataFieldType<List<T>> { // FI
         return Arrays.asList(arr);
     }
 
+    @Override
+    public int getFixedSize() {
+        int elementSize = elementType.getFixedSize();
+        return elementSize != VARIABLE_SIZE ? elementSize * size : VARIABLE_SIZE;
+    }
+
+    @Override
+    public int computeSize(List<T> value) {
+        int elementSize = elementType.getFixedSize();
+        if (elementSize != VARIABLE_SIZE) {
+            return elementSize * size;
+        }
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += elementType.computeSize(value.get(i));
+        }
+        return total;
+    }
+
     @Override
     public void serializeField(List<T> value, DataOutput dest, int seqIndex) throws IOException {
         for (int i = 0; i < size; i++) {
@@ -21,11 +21,28 @@ public class FieldTypeArrayVariable<T> implements RosDataFieldType<List<T>> {
         this.elementType = elementType;
     }
 
+    public RosDataFieldType<T> getElementType() {
+        return elementType;
+    }
+
     @Override
     public List<T> getDefaultValue() {
         return Collections.emptyList();
     }
 
+    @Override
+    public int computeSize(List<T> value) {
+        int elementSize = elementType.getFixedSize();
+        if (elementSize != VARIABLE_SIZE) {
+            return 4 + elementSize * value.size();
+        }
+        int total = 4;
+        for (T element : value) {
+            total += elementType.computeSize(element);
+        }
+        return total;
+    }
+
     @Override
     public void serializeField(List<T> value, DataOutput dest, int seqIndex) throws IOException {
         dest.writeInt(value.size());
@@ -1,15 +1,16 @@
 package xyz.phanta.rosjay.transport.data.field.impl;
 
-import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.transport.data.field.RosPrimitiveFieldType;
 import xyz.phanta.rosjay.util.deserchain.DeserializationChain;
 import xyz.phanta.rosjay.util.deserchain.DeserializationLink;
 
 import javax.annotation.Nullable;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.function.Consumer;
 
-public class FieldTypeBool implements RosDataFieldType<Boolean> {
+public class FieldTypeBool implements RosPrimitiveFieldType.OfBoolean {
 
     public static final FieldTypeBool TYPE = new FieldTypeBool();
 
@@ -22,15 +23,35 @@ public class FieldTypeBool implements RosDataFieldType<Boolean> {
         return false;
     }
 
+    @Override
+    public Class<?> getPrimitiveClass() {
+        return Boolean.TYPE;
+    }
+
+    @Override
+    public int getFixedSize() {
+        return 1;
+    }
+
+    @Override
+    public boolean readBoolean(ByteBuffer buf) {
+        return buf.get() != 0;
+    }
+
+    @Override
+    public void writeBoolean(boolean value, DataOutput dest) throws IOException {
+        dest.write(value ? 1 : 0);
+    }
+
     @Override
     public void serializeField(Boolean value, DataOutput dest, int seqIndex) throws IOException {
-        dest.write(value ? (byte)1 : (byte)0);
+        writeBoolean(value, dest);
     }
 
     @Nullable
     @Override
     public DeserializationChain linkDeserializer(@Nullable DeserializationChain next, Consumer<Boolean> callback) {
-        return new DeserializationLink(next, 1, (buf, length) -> callback.accept(buf.get() != 0));
+        return new DeserializationLink(next, 1, (buf, length) -> callback.accept(readBoolean(buf)));
     }
 
     @Override
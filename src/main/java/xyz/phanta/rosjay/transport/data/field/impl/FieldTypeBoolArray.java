@@ -0,0 +1,40 @@
+package xyz.phanta.rosjay.transport.data.field.impl;
+
+import java.nio.ByteBuffer;
+
+public class FieldTypeBoolArray extends FieldTypePrimitiveArray<boolean[]> {
+
+    public FieldTypeBoolArray(int size) {
+        super(FieldTypeBool.TYPE, 1, size);
+    }
+
+    @Override
+    public Class<boolean[]> getArrayClass() {
+        return boolean[].class;
+    }
+
+    @Override
+    protected boolean[] allocate(int length) {
+        return new boolean[length];
+    }
+
+    @Override
+    protected int getLength(boolean[] value) {
+        return value.length;
+    }
+
+    @Override
+    protected void readElements(ByteBuffer buf, boolean[] dest) {
+        for (int i = 0; i < dest.length; i++) {
+            dest[i] = buf.get() != 0;
+        }
+    }
+
+    @Override
+    protected void writeElements(boolean[] value, ByteBuffer dest) {
+        for (boolean element : value) {
+            dest.put(element ? (byte)1 : (byte)0);
+        }
+    }
+
+}
@@ -1,16 +1,18 @@
 package xyz.phanta.rosjay.transport.data.field.impl;
 
-import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.transport.data.field.RosPrimitiveFieldType;
+import xyz.phanta.rosjay.util.RosTime;
 import xyz.phanta.rosjay.util.deserchain.DeserializationChain;
 import xyz.phanta.rosjay.util.deserchain.DeserializationLink;
 
 import javax.annotation.Nullable;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.time.Duration;
 import java.util.function.Consumer;
 
-public class FieldTypeDuration implements RosDataFieldType<Duration> {
+public class FieldTypeDuration implements RosPrimitiveFieldType.OfPackedTime<Duration> {
 
     public static final FieldTypeDuration TYPE = new FieldTypeDuration();
 
@@ -23,17 +25,47 @@ public class FieldTypeDuration implements RosDataFieldType<Duration> {
         return Duration.ZERO;
     }
 
+    @Override
+    public Class<?> getPrimitiveClass() {
+        return Long.TYPE;
+    }
+
+    @Override
+    public int getFixedSize() {
+        return 8;
+    }
+
+    @Override
+    public long readPacked(ByteBuffer buf) {
+        // nanos are signed but probably won't be an issue
+        return RosTime.pack(buf.getInt(), buf.getInt());
+    }
+
+    @Override
+    public void writePacked(long value, DataOutput dest) throws IOException {
+        dest.writeInt(RosTime.getSecs(value));
+        dest.writeInt(RosTime.getNsecs(value));
+    }
+
+    @Override
+    public long pack(Duration value) {
+        return RosTime.fromDuration(value);
+    }
+
+    @Override
+    public Duration unpack(long value) {
+        return RosTime.toDuration(value);
+    }
+
     @Override
     public void serializeField(Duration value, DataOutput dest, int seqIndex) throws IOException {
-        dest.writeInt((int)value.getSeconds());
-        dest.writeInt(value.getNano());
+        writePacked(pack(value), dest);
     }
 
     @Nullable
     @Override
     public DeserializationChain linkDeserializer(@Nullable DeserializationChain next, Consumer<Duration> callback) {
-        // nanos are signed but probably won't be an issue
-        return new DeserializationLink(next, 8, (buf, length) -> callback.accept(Duration.ofSeconds(buf.getInt(), buf.getInt())));
+        return new DeserializationLink(next, 8, (buf, length) -> callback.accept(unpack(readPacked(buf))));
     }
 
     @Override
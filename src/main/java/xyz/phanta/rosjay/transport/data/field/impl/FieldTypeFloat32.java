@@ -1,15 +1,16 @@
 package xyz.phanta.rosjay.transport.data.field.impl;
 
-import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.transport.data.field.RosPrimitiveFieldType;
 import xyz.phanta.rosjay.util.deserchain.DeserializationChain;
 import xyz.phanta.rosjay.util.deserchain.DeserializationLink;
 
 import javax.annotation.Nullable;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.function.Consumer;
 
-public class FieldTypeFloat32 implements RosDataFieldType<Float> {
+public class FieldTypeFloat32 implements RosPrimitiveFieldType.OfFloat {
 
     public static final FieldTypeFloat32 TYPE = new FieldTypeFloat32();
 
@@ -23,14 +24,34 @@ public class FieldTypeFloat32 implements RosDataFieldType<Float> {
     }
 
     @Override
-    public void serializeField(Float value, DataOutput dest, int seqIndex) throws IOException {
+    public Class<?> getPrimitiveClass() {
+        return Float.TYPE;
+    }
+
+    @Override
+    public int getFixedSize() {
+        return 4;
+    }
+
+    @Override
+    public float readFloat(ByteBuffer buf) {
+        return buf.getFloat();
+    }
+
+    @Override
+    public void writeFloat(float value, DataOutput dest) throws IOException {
         dest.writeFloat(value);
     }
 
+    @Override
+    public void serializeField(Float value, DataOutput dest, int seqIndex) throws IOException {
+        writeFloat(value, dest);
+    }
+
     @Nullable
     @Override
     public DeserializationChain linkDeserializer(@Nullable DeserializationChain next, Consumer<Float> callback) {
-        return new DeserializationLink(next, 4, ((buf, length) -> callback.accept(buf.getFloat())));
+        return new DeserializationLink(next, 4, (buf, length) -> callback.accept(readFloat(buf)));
     }
 
     @Override
@@ -0,0 +1,36 @@
+package xyz.phanta.rosjay.transport.data.field.impl;
+
+import java.nio.ByteBuffer;
+
+public class FieldTypeFloat32Array extends FieldTypePrimitiveArray<float[]> {
+
+    public FieldTypeFloat32Array(int size) {
+        super(FieldTypeFloat32.TYPE, 4, size);
+    }
+
+    @Override
+    public Class<float[]> getArrayClass() {
+        return float[].class;
+    }
+
+    @Override
+    protected float[] allocate(int length) {
+        return new float[length];
+    }
+
+    @Override
+    protected int getLength(float[] value) {
+        return value.length;
+    }
+
+    @Override
+    protected void readElements(ByteBuffer buf, float[] dest) {
+        buf.asFloatBuffer().get(dest);
+    }
+
+    @Override
+    protected void writeElements(float[] value, ByteBuffer dest) {
+        dest.asFloatBuffer().put(value);
+    }
+
+}
@@ -1,15 +1,16 @@
 package xyz.phanta.rosjay.transport.data.field.impl;
 
-import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.transport.data.field.RosPrimitiveFieldType;
 import xyz.phanta.rosjay.util.deserchain.DeserializationChain;
 import xyz.phanta.rosjay.util.deserchain.DeserializationLink;
 
 import javax.annotation.Nullable;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.function.Consumer;
 
-public class FieldTypeFloat64 implements RosDataFieldType<Double> {
+public class FieldTypeFloat64 implements RosPrimitiveFieldType.OfDouble {
 
     public static final FieldTypeFloat64 TYPE = new FieldTypeFloat64();
 
@@ -23,14 +24,34 @@ public class FieldTypeFloat64 implements RosDataFieldType<Double> {
     }
 
     @Override
-    public void serializeField(Double value, DataOutput dest, int seqIndex) throws IOException {
+    public Class<?> getPrimitiveClass() {
+        return Double.TYPE;
+    }
+
+    @Override
+    public int getFixedSize() {
+        return 8;
+    }
+
+    @Override
+    public double readDouble(ByteBuffer buf) {
+        return buf.getDouble();
+    }
+
+    @Override
+    public void writeDouble(double value, DataOutput dest) throws IOException {
         dest.writeDouble(value);
     }
 
+    @Override
+    public void serializeField(Double value, DataOutput dest, int seqIndex) throws IOException {
+        writeDouble(value, dest);
+    }
+
     @Nullable
     @Override
     public DeserializationChain linkDeserializer(@Nullable DeserializationChain next, Consumer<Double> callback) {
-        return new DeserializationLink(next, 8, ((buf, length) -> callback.accept(buf.getDouble())));
+        return new DeserializationLink(next, 8, (buf, length) -> callback.accept(readDouble(buf)));
     }
 
     @Override
@@ -0,0 +1,36 @@
+package xyz.phanta.rosjay.transport.data.field.impl;
+
+import java.nio.ByteBuffer;
+
+public class FieldTypeFloat64Array extends FieldTypePrimitiveArray<double[]> {
+
+    public FieldTypeFloat64Array(int size) {
+        super(FieldTypeFloat64.TYPE, 8, size);
+    }
+
+    @Override
+    public Class<double[]> getArrayClass() {
+        return double[].class;
+    }
+
+    @Override
+    protected double[] allocate(int length) {
+        return new double[length];
+    }
+
+    @Override
+    protected int getLength(double[] value) {
+        return value.length;
+    }
+
+    @Override
+    protected void readElements(ByteBuffer buf, double[] dest) {
+        buf.asDoubleBuffer().get(dest);
+    }
+
+    @Override
+    protected void writeElements(double[] value, ByteBuffer dest) {
+        dest.asDoubleBuffer().put(value);
+    }
+
+}
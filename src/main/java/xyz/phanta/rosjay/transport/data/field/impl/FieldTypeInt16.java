@@ -1,15 +1,16 @@
 package xyz.phanta.rosjay.transport.data.field.impl;
 
-import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.transport.data.field.RosPrimitiveFieldType;
 import xyz.phanta.rosjay.util.deserchain.DeserializationChain;
 import xyz.phanta.rosjay.util.deserchain.DeserializationLink;
 
 import javax.annotation.Nullable;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.function.Consumer;
 
-public class FieldTypeInt16 implements RosDataFieldType<Short> {
+public class FieldTypeInt16 implements RosPrimitiveFieldType.OfShort {
 
     public static final FieldTypeInt16 TYPE = new FieldTypeInt16();
 
@@ -23,14 +24,34 @@ public class FieldTypeInt16 implements RosDataFieldType<Short> {
     }
 
     @Override
-    public void serializeField(Short value, DataOutput dest, int seqIndex) throws IOException {
+    public Class<?> getPrimitiveClass() {
+        return Short.TYPE;
+    }
+
+    @Override
+    public int getFixedSize() {
+        return 2;
+    }
+
+    @Override
+    public short readShort(ByteBuffer buf) {
+        return buf.getShort();
+    }
+
+    @Override
+    public void writeShort(short value, DataOutput dest) throws IOException {
         dest.writeShort(value);
     }
 
+    @Override
+    public void serializeField(Short value, DataOutput dest, int seqIndex) throws IOException {
+        writeShort(value, dest);
+    }
+
     @Nullable
     @Override
     public DeserializationChain linkDeserializer(@Nullable DeserializationChain next, Consumer<Short> callback) {
-        return new DeserializationLink(next, 2, ((buf, length) -> callback.accept(buf.getShort())));
+        return new DeserializationLink(next, 2, (buf, length) -> callback.accept(readShort(buf)));
     }
 
     @Override
@@ -0,0 +1,36 @@
+package xyz.phanta.rosjay.transport.data.field.impl;
+
+import java.nio.ByteBuffer;
+
+public class FieldTypeInt16Array extends FieldTypePrimitiveArray<short[]> {
+
+    public FieldTypeInt16Array(int size) {
+        super(FieldTypeInt16.TYPE, 2, size);
+    }
+
+    @Override
+    public Class<short[]> getArrayClass() {
+        return short[].class;
+    }
+
+    @Override
+    protected short[] allocate(int length) {
+        return new short[length];
+    }
+
+    @Override
+    protected int getLength(short[] value) {
+        return value.length;
+    }
+
+    @Override
+    protected void readElements(ByteBuffer buf, short[] dest) {
+        buf.asShortBuffer().get(dest);
+    }
+
+    @Override
+    protected void writeElements(short[] value, ByteBuffer dest) {
+        dest.asShortBuffer().put(value);
+    }
+
+}
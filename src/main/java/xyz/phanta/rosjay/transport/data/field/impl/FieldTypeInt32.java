@@ -1,15 +1,16 @@
 package xyz.phanta.rosjay.transport.data.field.impl;
 
-import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.transport.data.field.RosPrimitiveFieldType;
 import xyz.phanta.rosjay.util.deserchain.DeserializationChain;
 import xyz.phanta.rosjay.util.deserchain.DeserializationLink;
 
 import javax.annotation.Nullable;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.function.Consumer;
 
-public class FieldTypeInt32 implements RosDataFieldType<Integer> {
+public class FieldTypeInt32 implements RosPrimitiveFieldType.OfInt {
 
     public static final FieldTypeInt32 TYPE = new FieldTypeInt32();
 
@@ -23,14 +24,34 @@ public class FieldTypeInt32 implements RosDataFieldType<Integer> {
     }
 
     @Override
-    public void serializeField(Integer value, DataOutput dest, int seqIndex) throws IOException {
+    public Class<?> getPrimitiveClass() {
+        return Integer.TYPE;
+    }
+
+    @Override
+    public int getFixedSize() {
+        return 4;
+    }
+
+    @Override
+    public int readInt(ByteBuffer buf) {
+        return buf.getInt();
+    }
+
+    @Override
+    public void writeInt(int value, DataOutput dest) throws IOException {
         dest.writeInt(value);
     }
 
+    @Override
+    public void serializeField(Integer value, DataOutput dest, int seqIndex) throws IOException {
+        writeInt(value, dest);
+    }
+
     @Nullable
     @Override
     public DeserializationChain linkDeserializer(@Nullable DeserializationChain next, Consumer<Integer> callback) {
-        return new DeserializationLink(next, 4, ((buf, length) -> callback.accept(buf.getInt())));
+        return new DeserializationLink(next, 4, (buf, length) -> callback.accept(readInt(buf)));
     }
 
     @Override
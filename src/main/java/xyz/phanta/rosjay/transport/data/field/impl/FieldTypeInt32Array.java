@@ -0,0 +1,36 @@
+package xyz.phanta.rosjay.transport.data.field.impl;
+
+import java.nio.ByteBuffer;
+
+public class FieldTypeInt32Array extends FieldTypePrimitiveArray<int[]> {
+
+    public FieldTypeInt32Array(int size) {
+        super(FieldTypeInt32.TYPE, 4, size);
+    }
+
+    @Override
+    public Class<int[]> getArrayClass() {
+        return int[].class;
+    }
+
+    @Override
+    protected int[] allocate(int length) {
+        return new int[length];
+    }
+
+    @Override
+    protected int getLength(int[] value) {
+        return value.length;
+    }
+
+    @Override
+    protected void readElements(ByteBuffer buf, int[] dest) {
+        buf.asIntBuffer().get(dest);
+    }
+
+    @Override
+    protected void writeElements(int[] value, ByteBuffer dest) {
+        dest.asIntBuffer().put(value);
+    }
+
+}
@@ -1,15 +1,16 @@
 package xyz.phanta.rosjay.transport.data.field.impl;
 
-import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.transport.data.field.RosPrimitiveFieldType;
 import xyz.phanta.rosjay.util.deserchain.DeserializationChain;
 import xyz.phanta.rosjay.util.deserchain.DeserializationLink;
 
 import javax.annotation.Nullable;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.function.Consumer;
 
-public class FieldTypeInt64 implements RosDataFieldType<Long> {
+public class FieldTypeInt64 implements RosPrimitiveFieldType.OfLong {
 
     public static final FieldTypeInt64 TYPE = new FieldTypeInt64();
 
@@ -23,14 +24,34 @@ public class FieldTypeInt64 implements RosDataFieldType<Long> {
     }
 
     @Override
-    public void serializeField(Long value, DataOutput dest, int seqIndex) throws IOException {
+    public Class<?> getPrimitiveClass() {
+        return Long.TYPE;
+    }
+
+    @Override
+    public int getFixedSize() {
+        return 8;
+    }
+
+    @Override
+    public long readLong(ByteBuffer buf) {
+        return buf.getLong();
+    }
+
+    @Override
+    public void writeLong(long value, DataOutput dest) throws IOException {
         dest.writeLong(value);
     }
 
+    @Override
+    public void serializeField(Long value, DataOutput dest, int seqIndex) throws IOException {
+        writeLong(value, dest);
+    }
+
     @Nullable
     @Override
     public DeserializationChain linkDeserializer(@Nullable DeserializationChain next, Consumer<Long> callback) {
-        return new DeserializationLink(next, 8, ((buf, length) -> callback.accept(buf.getLong())));
+        return new DeserializationLink(next, 8, (buf, length) -> callback.accept(readLong(buf)));
     }
 
     @Override
@@ -0,0 +1,36 @@
+package xyz.phanta.rosjay.transport.data.field.impl;
+
+import java.nio.ByteBuffer;
+
+public class FieldTypeInt64Array extends FieldTypePrimitiveArray<long[]> {
+
+    public FieldTypeInt64Array(int size) {
+        super(FieldTypeInt64.TYPE, 8, size);
+    }
+
+    @Override
+    public Class<long[]> getArrayClass() {
+        return long[].class;
+    }
+
+    @Override
+    protected long[] allocate(int length) {
+        return new long[length];
+    }
+
+    @Override
+    protected int getLength(long[] value) {
+        return value.length;
+    }
+
+    @Override
+    protected void readElements(ByteBuffer buf, long[] dest) {
+        buf.asLongBuffer().get(dest);
+    }
+
+    @Override
+    protected void writeElements(long[] value, ByteBuffer dest) {
+        dest.asLongBuffer().put(value);
+    }
+
+}
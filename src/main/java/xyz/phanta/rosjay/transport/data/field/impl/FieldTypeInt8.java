@@ -1,15 +1,16 @@
 package xyz.phanta.rosjay.transport.data.field.impl;
 
-import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.transport.data.field.RosPrimitiveFieldType;
 import xyz.phanta.rosjay.util.deserchain.DeserializationChain;
 import xyz.phanta.rosjay.util.deserchain.DeserializationLink;
 
 import javax.annotation.Nullable;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.function.Consumer;
 
-public class FieldTypeInt8 implements RosDataFieldType<Byte> {
+public class FieldTypeInt8 implements RosPrimitiveFieldType.OfByte {
 
     public static final FieldTypeInt8 TYPE = new FieldTypeInt8();
 
@@ -23,14 +24,34 @@ public class FieldTypeInt8 implements RosDataFieldType<Byte> {
     }
 
     @Override
-    public void serializeField(Byte value, DataOutput dest, int seqIndex) throws IOException {
+    public Class<?> getPrimitiveClass() {
+        return Byte.TYPE;
+    }
+
+    @Override
+    public int getFixedSize() {
+        return 1;
+    }
+
+    @Override
+    public byte readByte(ByteBuffer buf) {
+        return buf.get();
+    }
+
+    @Override
+    public void writeByte(byte value, DataOutput dest) throws IOException {
         dest.write(value);
     }
 
+    @Override
+    public void serializeField(Byte value, DataOutput dest, int seqIndex) throws IOException {
+        writeByte(value, dest);
+    }
+
     @Nullable
     @Override
     public DeserializationChain linkDeserializer(@Nullable DeserializationChain next, Consumer<Byte> callback) {
-        return new DeserializationLink(next, 1, ((buf, length) -> callback.accept(buf.get())));
+        return new DeserializationLink(next, 1, (buf, length) -> callback.accept(readByte(buf)));
     }
 
     @Override
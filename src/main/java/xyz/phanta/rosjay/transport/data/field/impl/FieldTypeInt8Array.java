@@ -0,0 +1,43 @@
+package xyz.phanta.rosjay.transport.data.field.impl;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+public class FieldTypeInt8Array extends FieldTypePrimitiveArray<byte[]> {
+
+    public FieldTypeInt8Array(int size) {
+        super(FieldTypeInt8.TYPE, 1, size);
+    }
+
+    @Override
+    public Class<byte[]> getArrayClass() {
+        return byte[].class;
+    }
+
+    @Override
+    protected byte[] allocate(int length) {
+        return new byte[length];
+    }
+
+    @Override
+    protected int getLength(byte[] value) {
+        return value.length;
+    }
+
+    @Override
+    protected void readElements(ByteBuffer buf, byte[] dest) {
+        buf.get(dest);
+    }
+
+    @Override
+    protected void writeElements(byte[] value, ByteBuffer dest) {
+        dest.put(value);
+    }
+
+    @Override
+    protected void writeBulk(byte[] value, int length, DataOutput dest) throws IOException {
+        dest.write(value);
+    }
+
+}
@@ -19,11 +19,25 @@ public class FieldTypeMessage<T extends RosData<T>> implements RosDataFieldType<
         this.messageType = messageType;
     }
 
+    public RosMessageType<T> getMessageType() {
+        return messageType;
+    }
+
     @Override
     public T getDefaultValue() {
         return messageType.newInstance();
     }
 
+    @Override
+    public int getFixedSize() {
+        return messageType.getDataType().getFixedSize();
+    }
+
+    @Override
+    public int computeSize(T value) {
+        return value.computeSerializedSize();
+    }
+
     @Override
     public void serializeField(T value, DataOutput dest, int seqIndex) throws IOException {
         value.serializeData(dest, seqIndex);
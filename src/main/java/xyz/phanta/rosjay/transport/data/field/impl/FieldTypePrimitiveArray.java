@@ -0,0 +1,171 @@
+package xyz.phanta.rosjay.transport.data.field.impl;
+
+import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.util.deserchain.DeserializationChain;
+import xyz.phanta.rosjay.util.deserchain.DeserializationGenerator;
+import xyz.phanta.rosjay.util.deserchain.DeserializationLink;
+import xyz.phanta.rosjay.util.lowdata.LEByteBufferOutput;
+
+import javax.annotation.Nullable;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.function.Consumer;
+
+// decodes and encodes whole arrays of primitives at once rather than one chain link per element
+public abstract class FieldTypePrimitiveArray<A> implements RosDataFieldType<A> {
+
+    public static final int VARIABLE_SIZE = -1;
+
+    @Nullable
+    public static FieldTypePrimitiveArray<?> forElementType(RosDataFieldType<?> elementType, int size) {
+        if (elementType == FieldTypeBool.TYPE) {
+            return new FieldTypeBoolArray(size);
+        } else if (elementType == FieldTypeInt8.TYPE) {
+            return new FieldTypeInt8Array(size);
+        } else if (elementType == FieldTypeInt16.TYPE) {
+            return new FieldTypeInt16Array(size);
+        } else if (elementType == FieldTypeInt32.TYPE) {
+            return new FieldTypeInt32Array(size);
+        } else if (elementType == FieldTypeInt64.TYPE) {
+            return new FieldTypeInt64Array(size);
+        } else if (elementType == FieldTypeFloat32.TYPE) {
+            return new FieldTypeFloat32Array(size);
+        } else if (elementType == FieldTypeFloat64.TYPE) {
+            return new FieldTypeFloat64Array(size);
+        }
+        return null;
+    }
+
+    private final RosDataFieldType<?> elementType;
+    private final int elementSize, size;
+
+    protected FieldTypePrimitiveArray(RosDataFieldType<?> elementType, int elementSize, int size) {
+        this.elementType = elementType;
+        this.elementSize = elementSize;
+        this.size = size;
+    }
+
+    public RosDataFieldType<?> getElementType() {
+        return elementType;
+    }
+
+    public int getElementSize() {
+        return elementSize;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isFixedSize() {
+        return size != VARIABLE_SIZE;
+    }
+
+    public abstract Class<A> getArrayClass();
+
+    protected abstract A allocate(int length);
+
+    protected abstract int getLength(A value);
+
+    // buffers passed in here are little-endian
+    protected abstract void readElements(ByteBuffer buf, A dest);
+
+    protected abstract void writeElements(A value, ByteBuffer dest);
+
+    @Override
+    public A getDefaultValue() {
+        return allocate(isFixedSize() ? size : 0);
+    }
+
+    @Override
+    public int getFixedSize() {
+        return isFixedSize() ? size * elementSize : RosDataFieldType.VARIABLE_SIZE;
+    }
+
+    @Override
+    public int computeSize(A value) {
+        return isFixedSize() ? size * elementSize : 4 + getLength(value) * elementSize;
+    }
+
+    @Override
+    public void serializeField(A value, DataOutput dest, int seqIndex) throws IOException {
+        int length = getLength(value);
+        if (!isFixedSize()) {
+            dest.writeInt(length);
+        } else if (length != size) {
+            throw new IllegalArgumentException("Expected array of length " + size + " for " + this + ", but got " + length);
+        }
+        writeBulk(value, length, dest);
+    }
+
+    // reads a whole array straight out of a little-endian frame buffer
+    public A decodeFrom(ByteBuffer buf) {
+        return decodeFrom(buf, null);
+    }
+
+    /**
+     * Like {@link #decodeFrom(ByteBuffer)}, but overwrites the given array instead if it has the right length.
+     */
+    public A decodeFrom(ByteBuffer buf, @Nullable Object reuse) {
+        int length = isFixedSize() ? size : buf.getInt();
+        if (length < 0 || (long)length * elementSize > buf.remaining()) { // in long, so a huge length can't wrap around
+            throw new IllegalArgumentException("Data frame truncated while reading " + this + " of length " + length);
+        }
+        A arr;
+        if (getArrayClass().isInstance(reuse) && getLength(getArrayClass().cast(reuse)) == length) {
+            arr = getArrayClass().cast(reuse);
+        } else {
+            arr = allocate(length);
+        }
+        readElements(buf.slice().order(ByteOrder.LITTLE_ENDIAN), arr);
+        buf.position(buf.position() + length * elementSize);
+        return arr;
+    }
+
+    protected void writeBulk(A value, int length, DataOutput dest) throws IOException {
+        if (dest instanceof LEByteBufferOutput) { // encode in place rather than going through a temporary array
+            ByteBuffer destBuf = ((LEByteBufferOutput)dest).getBuffer();
+            if (destBuf.remaining() < length * elementSize) {
+                throw new BufferOverflowException();
+            }
+            writeElements(value, destBuf.slice().order(ByteOrder.LITTLE_ENDIAN));
+            destBuf.position(destBuf.position() + length * elementSize);
+            return;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(length * elementSize).order(ByteOrder.LITTLE_ENDIAN);
+        writeElements(value, buf);
+        dest.write(buf.array());
+    }
+
+    @Nullable
+    @Override
+    public DeserializationChain linkDeserializer(@Nullable DeserializationChain next, Consumer<A> callback) {
+        return isFixedSize() ? linkElements(next, size, callback)
+                : new DeserializationGenerator(next, 4, (buf, length, subNext) -> linkElements(subNext, buf.getInt(), callback));
+    }
+
+    @Nullable
+    private DeserializationChain linkElements(@Nullable DeserializationChain next, int count, Consumer<A> callback) {
+        if (count < 0 || (long)count * elementSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bad length while reading " + this + ": " + count);
+        } else if (count == 0) { // zero-length links aren't representable in the chain
+            callback.accept(allocate(0));
+            return next;
+        }
+        return new DeserializationLink(next, count * elementSize, (buf, length) -> {
+            A arr = allocate(count);
+            readElements(buf.slice().order(ByteOrder.LITTLE_ENDIAN), arr);
+            buf.position(buf.position() + length);
+            callback.accept(arr);
+        });
+    }
+
+    @Override
+    public String toString() {
+        return elementType.toString() + (isFixedSize() ? "[" + size + "]" : "[]");
+    }
+
+}
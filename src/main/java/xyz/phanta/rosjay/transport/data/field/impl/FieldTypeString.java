@@ -1,5 +1,6 @@
 package xyz.phanta.rosjay.transport.data.field.impl;
 
+import xyz.phanta.rosjay.transport.data.RosLazyString;
 import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
 import xyz.phanta.rosjay.util.deserchain.DeserializationChain;
 import xyz.phanta.rosjay.util.deserchain.DeserializationGenerator;
@@ -11,7 +12,7 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.function.Consumer;
 
-public class FieldTypeString implements RosDataFieldType<String> {
+public class FieldTypeString implements RosDataFieldType<CharSequence> {
 
     public static final FieldTypeString TYPE = new FieldTypeString();
 
@@ -25,15 +26,24 @@ public class FieldTypeString implements RosDataFieldType<String> {
     }
 
     @Override
-    public void serializeField(String value, DataOutput dest, int seqIndex) throws IOException {
-        byte[] data = value.getBytes(StandardCharsets.US_ASCII);
-        dest.writeInt(data.length);
-        dest.write(data);
+    public int computeSize(CharSequence value) {
+        return 4 + value.length();
+    }
+
+    // one byte per char, so the size is known without encoding the string first
+    @Override
+    public void serializeField(CharSequence value, DataOutput dest, int seqIndex) throws IOException {
+        dest.writeInt(value.length());
+        if (value instanceof RosLazyString) { // still holds the bytes it was decoded from
+            ((RosLazyString)value).writeTo(dest);
+        } else {
+            dest.writeBytes(value.toString());
+        }
     }
 
     @Nullable
     @Override
-    public DeserializationChain linkDeserializer(@Nullable DeserializationChain next, Consumer<String> callback) {
+    public DeserializationChain linkDeserializer(@Nullable DeserializationChain next, Consumer<CharSequence> callback) {
         return new DeserializationGenerator(next, 4, (buf, length, subNext) ->
                 new DeserializationLink(subNext, buf.getInt(), (subBuf, subLength) -> {
                     byte[] strBytes = new byte[subLength];
@@ -1,16 +1,18 @@
 package xyz.phanta.rosjay.transport.data.field.impl;
 
-import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
+import xyz.phanta.rosjay.transport.data.field.RosPrimitiveFieldType;
+import xyz.phanta.rosjay.util.RosTime;
 import xyz.phanta.rosjay.util.deserchain.DeserializationChain;
 import xyz.phanta.rosjay.util.deserchain.DeserializationLink;
 
 import javax.annotation.Nullable;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.time.Instant;
 import java.util.function.Consumer;
 
-public class FieldTypeTime implements RosDataFieldType<Instant> {
+public class FieldTypeTime implements RosPrimitiveFieldType.OfPackedTime<Instant> {
 
     public static final FieldTypeTime TYPE = new FieldTypeTime();
 
@@ -23,17 +25,47 @@ public class FieldTypeTime implements RosDataFieldType<Instant> {
         return Instant.EPOCH;
     }
 
+    @Override
+    public Class<?> getPrimitiveClass() {
+        return Long.TYPE;
+    }
+
+    @Override
+    public int getFixedSize() {
+        return 8;
+    }
+
+    @Override
+    public long readPacked(ByteBuffer buf) {
+        // nanos are signed but probably won't be an issue
+        return RosTime.pack(buf.getInt(), buf.getInt());
+    }
+
+    @Override
+    public void writePacked(long value, DataOutput dest) throws IOException {
+        dest.writeInt(RosTime.getSecs(value));
+        dest.writeInt(RosTime.getNsecs(value));
+    }
+
+    @Override
+    public long pack(Instant value) {
+        return RosTime.fromInstant(value);
+    }
+
+    @Override
+    public Instant unpack(long value) {
+        return RosTime.toInstant(value);
+    }
+
     @Override
     public void serializeField(Instant value, DataOutput dest, int seqIndex) throws IOException {
-        dest.writeInt((int)value.getEpochSecond());
-        dest.writeInt(value.getNano());
+        writePacked(pack(value), dest);
     }
 
     @Nullable
     @Override
     public DeserializationChain linkDeserializer(@Nullable DeserializationChain next, Consumer<Instant> callback) {
-        // nanos are signed but probably won't be an issue
-        return new DeserializationLink(next, 8, (buf, length) -> callback.accept(Instant.ofEpochSecond(buf.getInt(), buf.getInt())));
+        return new DeserializationLink(next, 8, (buf, length) -> callback.accept(unpack(readPacked(buf))));
     }
 
     @Override
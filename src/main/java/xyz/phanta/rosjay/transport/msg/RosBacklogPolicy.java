@@ -0,0 +1,65 @@
+package xyz.phanta.rosjay.transport.msg;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounds how far each subscriber connection of a publication may fall behind. Messages waiting to go out to a
+ * connection are kept in a backlog of at most {@link #getMaxFrames()} messages; once it's full, either the oldest or
+ * the newest message is dropped. Optionally, connections that have been unable to keep up for too long are closed.
+ */
+public final class RosBacklogPolicy {
+
+    public enum Overflow {
+        DROP_OLDEST, DROP_NEWEST
+    }
+
+    public static RosBacklogPolicy dropOldest(int maxFrames) {
+        return new RosBacklogPolicy(maxFrames, Overflow.DROP_OLDEST, 0L);
+    }
+
+    public static RosBacklogPolicy dropNewest(int maxFrames) {
+        return new RosBacklogPolicy(maxFrames, Overflow.DROP_NEWEST, 0L);
+    }
+
+    private final int maxFrames;
+    private final Overflow overflow;
+    private final long lagLimitNanos;
+
+    private RosBacklogPolicy(int maxFrames, Overflow overflow, long lagLimitNanos) {
+        if (maxFrames < 1) {
+            throw new IllegalArgumentException("Backlog must hold at least one message!");
+        }
+        this.maxFrames = maxFrames;
+        this.overflow = overflow;
+        this.lagLimitNanos = lagLimitNanos;
+    }
+
+    /**
+     * Returns a copy of this policy that disconnects subscribers whose socket has stayed full for longer than the
+     * given time. A zero time never disconnects.
+     */
+    public RosBacklogPolicy withLagLimit(long time, TimeUnit unit) {
+        if (time < 0) {
+            throw new IllegalArgumentException("Lag limit cannot be negative!");
+        }
+        return new RosBacklogPolicy(maxFrames, overflow, unit.toNanos(time));
+    }
+
+    public int getMaxFrames() {
+        return maxFrames;
+    }
+
+    public Overflow getOverflow() {
+        return overflow;
+    }
+
+    public long getLagLimitNanos() {
+        return lagLimitNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RosBacklogPolicy(%d, %s, %d ns)", maxFrames, overflow, lagLimitNanos);
+    }
+
+}
@@ -0,0 +1,19 @@
+package xyz.phanta.rosjay.transport.msg;
+
+/**
+ * How a subscription turns received frames into messages.
+ */
+public enum RosDecodeMode {
+
+    /**
+     * Every field is decoded up front into a regular instance, which may come from the type's instance pool.
+     */
+    EAGER,
+
+    /**
+     * Messages are {@link xyz.phanta.rosjay.transport.data.RosDataView}s over the received frame, and fields are only
+     * decoded once they're read. Large frames are kept as they were received; small ones are copied once.
+     */
+    LAZY
+
+}
@@ -4,7 +4,10 @@ import org.slf4j.Logger;
 import xyz.phanta.rosjay.rospkg.std_msgs.Header;
 import xyz.phanta.rosjay.transport.data.RosData;
 import xyz.phanta.rosjay.transport.data.RosDataType;
+import xyz.phanta.rosjay.transport.data.RosDynamicMessage;
+import xyz.phanta.rosjay.transport.data.RosDynamicType;
 import xyz.phanta.rosjay.transport.data.field.RosDataFieldTypeManager;
+import xyz.phanta.rosjay.transport.spec.DataTypeSpecification;
 import xyz.phanta.rosjay.transport.spec.TypeSpecResolver;
 import xyz.phanta.rosjay.util.RosUtils;
 import xyz.phanta.rosjay.util.id.NamespacedMap;
@@ -12,12 +15,17 @@ import xyz.phanta.rosjay.util.id.RosId;
 import xyz.phanta.rosjay.util.id.RosNamespace;
 
 import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class RosMessageType<T extends RosData<T>> {
 
     private static final Logger LOGGER = RosUtils.getGlobalInternalLogger("msgtype");
 
     private static final NamespacedMap<RosMessageType<?>> msgTypeCache = new NamespacedMap<>();
+    private static final Map<RosDynamicType, RosMessageType<RosDynamicMessage>> dynamicMsgTypeCache = new HashMap<>();
 
     @SuppressWarnings("unchecked")
     @Nullable
@@ -26,18 +34,48 @@ public class RosMessageType<T extends RosData<T>> {
     }
 
     public static <T extends RosData<T>> RosMessageType<T> resolve(RosNamespace ns, String name, Class<T> dataClass) {
+        return resolve(ns, name, dataClass, TypeSpecResolver.getMessageSpecProvider(ns, name), null);
+    }
+
+    public static <T extends RosData<T>> RosMessageType<T> resolve(RosNamespace ns, String name, Class<T> dataClass,
+                                                                   Supplier<DataTypeSpecification> specProvider,
+                                                                   @Nullable Function<RosDataType<T>, ? extends T> implFactory) {
         //noinspection unchecked
         RosMessageType<T> msgType = (RosMessageType<T>)msgTypeCache.resolve(ns, name);
         if (msgType == null) {
-            msgType = loadType(ns, name, dataClass);
+            msgType = loadType(ns, name, dataClass, specProvider, implFactory);
             msgTypeCache.put(msgType.getId(), msgType);
         }
         return msgType;
     }
 
-    private static <T extends RosData<T>> RosMessageType<T> loadType(RosNamespace ns, String name, Class<T> dataClass) {
+    /**
+     * A message type whose instances are {@link RosDynamicMessage}s, for handling types without a data interface. These
+     * are kept apart from the types resolved by name.
+     */
+    public static RosMessageType<RosDynamicMessage> resolveDynamic(DataTypeSpecification typeSpec) {
+        RosDynamicType dynamicType = RosDynamicType.resolve(typeSpec);
+        synchronized (dynamicMsgTypeCache) {
+            return dynamicMsgTypeCache.computeIfAbsent(dynamicType,
+                    t -> new RosMessageType<>(t.getId(), t.getDataType()));
+        }
+    }
+
+    /**
+     * A dynamic message type resolved from the fields of a TCPROS connection header, without touching the filesystem.
+     *
+     * @see TypeSpecResolver#resolveMessageDefinition(String, String, String)
+     */
+    public static RosMessageType<RosDynamicMessage> resolveDynamic(String typeName, String messageDefinition,
+                                                                   String md5Sum) {
+        return resolveDynamic(TypeSpecResolver.resolveMessageDefinition(typeName, messageDefinition, md5Sum));
+    }
+
+    private static <T extends RosData<T>> RosMessageType<T> loadType(RosNamespace ns, String name, Class<T> dataClass,
+                                                                     Supplier<DataTypeSpecification> specProvider,
+                                                                     @Nullable Function<RosDataType<T>, ? extends T> implFactory) {
         LOGGER.debug("Resolving message type {} ({}) in namespace {}...", name, dataClass.getCanonicalName(), ns);
-        RosDataType<T> dataType = RosDataType.resolve(dataClass, TypeSpecResolver.getMessageSpecProvider(ns, name));
+        RosDataType<T> dataType = RosDataType.resolve(dataClass, specProvider, implFactory);
         RosMessageType<T> msgType = new RosMessageType<>(dataType.getTypeSpecification().getSource().getId(), dataType);
         if (dataClass != Header.class) {
             RosDataFieldTypeManager.registerMessageType(msgType);
@@ -6,4 +6,17 @@ public interface RosPublisher<T extends RosData<T>> extends RosMessageTransport<
 
     void publish(T message);
 
+    /**
+     * The policy applied to each subscriber connection's outbound backlog. By default, each connection holds as many
+     * messages as the publication's buffer and drops the oldest once it's full.
+     */
+    RosBacklogPolicy getBacklogPolicy();
+
+    void setBacklogPolicy(RosBacklogPolicy backlogPolicy);
+
+    /**
+     * The number of entries that were overwritten in the buffer before they could be dispatched.
+     */
+    long getDroppedCount();
+
 }
@@ -2,14 +2,87 @@ package xyz.phanta.rosjay.transport.msg;
 
 import xyz.phanta.rosjay.transport.data.RosData;
 
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 
 public interface RosSubscriber<T extends RosData<T>> extends RosMessageTransport<T> {
 
     void addCallback(Consumer<T> callback);
 
+    /**
+     * Like {@link #addCallback(Consumer)}, but with {@code recycle} set, the callback promises not to keep references
+     * to messages (or anything inside them) past its return. A message is handed back to its type's
+     * {@link xyz.phanta.rosjay.transport.data.RosDataPool} once it's been through the callbacks, as long as every one
+     * of them made that promise, so later messages can be decoded into it instead of allocating. Messages dispatched
+     * while there are batch callbacks are never recycled, since the batch lists belong to the callbacks, and neither
+     * are lazily-decoded ones.
+     */
+    void addCallback(Consumer<T> callback, boolean recycle);
+
+    /**
+     * Like {@link #addCallback(Consumer)}, but lets the callback ask for messages to be decoded in the given mode.
+     * Since every subscriber to the topic on this node shares the subscription, frames are only decoded lazily while
+     * every callback has asked for {@link RosDecodeMode#LAZY} and there are no batch callbacks; otherwise, everyone
+     * gets eagerly-decoded messages.
+     */
+    void addCallback(Consumer<T> callback, RosDecodeMode decodeMode);
+
     void removeCallback(Consumer<T> callback);
 
+    /**
+     * Adds a callback that receives every message dispatched in one go, oldest first. Under load, this is everything
+     * that arrived since the previous dispatch (up to the node's per-transport dispatch limit). The list belongs to
+     * the callback and is never touched again by the subscriber.
+     */
+    void addBatchCallback(Consumer<List<T>> callback);
+
+    void removeBatchCallback(Consumer<List<T>> callback);
+
     boolean hasCallbacks();
 
+    /**
+     * Allows the callbacks on this subscription to run concurrently when an async spinner is in use. Otherwise,
+     * messages are handled one at a time and in the order they arrived.
+     */
+    void setReentrant(boolean reentrant);
+
+    boolean isReentrant();
+
+    /**
+     * How frames received from now on are decoded, given what the callbacks have asked for.
+     *
+     * @see #addCallback(Consumer, RosDecodeMode)
+     */
+    RosDecodeMode getDecodeMode();
+
+    /**
+     * Extends the field projection to cover the given paths too, or drops it if they're null, so every field is decoded
+     * again. See {@link xyz.phanta.rosjay.transport.data.RosDataDecodePlan#project} for how paths are written. A
+     * projection can only be narrowed by subscribing with one in the first place, since every subscriber to the topic
+     * on this node shares the subscription; fields outside it hold their default values.
+     */
+    void widenFieldProjection(@Nullable Collection<String> fieldPaths);
+
+    /**
+     * The projected field paths, or null if every field is decoded.
+     */
+    @Nullable
+    Set<String> getFieldProjection();
+
+    /**
+     * Decodes string fields through small per-field caches keyed on their raw bytes, so values that keep repeating
+     * (e.g. frame IDs) come out as the same {@link String} instance without allocating. Off by default.
+     */
+    void setStringInterning(boolean interning);
+
+    boolean isStringInterning();
+
+    /**
+     * The number of entries that were overwritten in the buffer before they could be dispatched.
+     */
+    long getDroppedCount();
+
 }
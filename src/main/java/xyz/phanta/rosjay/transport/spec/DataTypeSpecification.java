@@ -1,18 +1,23 @@
 package xyz.phanta.rosjay.transport.spec;
 
 import xyz.phanta.rosjay.transport.data.field.RosDataField;
+import xyz.phanta.rosjay.transport.data.field.RosDataFieldType;
 import xyz.phanta.rosjay.util.RosDataSourceFile;
 import xyz.phanta.rosjay.util.id.RosId;
 import xyz.phanta.rosjay.util.RosUtils;
 
+import javax.annotation.Nullable;
 import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 
 public class DataTypeSpecification {
 
+    private static final int UNCOMPUTED_SIZE = -2;
+
     private final Source source;
     private final List<RosDataField<?>> dataFields;
+    private volatile int fixedSize = UNCOMPUTED_SIZE;
 
     public DataTypeSpecification(Source source, List<RosDataField<?>> dataFields) {
         this.source = source;
@@ -27,9 +32,31 @@ public class DataTypeSpecification {
         return dataFields;
     }
 
+    /**
+     * The serialized size shared by every instance of the type, or {@link RosDataFieldType#VARIABLE_SIZE} if any of
+     * its fields can vary in size.
+     */
+    public int getFixedSize() {
+        int size = fixedSize;
+        if (size == UNCOMPUTED_SIZE) { // computed lazily, since nested types may not be resolved yet at construction
+            size = 0;
+            for (RosDataField<?> field : dataFields) {
+                int fieldSize = field.getType().getFixedSize();
+                if (fieldSize == RosDataFieldType.VARIABLE_SIZE) {
+                    size = RosDataFieldType.VARIABLE_SIZE;
+                    break;
+                }
+                size += fieldSize;
+            }
+            fixedSize = size;
+        }
+        return size;
+    }
+
     public static class Source {
 
         private final RosId id;
+        @Nullable
         private final Path path;
         private final List<String> originalText;
         private final RosDataSourceFile sourceText;
@@ -37,24 +64,43 @@ public class DataTypeSpecification {
         private final String normalizedText, md5Sum;
 
         Source(RosId id, Path path, List<String> originalText, RosDataSourceFile sourceText) {
+            this(id, path, originalText, sourceText, TypeSpecResolver::getMessageSource);
+        }
+
+        // dependencies are looked up through the given resolver rather than the global caches
+        Source(RosId id, @Nullable Path path, List<String> originalText, RosDataSourceFile sourceText,
+               RosUtils.DepResolver depResolver) {
             this.id = id;
             this.path = path;
             this.originalText = Collections.unmodifiableList(originalText);
             this.sourceText = sourceText;
 
             TypeSpecResolver.LOGGER.trace("Collecting dependencies for {}...", id);
-            this.deps = RosUtils.collectDeps(this);
+            this.deps = RosUtils.collectDeps(this, depResolver);
 
             TypeSpecResolver.LOGGER.trace("Computing properties for {}...", id);
             this.normalizedText = RosUtils.computeNormalizedSource(this);
-            this.md5Sum = RosUtils.computeSourceMd5(this);
+            this.md5Sum = RosUtils.computeSourceMd5(this, depResolver);
             TypeSpecResolver.LOGGER.trace("Computed MD5 {} for {}.", md5Sum, id);
         }
 
+        // for sources whose dependencies, normalized text and checksum were computed ahead of time
+        public Source(RosId id, List<String> originalText, RosDataSourceFile sourceText, List<Source> deps,
+                      String normalizedText, String md5Sum) {
+            this.id = id;
+            this.path = null;
+            this.originalText = Collections.unmodifiableList(originalText);
+            this.sourceText = sourceText;
+            this.deps = Collections.unmodifiableList(deps);
+            this.normalizedText = normalizedText;
+            this.md5Sum = md5Sum;
+        }
+
         public RosId getId() {
             return id;
         }
 
+        @Nullable
         public Path getPath() {
             return path;
         }
@@ -81,17 +127,17 @@ public class DataTypeSpecification {
 
         @Override
         public int hashCode() {
-            return path.hashCode();
+            return id.hashCode();
         }
 
         @Override
         public boolean equals(Object obj) {
-            return obj instanceof Source && path.equals(((Source)obj).path);
+            return obj instanceof Source && id.equals(((Source)obj).id);
         }
 
         @Override
         public String toString() {
-            return id.toString() + " (" + path.toString() + ")";
+            return id.toString() + " (" + (path != null ? path.toString() : "precomputed") + ")";
         }
 
     }
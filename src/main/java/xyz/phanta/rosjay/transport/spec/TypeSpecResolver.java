@@ -2,6 +2,8 @@ package xyz.phanta.rosjay.transport.spec;
 
 import org.slf4j.Logger;
 import xyz.phanta.rosjay.transport.data.field.RosDataField;
+import xyz.phanta.rosjay.transport.data.field.RosDataFieldTypeManager;
+import xyz.phanta.rosjay.transport.msg.RosMessageType;
 import xyz.phanta.rosjay.util.RosDataSourceFile;
 import xyz.phanta.rosjay.util.RosUtils;
 import xyz.phanta.rosjay.util.id.NamespacedMap;
@@ -12,6 +14,7 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.function.Supplier;
@@ -21,13 +24,34 @@ public class TypeSpecResolver {
 
     static final Logger LOGGER = RosUtils.getGlobalInternalLogger("typespec");
 
+    private static final NamespacedMap<DataTypeSpecification.Source> msgSrcCache = new NamespacedMap<>();
+    private static final NamespacedMap<DataTypeSpecification.Source> srvSrcCache = new NamespacedMap<>();
     private static final NamespacedMap<DataTypeSpecification> msgCache = new NamespacedMap<>();
     private static final NamespacedMap<ServiceSpec> srvCache = new NamespacedMap<>();
 
+    public static DataTypeSpecification.Source getMessageSource(RosNamespace ns, String name) {
+        DataTypeSpecification.Source source = msgSrcCache.resolve(ns, name);
+        if (source == null) {
+            source = resolveSpecSource(ns, name, "message", "msg");
+            msgSrcCache.put(source.getId(), source);
+        }
+        return source;
+    }
+
+    public static DataTypeSpecification.Source registerMessageSource(DataTypeSpecification.Source source) {
+        return msgSrcCache.computeIfAbsent(source.getId(), () -> source);
+    }
+
     public static DataTypeSpecification getMessageSpec(RosNamespace ns, String name) {
         DataTypeSpecification spec = msgCache.resolve(ns, name);
+        return spec != null ? spec : resolveMessageSpec(getMessageSource(ns, name));
+    }
+
+    public static DataTypeSpecification resolveMessageSpec(DataTypeSpecification.Source source) {
+        DataTypeSpecification spec = msgCache.get(source.getId());
         if (spec == null) {
-            DataTypeSpecification.Source source = resolveSpecSource(ns, name, "message", "msg");
+            source = registerMessageSource(source);
+            RosNamespace ns = source.getId().getNamespace();
             spec = new DataTypeSpecification(source, source.getSourceText().getElements().stream()
                     .filter(e -> e instanceof RosDataSourceFile.FieldDecl)
                     .map(f -> RosDataField.resolve(ns, (RosDataSourceFile.FieldDecl)f))
@@ -41,10 +65,60 @@ public class TypeSpecResolver {
         return () -> getMessageSpec(ns, name);
     }
 
+    /**
+     * Resolves a message specification from the {@code type}, {@code message_definition} and {@code md5sum} fields of
+     * a TCPROS connection header, without touching the filesystem. The definition holds the type's own source followed
+     * by those of everything it depends on, all of which are cached like sources read from files, so they resolve by
+     * name from then on. Dependencies with no message type registered yet are registered as
+     * {@link xyz.phanta.rosjay.transport.data.RosDynamicType dynamic} ones, so specifications that refer to them can
+     * still be resolved.
+     *
+     * @throws IllegalArgumentException If the definition is missing a dependency or doesn't match the MD5 sum.
+     * @throws IllegalStateException If the definition conflicts with a source that was already resolved.
+     */
+    public static synchronized DataTypeSpecification resolveMessageDefinition(String typeName, String definition,
+                                                                              String md5Sum) {
+        RosId id = RosId.resolveGlobal(typeName);
+        DataTypeSpecification.Source source = msgSrcCache.get(id);
+        if (source == null) {
+            LOGGER.trace("Parsing message definition for {}...", id);
+            DefinitionSources defSources = new DefinitionSources(id, definition);
+            source = defSources.resolve(id.getNamespace(), id.getName());
+            if (!source.getMd5Sum().equals(md5Sum)) {
+                throw new IllegalArgumentException("Message definition for " + id + " has MD5 " + source.getMd5Sum()
+                        + " but expected " + md5Sum);
+            }
+            defSources.register();
+        } else if (!source.getMd5Sum().equals(md5Sum)) { // also means repeated definitions needn't be parsed again
+            throw new IllegalStateException("Conflicting definitions of " + id + ": expected " + source.getMd5Sum()
+                    + " but got " + md5Sum);
+        }
+        return resolveMessageSpec(source);
+    }
+
+    public static DataTypeSpecification.Source getServiceSource(RosNamespace ns, String name) {
+        DataTypeSpecification.Source source = srvSrcCache.resolve(ns, name);
+        if (source == null) {
+            source = resolveSpecSource(ns, name, "service", "srv");
+            srvSrcCache.put(source.getId(), source);
+        }
+        return source;
+    }
+
+    public static DataTypeSpecification.Source registerServiceSource(DataTypeSpecification.Source source) {
+        return srvSrcCache.computeIfAbsent(source.getId(), () -> source);
+    }
+
     public static ServiceSpec getServiceSpec(RosNamespace ns, String name) {
         ServiceSpec spec = srvCache.resolve(ns, name);
+        return spec != null ? spec : resolveServiceSpec(getServiceSource(ns, name));
+    }
+
+    public static ServiceSpec resolveServiceSpec(DataTypeSpecification.Source source) {
+        ServiceSpec spec = srvCache.get(source.getId());
         if (spec == null) {
-            DataTypeSpecification.Source source = resolveSpecSource(ns, name, "service", "srv");
+            source = registerServiceSource(source);
+            RosNamespace ns = source.getId().getNamespace();
             List<RosDataField<?>> dataFields = new ArrayList<>();
             DataTypeSpecification reqSpec = null;
             for (RosDataSourceFile.Element element : source.getSourceText().getElements()) {
@@ -91,6 +165,77 @@ public class TypeSpecResolver {
 
     }
 
+    // the sources in a single message definition, built on demand so dependencies always come first
+    private static class DefinitionSources {
+
+        private static final String MSG_PREFIX = "MSG: ";
+
+        private final RosId rootId;
+        private final NamespacedMap<List<String>> sections = new NamespacedMap<>();
+        private final NamespacedMap<DataTypeSpecification.Source> built = new NamespacedMap<>();
+        private final List<DataTypeSpecification.Source> buildOrder = new ArrayList<>();
+
+        DefinitionSources(RosId rootId, String definition) {
+            this.rootId = rootId;
+            List<String> lines = Arrays.asList(definition.split("\n", -1));
+            RosId sectionId = rootId;
+            int sectionStart = 0;
+            for (int i = 0; i < lines.size(); i++) {
+                String line = lines.get(i);
+                if (line.startsWith("===") && line.chars().allMatch(c -> c == '=') && i + 1 < lines.size()
+                        && lines.get(i + 1).startsWith(MSG_PREFIX)) {
+                    sections.put(sectionId, lines.subList(sectionStart, i));
+                    sectionId = RosId.resolveGlobal(lines.get(i + 1).substring(MSG_PREFIX.length()).trim());
+                    sectionStart = i + 2;
+                    ++i;
+                }
+            }
+            sections.put(sectionId, lines.subList(sectionStart, lines.size()));
+        }
+
+        DataTypeSpecification.Source resolve(RosNamespace ns, String name) {
+            DataTypeSpecification.Source source = built.resolve(ns, name);
+            if (source != null) {
+                return source;
+            }
+            RosId id = sections.containsKey(ns.resolveId(name)) ? ns.resolveId(name) : RosId.resolveGlobal(name);
+            List<String> text = sections.get(id);
+            if (text == null) { // already known types can be left out
+                source = msgSrcCache.resolve(ns, name);
+                if (source == null) {
+                    throw new IllegalArgumentException("Message definition for " + rootId + " is missing " + name);
+                }
+                return source;
+            }
+            List<String> originalText = new ArrayList<>(text);
+            source = new DataTypeSpecification.Source(id, null, originalText,
+                    new RosDataSourceFile(RosUtils.sanitizeSpecFile(originalText)), this::resolve);
+            built.put(id, source);
+            buildOrder.add(source);
+            return source;
+        }
+
+        void register() {
+            for (DataTypeSpecification.Source source : buildOrder) {
+                DataTypeSpecification.Source existing = msgSrcCache.get(source.getId());
+                if (existing != null && !existing.getMd5Sum().equals(source.getMd5Sum())) {
+                    throw new IllegalStateException("Conflicting definitions of " + source.getId() + ": expected "
+                            + existing.getMd5Sum() + " but got " + source.getMd5Sum());
+                }
+            }
+            for (DataTypeSpecification.Source source : buildOrder) {
+                source = registerMessageSource(source);
+                RosId id = source.getId();
+                if (!id.equals(rootId) && !RosDataFieldTypeManager.isMessageTypeRegistered(id)) {
+                    LOGGER.debug("Registering dynamic message type for {}...", id);
+                    DataTypeSpecification spec = resolveMessageSpec(source);
+                    RosDataFieldTypeManager.registerMessageType(RosMessageType.resolveDynamic(spec));
+                }
+            }
+        }
+
+    }
+
     private static DataTypeSpecification.Source resolveSpecSource(RosNamespace ns, String name, String typeName, String typeId) {
         LOGGER.trace("Attempting to resolve {} spec {} in namespace {}...", typeName, name, ns);
         RosId id = ns.resolveId(name);
@@ -4,19 +4,25 @@ import xyz.phanta.rosjay.transport.data.RosData;
 
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 public interface RosServiceClient<REQ extends RosData<REQ>, RES extends RosData<RES>> extends RosServiceTransport<REQ, RES> {
 
     RES call(REQ request) throws InterruptedException;
 
     default CompletionStage<RES> callAsync(REQ request) {
+        return callAsync(request, ForkJoinPool.commonPool());
+    }
+
+    default CompletionStage<RES> callAsync(REQ request, Executor executor) {
         return CompletableFuture.supplyAsync(() -> {
             try {
                 return call(request);
             } catch (InterruptedException e) {
                 throw new IllegalStateException("Async service request future thread interrupted!", e);
             }
-        });
+        }, executor);
     }
 
 }
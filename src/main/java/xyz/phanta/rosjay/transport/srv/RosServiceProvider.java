@@ -11,4 +11,17 @@ public interface RosServiceProvider<REQ extends RosData<REQ>, RES extends RosDat
 
     boolean hasHandler();
 
+    /**
+     * Allows the handler on this service to run concurrently when an async spinner is in use. Otherwise, requests are
+     * handled one at a time and in the order they arrived.
+     */
+    void setReentrant(boolean reentrant);
+
+    boolean isReentrant();
+
+    /**
+     * The number of entries that were overwritten in the buffer before they could be dispatched.
+     */
+    long getDroppedCount();
+
 }
@@ -10,6 +10,7 @@ import xyz.phanta.rosjay.util.id.RosId;
 import xyz.phanta.rosjay.util.id.RosNamespace;
 
 import javax.annotation.Nullable;
+import java.util.function.Function;
 import java.util.function.Supplier;
 
 public class RosServiceType<REQ extends RosData<REQ>, RES extends RosData<RES>> {
@@ -28,10 +29,18 @@ public class RosServiceType<REQ extends RosData<REQ>, RES extends RosData<RES>>
                                                                                                         String name,
                                                                                                         Class<REQ> reqClass,
                                                                                                         Class<RES> resClass) {
+        return resolve(ns, name, reqClass, resClass, TypeSpecResolver.getServiceSpecProvider(ns, name), null, null);
+    }
+
+    public static <REQ extends RosData<REQ>, RES extends RosData<RES>> RosServiceType<REQ, RES> resolve(
+            RosNamespace ns, String name, Class<REQ> reqClass, Class<RES> resClass,
+            Supplier<TypeSpecResolver.ServiceSpec> specProvider,
+            @Nullable Function<RosDataType<REQ>, ? extends REQ> reqImplFactory,
+            @Nullable Function<RosDataType<RES>, ? extends RES> resImplFactory) {
         //noinspection unchecked
         RosServiceType<REQ, RES> srvType = (RosServiceType<REQ, RES>)srvTypeCache.resolve(ns, name);
         if (srvType == null) {
-            srvType = loadType(ns, name, reqClass, resClass);
+            srvType = loadType(ns, name, reqClass, resClass, specProvider, reqImplFactory, resImplFactory);
             srvTypeCache.put(srvType.getId(), srvType);
         }
         return srvType;
@@ -40,12 +49,14 @@ public class RosServiceType<REQ extends RosData<REQ>, RES extends RosData<RES>>
     private static <REQ extends RosData<REQ>, RES extends RosData<RES>> RosServiceType<REQ, RES> loadType(RosNamespace ns,
                                                                                                           String name,
                                                                                                           Class<REQ> reqClass,
-                                                                                                          Class<RES> resClass) {
+                                                                                                          Class<RES> resClass,
+                                                                                                          Supplier<TypeSpecResolver.ServiceSpec> specProvider,
+                                                                                                          @Nullable Function<RosDataType<REQ>, ? extends REQ> reqImplFactory,
+                                                                                                          @Nullable Function<RosDataType<RES>, ? extends RES> resImplFactory) {
         LOGGER.debug("Resolving service type {} ({} / {}) in namespace {}...",
                 name, reqClass.getCanonicalName(), resClass.getCanonicalName(), ns);
-        Supplier<TypeSpecResolver.ServiceSpec> specProvider = TypeSpecResolver.getServiceSpecProvider(ns, name);
-        RosDataType<REQ> reqType = RosDataType.resolve(reqClass, () -> specProvider.get().getRequestSpec());
-        RosDataType<RES> resType = RosDataType.resolve(resClass, () -> specProvider.get().getResponseSpec());
+        RosDataType<REQ> reqType = RosDataType.resolve(reqClass, () -> specProvider.get().getRequestSpec(), reqImplFactory);
+        RosDataType<RES> resType = RosDataType.resolve(resClass, () -> specProvider.get().getResponseSpec(), resImplFactory);
         return new RosServiceType<>(reqType.getTypeSpecification().getSource().getId(), reqType, resType);
     }
 
@@ -1,115 +1,212 @@
 package xyz.phanta.rosjay.util;
 
 import javax.annotation.Nullable;
-import java.util.Objects;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
-
+import java.util.Collection;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A fixed-size, lock-free ring buffer that overwrites its oldest entry when full. Every offer takes a ticket, and
+ * each slot records the ticket it currently holds, so consumers can tell when they've been lapped and skip over the
+ * entries that were lost. Any number of threads may poll concurrently; whether more than one thread may offer
+ * depends on the variant.
+ */
 public class RosDataQueue<T> {
 
-    private final Entry<T>[] buffer;
-    private int fPtr = 0, bPtr = 0;
-    private int count = 0, totalOfferCount = 0;
-    private final ReadWriteLock lock = new ReentrantReadWriteLock();
-    private final Condition offerAwait = lock.writeLock().newCondition();
+    private static final long WRITING = Long.MIN_VALUE;
+    private static final int SPINS_BEFORE_YIELD = 64;
+
+    /**
+     * A queue that may only ever be offered to by one thread at a time.
+     */
+    public static <T> RosDataQueue<T> singleProducer(int capacity) {
+        return new RosDataQueue<>(capacity, false);
+    }
+
+    /**
+     * A queue that any number of threads may offer to concurrently.
+     */
+    public static <T> RosDataQueue<T> multiProducer(int capacity) {
+        return new RosDataQueue<>(capacity, true);
+    }
+
+    private final int capacity;
+    private final boolean multiProducer;
+    private final AtomicReferenceArray<T> values;
+    private final AtomicLongArray tickets;
+    private final PaddedCounter head = new PaddedCounter(), tail = new PaddedCounter();
+    private final AtomicLong skipCount = new AtomicLong(0L);
+    private final Queue<Thread> waiters = new ConcurrentLinkedQueue<>();
 
-    @SuppressWarnings("unchecked")
     public RosDataQueue(int capacity) {
-        this.buffer = (Entry<T>[])new Entry[capacity];
+        this(capacity, true);
+    }
+
+    private RosDataQueue(int capacity, boolean multiProducer) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Queue capacity must be positive!");
+        }
+        this.capacity = capacity;
+        this.multiProducer = multiProducer;
+        this.values = new AtomicReferenceArray<>(capacity);
+        this.tickets = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            tickets.set(i, i - capacity); // "holds" the ticket from one lap ago, so reads as empty
+        }
     }
 
     public void offer(T value) {
-        lock.writeLock().lock();
-        try {
-            buffer[fPtr] = new Entry<>(value, totalOfferCount++);
-            incrementFront();
-            if (count == buffer.length) {
-                incrementBack();
-            } else {
-                ++count;
+        long ticket;
+        int index;
+        if (multiProducer) {
+            ticket = tail.getAndIncrement();
+            index = (int)(ticket % capacity);
+            int spins = 0;
+            while (true) {
+                long held = tickets.get(index);
+                if (held == WRITING) { // a producer a whole lap ahead or behind is mid-write
+                    if (++spins > SPINS_BEFORE_YIELD) {
+                        Thread.yield();
+                    }
+                } else if (held >= ticket) { // already lapped by a newer offer, so ours is one of the dropped ones
+                    return;
+                } else if (tickets.compareAndSet(index, held, WRITING)) {
+                    break;
+                }
+            }
+        } else {
+            ticket = tail.get();
+            tail.lazySet(ticket + 1);
+            index = (int)(ticket % capacity);
+            tickets.set(index, WRITING);
+        }
+        values.lazySet(index, value);
+        tickets.set(index, ticket); // full fence, so the waiter check below can't miss a consumer about to park
+        if (!waiters.isEmpty()) { // every waiter is woken, and whichever ones miss out on the entry just park again
+            for (Thread waiter : waiters) {
+                LockSupport.unpark(waiter);
             }
-            offerAwait.signal();
-        } finally {
-            lock.writeLock().unlock();
         }
     }
 
     @Nullable
-    public Entry<T> poll() {
-        lock.writeLock().lock();
-        try {
-            if (count == 0) {
+    public T poll() {
+        return take(null);
+    }
+
+    /**
+     * Polls into a reusable entry rather than returning the value directly.
+     *
+     * @return Whether an entry was available.
+     */
+    public boolean poll(Entry<T> into) {
+        return take(into) != null;
+    }
+
+    @Nullable
+    private T take(@Nullable Entry<T> into) {
+        int spins = 0;
+        while (true) {
+            long ticket = head.get();
+            int index = (int)(ticket % capacity);
+            long held = tickets.get(index);
+            if (held == WRITING) { // writes are only a couple of stores long, so this should clear up quickly
+                if (++spins > SPINS_BEFORE_YIELD) {
+                    Thread.yield();
+                }
+            } else if (held < ticket) { // not written yet
                 return null;
-            } else {
-                --count;
+            } else if (held == ticket) {
+                T value = values.get(index);
+                if (tickets.get(index) == ticket && head.compareAndSet(ticket, ticket + 1)) {
+                    if (into != null) {
+                        into.value = value;
+                        into.seqIndex = (int)ticket;
+                    }
+                    return value;
+                }
+            } else { // lapped; skip to the oldest entry that can still be in the buffer
+                long oldest = Math.max(ticket + 1, tail.get() - capacity);
+                if (head.compareAndSet(ticket, oldest)) {
+                    skipCount.addAndGet(oldest - ticket);
+                }
             }
-            Entry<T> value = buffer[bPtr];
-            buffer[bPtr] = null;
-            incrementBack();
-            return value;
-        } finally {
-            lock.writeLock().unlock();
         }
     }
 
-    public Entry<T> pollBlocking() throws InterruptedException {
-        lock.writeLock().lock();
+    /**
+     * Polls up to the given number of entries into a collection, oldest first.
+     *
+     * @return The number of entries drained.
+     */
+    public int drainTo(Collection<? super T> dest, int maxEntries) {
+        int drained = 0;
+        T value;
+        while (drained < maxEntries && (value = take(null)) != null) {
+            dest.add(value);
+            ++drained;
+        }
+        return drained;
+    }
+
+    /**
+     * Blocks until an entry is available. Any number of threads may be blocked on a queue at once, and each entry goes
+     * to exactly one of them.
+     */
+    public T pollBlocking() throws InterruptedException {
+        T value = poll();
+        if (value != null) {
+            return value;
+        }
+        Thread current = Thread.currentThread();
+        waiters.add(current);
         try {
-            while (count == 0) {
-                offerAwait.await();
+            while ((value = poll()) == null) {
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
             }
-            return Objects.requireNonNull(poll());
+            return value;
         } finally {
-            lock.writeLock().unlock();
+            waiters.remove(current);
         }
     }
 
     public int getCount() {
-        lock.readLock().lock();
-        try {
-            return count;
-        } finally {
-            lock.readLock().unlock();
-        }
+        long count = tail.get() - head.get();
+        return count <= 0L ? 0 : (int)Math.min(count, capacity);
     }
 
     public int getCapacity() {
-        lock.readLock().lock();
-        try {
-            return buffer.length;
-        } finally {
-            lock.readLock().unlock();
-        }
+        return capacity;
     }
 
     public int getTotalOfferCount() {
-        lock.readLock().lock();
-        try {
-            return totalOfferCount;
-        } finally {
-            lock.readLock().unlock();
-        }
-    }
-
-    private void incrementFront() {
-        fPtr = (fPtr + 1) % buffer.length;
+        return (int)tail.get();
     }
 
-    private void incrementBack() {
-        bPtr = (bPtr + 1) % buffer.length;
+    /**
+     * The number of entries overwritten before they could be polled. While producers are running, this may briefly
+     * lag behind, but it never overcounts.
+     */
+    public long getDropCount() {
+        long skipped = skipCount.get(); // read before the head, which is always advanced first
+        long excess = tail.get() - head.get() - capacity;
+        return excess > 0L ? skipped + excess : skipped;
     }
 
     public static class Entry<T> {
 
-        private final T value;
-        private final int seqIndex;
-
-        Entry(T value, int seqIndex) {
-            this.value = value;
-            this.seqIndex = seqIndex;
-        }
+        @Nullable
+        private T value;
+        private int seqIndex;
 
+        @SuppressWarnings("ConstantConditions")
         public T getValue() {
             return value;
         }
@@ -120,4 +217,14 @@ public class RosDataQueue<T> {
 
     }
 
+    // keeps the head and tail on separate cache lines so producers and consumers don't invalidate each other
+    @SuppressWarnings("unused")
+    private static class PaddedCounter extends AtomicLong {
+
+        private static final long serialVersionUID = 1L;
+
+        private long p1, p2, p3, p4, p5, p6, p7;
+
+    }
+
 }
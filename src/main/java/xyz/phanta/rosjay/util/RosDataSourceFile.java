@@ -1,6 +1,7 @@
 package xyz.phanta.rosjay.util;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -10,7 +11,7 @@ import java.util.stream.Collectors;
 public class RosDataSourceFile {
 
     private static final Pattern FIELD_CONST_PATTERN
-            = Pattern.compile("([A-Za-z\\d]+(?:/[\\w\\d]+)*(?:\\[\\d*])?)\\s*(\\w+)(?:\\s*=\\s*(.+))?");
+            = Pattern.compile("([A-Za-z][\\w]*(?:/[\\w]+)*(?:\\[\\d*])?)\\s*(\\w+)(?:\\s*=\\s*(.+))?");
 
     private final List<Element> elements;
 
@@ -34,6 +35,10 @@ public class RosDataSourceFile {
         this.elements = Collections.unmodifiableList(elemAcc);
     }
 
+    public RosDataSourceFile(Element... elements) {
+        this.elements = Collections.unmodifiableList(Arrays.asList(elements));
+    }
+
     public List<Element> getElements() {
         return elements;
     }
@@ -51,7 +56,7 @@ public class RosDataSourceFile {
 
         public final String typeName, name;
 
-        FieldDecl(String typeName, String name) {
+        public FieldDecl(String typeName, String name) {
             this.typeName = typeName;
             this.name = name;
         }
@@ -0,0 +1,113 @@
+package xyz.phanta.rosjay.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Helpers for ROS times and durations packed into a single {@code long}, with the seconds in the high 32 bits and the
+ * nanoseconds in the low 32 bits. Packed times compare in the same order as the times they represent, as long as both
+ * are normalized (i.e. their nanoseconds are within a second).
+ */
+public final class RosTime {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    // how often the clock goes back to the wall clock, so it follows adjustments to the system time
+    private static final long RESYNC_INTERVAL = NANOS_PER_SECOND;
+    // how far behind the extrapolated clock a resync can land from the wall clock's coarse resolution alone
+    private static final long RESYNC_JITTER = 2_000_000L;
+
+    private static final AtomicReference<ClockAnchor> anchor = new AtomicReference<>(new ClockAnchor());
+    // in epoch nanoseconds; resyncs can land slightly behind the extrapolated clock, so results are clamped to this
+    private static final AtomicLong lastIssued = new AtomicLong(Long.MIN_VALUE);
+
+    private RosTime() {
+        // NO-OP
+    }
+
+    public static long pack(int secs, int nsecs) {
+        return ((long)secs << 32) | (nsecs & 0xFFFFFFFFL);
+    }
+
+    public static int getSecs(long time) {
+        return (int)(time >> 32);
+    }
+
+    public static int getNsecs(long time) {
+        return (int)time;
+    }
+
+    public static long fromNanos(long nanos) {
+        return pack((int)Math.floorDiv(nanos, NANOS_PER_SECOND), (int)Math.floorMod(nanos, NANOS_PER_SECOND));
+    }
+
+    public static long toNanos(long time) {
+        return getSecs(time) * NANOS_PER_SECOND + getNsecs(time);
+    }
+
+    public static long fromInstant(Instant instant) {
+        return pack((int)instant.getEpochSecond(), instant.getNano());
+    }
+
+    public static Instant toInstant(long time) {
+        return Instant.ofEpochSecond(getSecs(time), getNsecs(time));
+    }
+
+    public static long fromDuration(Duration duration) {
+        return pack((int)duration.getSeconds(), duration.getNano());
+    }
+
+    public static Duration toDuration(long duration) {
+        return Duration.ofSeconds(getSecs(duration), getNsecs(duration));
+    }
+
+    /**
+     * The current wall-clock time, without allocating. This reads the wall clock once a second and extends it with
+     * {@link System#nanoTime()} in between, so it has nanosecond resolution but may be up to a millisecond off. It
+     * doesn't go backwards across resyncs, but it does follow the wall clock when that's actually set back (e.g. by an
+     * NTP step).
+     */
+    public static long now() {
+        while (true) {
+            long nanoTime = System.nanoTime();
+            ClockAnchor clock = anchor.get();
+            long elapsed = nanoTime - clock.nanoTime;
+            if (elapsed >= RESYNC_INTERVAL) {
+                resync(clock);
+                continue;
+            }
+            long epochNanos = clock.epochNanos + elapsed; // slightly before the anchor if another thread just resynced
+            long last = lastIssued.get();
+            if (anchor.get() != clock) { // a value from before a resync could be from before a clock step, too
+                continue;
+            } else if (epochNanos <= last) {
+                return fromNanos(last);
+            } else if (lastIssued.compareAndSet(last, epochNanos)) {
+                return fromNanos(epochNanos);
+            }
+        }
+    }
+
+    // only one thread gets to replace a given anchor. If the wall clock turns out to be further behind than resolution
+    // alone explains, it was actually set back, so the clamp is reset rather than holding still until it catches up
+    private static void resync(ClockAnchor clock) {
+        ClockAnchor next = new ClockAnchor();
+        if (anchor.compareAndSet(clock, next)
+                && clock.epochNanos + (next.nanoTime - clock.nanoTime) - next.epochNanos > RESYNC_JITTER) {
+            lastIssued.set(next.epochNanos);
+        }
+    }
+
+    private static class ClockAnchor {
+
+        final long epochNanos, nanoTime;
+
+        ClockAnchor() {
+            this.epochNanos = System.currentTimeMillis() * 1_000_000L;
+            this.nanoTime = System.nanoTime();
+        }
+
+    }
+
+}
@@ -10,13 +10,14 @@ import xyz.phanta.rosjay.transport.data.RosData;
 import xyz.phanta.rosjay.transport.data.field.RosDataFieldTypeManager;
 import xyz.phanta.rosjay.transport.spec.DataTypeSpecification;
 import xyz.phanta.rosjay.transport.spec.TypeSpecResolver;
-import xyz.phanta.rosjay.util.lowdata.LEDataOutputStream;
+import xyz.phanta.rosjay.util.id.RosNamespace;
+import xyz.phanta.rosjay.util.lowdata.LEByteBufferOutput;
 
 import javax.annotation.Nullable;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -38,9 +39,16 @@ public class RosUtils {
 
     // ros package data
 
-    private static final List<Path> rosPackagePaths = Arrays.stream(System.getenv("ROS_PACKAGE_PATH").split(File.pathSeparator))
-            .map(Paths::get)
-            .collect(Collectors.toList());
+    private static final List<Path> rosPackagePaths = parsePackagePaths(System.getenv("ROS_PACKAGE_PATH"));
+
+    private static List<Path> parsePackagePaths(@Nullable String pathVar) {
+        if (pathVar == null) { // precomputed type specs don't need a ros install
+            return Collections.emptyList();
+        }
+        return Arrays.stream(pathVar.split(File.pathSeparator))
+                .map(Paths::get)
+                .collect(Collectors.toList());
+    }
 
     @Nullable
     public static Path findFile(String fileName) {
@@ -54,6 +62,11 @@ public class RosUtils {
     private static final Set<DataTypeSpecification.Source> collectingSources = new HashSet<>();
 
     public static List<DataTypeSpecification.Source> collectDeps(DataTypeSpecification.Source root) {
+        return collectDeps(root, TypeSpecResolver::getMessageSource);
+    }
+
+    public static List<DataTypeSpecification.Source> collectDeps(DataTypeSpecification.Source root,
+                                                                 DepResolver depResolver) {
         if (collectingSources.contains(root)) {
             throw new IllegalStateException("Cyclic dependency detected in data type specification: " + root.getId());
         }
@@ -75,8 +88,7 @@ public class RosUtils {
                     if (typeName.equals("Header")) {
                         typeName = "std_msgs/Header";
                     }
-                    DataTypeSpecification.Source depSrc = TypeSpecResolver
-                            .getMessageSpec(root.getId().getNamespace(), typeName).getSource();
+                    DataTypeSpecification.Source depSrc = depResolver.resolve(root.getId().getNamespace(), typeName);
                     if (!seen.contains(depSrc)) {
                         deps.add(depSrc);
                         seen.add(depSrc);
@@ -96,17 +108,21 @@ public class RosUtils {
     }
 
     private static final String SRC_CONCAT_DELIM
-            = "================================================================================\nMSG: ";
+            = "\n================================================================================\nMSG: ";
 
     public static String computeNormalizedSource(DataTypeSpecification.Source root) {
         StringBuilder sb = new StringBuilder(String.join("\n", root.getOriginalText()));
         for (DataTypeSpecification.Source dep : root.getDependencies()) {
-            sb.append(SRC_CONCAT_DELIM).append(dep.getId()).append("\n").append(String.join("\n", dep.getOriginalText()));
+            sb.append(SRC_CONCAT_DELIM).append(dep.getId().toUnrootedString()).append("\n").append(String.join("\n", dep.getOriginalText()));
         }
         return sb.toString();
     }
 
     public static String computeSourceMd5(DataTypeSpecification.Source root) {
+        return computeSourceMd5(root, TypeSpecResolver::getMessageSource);
+    }
+
+    public static String computeSourceMd5(DataTypeSpecification.Source root, DepResolver depResolver) {
         MessageDigest md5;
         try {
             md5 = MessageDigest.getInstance("MD5");
@@ -137,12 +153,12 @@ public class RosUtils {
             String baseTypeName = stripArrayType(typeName);
             if (RosDataFieldTypeManager.isPrimitiveType(baseTypeName)) {
                 md5.update(typeName.getBytes(StandardCharsets.US_ASCII));
-            } else {
-                if (typeName.equals("Header")) {
-                    typeName = "std_msgs/Header";
+            } else { // array suffixes are dropped for message types
+                if (baseTypeName.equals("Header")) {
+                    baseTypeName = "std_msgs/Header";
                 }
-                md5.update(TypeSpecResolver.getMessageSpec(root.getId().getNamespace(), typeName)
-                        .getSource().getMd5Sum().getBytes(StandardCharsets.US_ASCII));
+                md5.update(depResolver.resolve(root.getId().getNamespace(), baseTypeName)
+                        .getMd5Sum().getBytes(StandardCharsets.US_ASCII));
             }
             md5.update((byte)' ');
             md5.update(fieldName.getBytes(StandardCharsets.US_ASCII));
@@ -153,6 +169,14 @@ public class RosUtils {
         return encodeHex(md5.digest());
     }
 
+    // looks up the sources of the message types a specification refers to
+    @FunctionalInterface
+    public interface DepResolver {
+
+        DataTypeSpecification.Source resolve(RosNamespace ns, String name);
+
+    }
+
     private static String stripArrayType(String typeName) {
         int bracketIndex = typeName.indexOf('[');
         return bracketIndex == -1 ? typeName : typeName.substring(0, bracketIndex).trim();
@@ -214,6 +238,23 @@ public class RosUtils {
         return sb.toString();
     }
 
+    public static String snakeToPascal(String snakeString) {
+        StringBuilder sb = new StringBuilder();
+        boolean upper = true;
+        for (int i = 0; i < snakeString.length(); i++) {
+            char c = snakeString.charAt(i);
+            if (c == '_') {
+                upper = true;
+            } else if (upper) {
+                sb.append(Character.toUpperCase(c));
+                upper = false;
+            } else {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
     private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 
     public static String encodeHex(byte[] data) {
@@ -224,10 +265,41 @@ public class RosUtils {
         return sb.toString();
     }
 
+    // sized exactly up front, so the encoder writes each message once with no growing or trimming copies
     public static byte[] serializeDataPacket(RosData<?> data, int seqIndex) throws IOException {
-        ByteArrayOutputStream buf = new ByteArrayOutputStream();
-        data.serializeData(new LEDataOutputStream(buf), seqIndex);
-        return buf.toByteArray();
+        byte[] packet = new byte[data.computeSerializedSize()];
+        serializeDataPacket(data, seqIndex, ByteBuffer.wrap(packet));
+        return packet;
+    }
+
+    /**
+     * Encodes a message into a freshly allocated buffer of exactly the right size, flipped and ready for reading.
+     *
+     * @param direct Whether to allocate a direct buffer, which can be handed to a channel without another copy.
+     */
+    public static ByteBuffer serializeDataPacket(RosData<?> data, int seqIndex, boolean direct) throws IOException {
+        int size = data.computeSerializedSize();
+        ByteBuffer buf = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+        serializeDataPacket(data, seqIndex, buf);
+        buf.flip();
+        return buf;
+    }
+
+    /**
+     * Encodes a message at the current position of a buffer, which must have at least
+     * {@link RosData#computeSerializedSize()} bytes remaining. The buffer's byte order is switched to little-endian.
+     */
+    public static void serializeDataPacket(RosData<?> data, int seqIndex, ByteBuffer dest) throws IOException {
+        int start = dest.position(), size = data.computeSerializedSize();
+        if (dest.remaining() < size) {
+            throw new IllegalArgumentException(
+                    "Buffer has " + dest.remaining() + " bytes left, but message needs " + size + "!");
+        }
+        data.serializeData(new LEByteBufferOutput(dest), seqIndex);
+        if (dest.position() - start != size) {
+            throw new IllegalStateException("Computed size " + size + " for " + data.retrieveDataType().getDataClass()
+                    .getSimpleName() + ", but serialized " + (dest.position() - start) + " bytes!");
+        }
     }
 
 }
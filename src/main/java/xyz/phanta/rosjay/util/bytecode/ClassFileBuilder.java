@@ -0,0 +1,106 @@
+package xyz.phanta.rosjay.util.bytecode;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ClassFileBuilder {
+
+    // class file version 49 does not require stack map frames, which keeps the code builder simple
+    private static final int CLASS_VERSION = 49;
+
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_PRIVATE = 0x0002;
+    public static final int ACC_PROTECTED = 0x0004;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_FINAL = 0x0010;
+    public static final int ACC_SUPER = 0x0020;
+
+    private final ConstantPool constPool = new ConstantPool();
+    private final int access;
+    private final int thisClassIndex, superClassIndex;
+    private final int[] interfaceIndices;
+    private final List<MemberInfo> fields = new ArrayList<>();
+    private final List<MemberInfo> methods = new ArrayList<>();
+
+    public ClassFileBuilder(int access, String internalName, String superName, String... interfaceNames) {
+        this.access = access | ACC_SUPER;
+        this.thisClassIndex = constPool.classRef(internalName);
+        this.superClassIndex = constPool.classRef(superName);
+        this.interfaceIndices = new int[interfaceNames.length];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            interfaceIndices[i] = constPool.classRef(interfaceNames[i]);
+        }
+    }
+
+    public void addField(int access, String name, String descriptor) {
+        fields.add(new MemberInfo(access, constPool.utf8(name), constPool.utf8(descriptor), null));
+    }
+
+    public CodeBuilder addMethod(int access, String name, String descriptor, int maxStack, int maxLocals) {
+        CodeBuilder code = new CodeBuilder(constPool, maxStack, maxLocals);
+        methods.add(new MemberInfo(access, constPool.utf8(name), constPool.utf8(descriptor), code));
+        return code;
+    }
+
+    public byte[] toByteArray() {
+        int codeAttrName = constPool.utf8("Code");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(CLASS_VERSION);
+            constPool.write(out);
+            out.writeShort(access);
+            out.writeShort(thisClassIndex);
+            out.writeShort(superClassIndex);
+            out.writeShort(interfaceIndices.length);
+            for (int index : interfaceIndices) {
+                out.writeShort(index);
+            }
+            out.writeShort(fields.size());
+            for (MemberInfo field : fields) {
+                field.write(out, codeAttrName);
+            }
+            out.writeShort(methods.size());
+            for (MemberInfo method : methods) {
+                method.write(out, codeAttrName);
+            }
+            out.writeShort(0); // no class attributes
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write class file!", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static class MemberInfo {
+
+        private final int access, nameIndex, descIndex;
+        @Nullable
+        private final CodeBuilder code;
+
+        MemberInfo(int access, int nameIndex, int descIndex, @Nullable CodeBuilder code) {
+            this.access = access;
+            this.nameIndex = nameIndex;
+            this.descIndex = descIndex;
+            this.code = code;
+        }
+
+        void write(DataOutputStream out, int codeAttrName) throws IOException {
+            out.writeShort(access);
+            out.writeShort(nameIndex);
+            out.writeShort(descIndex);
+            if (code == null) {
+                out.writeShort(0);
+            } else {
+                out.writeShort(1);
+                code.write(out, codeAttrName);
+            }
+        }
+
+    }
+
+}
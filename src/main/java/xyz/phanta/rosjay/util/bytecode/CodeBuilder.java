@@ -0,0 +1,194 @@
+package xyz.phanta.rosjay.util.bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CodeBuilder {
+
+    public static final int ICONST_0 = 0x03;
+    public static final int BIPUSH = 0x10;
+    public static final int SIPUSH = 0x11;
+    public static final int LDC_W = 0x13;
+    public static final int ILOAD = 0x15;
+    public static final int LLOAD = 0x16;
+    public static final int FLOAD = 0x17;
+    public static final int DLOAD = 0x18;
+    public static final int ALOAD = 0x19;
+    public static final int ISTORE = 0x36;
+    public static final int LSTORE = 0x37;
+    public static final int FSTORE = 0x38;
+    public static final int DSTORE = 0x39;
+    public static final int ASTORE = 0x3A;
+    public static final int POP = 0x57;
+    public static final int DUP = 0x59;
+    public static final int SWAP = 0x5F;
+    public static final int TABLESWITCH = 0xAA;
+    public static final int IRETURN = 0xAC;
+    public static final int LRETURN = 0xAD;
+    public static final int FRETURN = 0xAE;
+    public static final int DRETURN = 0xAF;
+    public static final int ARETURN = 0xB0;
+    public static final int RETURN = 0xB1;
+    public static final int GETSTATIC = 0xB2;
+    public static final int PUTSTATIC = 0xB3;
+    public static final int GETFIELD = 0xB4;
+    public static final int PUTFIELD = 0xB5;
+    public static final int INVOKEVIRTUAL = 0xB6;
+    public static final int INVOKESPECIAL = 0xB7;
+    public static final int INVOKESTATIC = 0xB8;
+    public static final int INVOKEINTERFACE = 0xB9;
+    public static final int NEW = 0xBB;
+    public static final int ATHROW = 0xBF;
+    public static final int CHECKCAST = 0xC0;
+
+    private final ConstantPool constPool;
+    private final int maxStack, maxLocals;
+    private final ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+    private final List<Fixup> fixups = new ArrayList<>();
+
+    CodeBuilder(ConstantPool constPool, int maxStack, int maxLocals) {
+        this.constPool = constPool;
+        this.maxStack = maxStack;
+        this.maxLocals = maxLocals;
+    }
+
+    public CodeBuilder op(int opcode) {
+        codeBytes.write(opcode);
+        return this;
+    }
+
+    public CodeBuilder varOp(int opcode, int index) {
+        codeBytes.write(opcode);
+        codeBytes.write(index);
+        return this;
+    }
+
+    public CodeBuilder pushInt(int value) {
+        if (value >= -1 && value <= 5) {
+            codeBytes.write(ICONST_0 + value);
+        } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            codeBytes.write(BIPUSH);
+            codeBytes.write(value);
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            codeBytes.write(SIPUSH);
+            writeShort(value);
+        } else {
+            codeBytes.write(LDC_W);
+            writeShort(constPool.integer(value));
+        }
+        return this;
+    }
+
+    public CodeBuilder pushString(String value) {
+        codeBytes.write(LDC_W);
+        writeShort(constPool.string(value));
+        return this;
+    }
+
+    public CodeBuilder typeOp(int opcode, String internalName) {
+        codeBytes.write(opcode);
+        writeShort(constPool.classRef(internalName));
+        return this;
+    }
+
+    public CodeBuilder fieldOp(int opcode, String owner, String name, String descriptor) {
+        codeBytes.write(opcode);
+        writeShort(constPool.fieldRef(owner, name, descriptor));
+        return this;
+    }
+
+    public CodeBuilder invoke(int opcode, String owner, String name, String descriptor) {
+        codeBytes.write(opcode);
+        if (opcode == INVOKEINTERFACE) {
+            writeShort(constPool.interfaceMethodRef(owner, name, descriptor));
+            codeBytes.write(TypeDescriptors.getArgumentSlots(descriptor) + 1);
+            codeBytes.write(0);
+        } else {
+            writeShort(constPool.methodRef(owner, name, descriptor));
+        }
+        return this;
+    }
+
+    public CodeBuilder tableSwitch(int low, Label defaultLabel, Label... cases) {
+        int opPos = codeBytes.size();
+        codeBytes.write(TABLESWITCH);
+        while (codeBytes.size() % 4 != 0) {
+            codeBytes.write(0);
+        }
+        addJump(opPos, defaultLabel);
+        writeInt(low);
+        writeInt(low + cases.length - 1);
+        for (Label label : cases) {
+            addJump(opPos, label);
+        }
+        return this;
+    }
+
+    public CodeBuilder mark(Label label) {
+        if (label.position != -1) {
+            throw new IllegalStateException("Label is already placed!");
+        }
+        label.position = codeBytes.size();
+        return this;
+    }
+
+    private void addJump(int opPos, Label target) {
+        fixups.add(new Fixup(codeBytes.size(), opPos, target));
+        writeInt(0);
+    }
+
+    private void writeShort(int value) {
+        codeBytes.write((value >>> 8) & 0xFF);
+        codeBytes.write(value & 0xFF);
+    }
+
+    private void writeInt(int value) {
+        writeShort(value >>> 16);
+        writeShort(value);
+    }
+
+    void write(DataOutputStream out, int codeAttrName) throws IOException {
+        byte[] code = codeBytes.toByteArray();
+        for (Fixup fixup : fixups) {
+            if (fixup.target.position == -1) {
+                throw new IllegalStateException("Jump to unplaced label!");
+            }
+            int offset = fixup.target.position - fixup.opPos;
+            code[fixup.pos] = (byte)(offset >>> 24);
+            code[fixup.pos + 1] = (byte)(offset >>> 16);
+            code[fixup.pos + 2] = (byte)(offset >>> 8);
+            code[fixup.pos + 3] = (byte)offset;
+        }
+        out.writeShort(codeAttrName);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        out.writeShort(0); // no exception table
+        out.writeShort(0); // no code attributes
+    }
+
+    public static class Label {
+
+        private int position = -1;
+
+    }
+
+    private static class Fixup {
+
+        final int pos, opPos;
+        final Label target;
+
+        Fixup(int pos, int opPos, Label target) {
+            this.pos = pos;
+            this.opPos = opPos;
+            this.target = target;
+        }
+
+    }
+
+}
@@ -0,0 +1,109 @@
+package xyz.phanta.rosjay.util.bytecode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+class ConstantPool {
+
+    private static final int TAG_UTF8 = 1;
+    private static final int TAG_INTEGER = 3;
+    private static final int TAG_CLASS = 7;
+    private static final int TAG_STRING = 8;
+    private static final int TAG_FIELDREF = 9;
+    private static final int TAG_METHODREF = 10;
+    private static final int TAG_INTERFACE_METHODREF = 11;
+    private static final int TAG_NAME_AND_TYPE = 12;
+
+    private final Map<String, Integer> entries = new HashMap<>();
+    private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(poolBytes);
+    private int nextIndex = 1;
+
+    int utf8(String value) {
+        return entries.computeIfAbsent("U" + value, k -> append(out -> {
+            out.writeByte(TAG_UTF8);
+            out.writeUTF(value);
+        }));
+    }
+
+    int integer(int value) {
+        return entries.computeIfAbsent("I" + value, k -> append(out -> {
+            out.writeByte(TAG_INTEGER);
+            out.writeInt(value);
+        }));
+    }
+
+    int string(String value) {
+        int utf8Index = utf8(value);
+        return entries.computeIfAbsent("S" + value, k -> append(out -> {
+            out.writeByte(TAG_STRING);
+            out.writeShort(utf8Index);
+        }));
+    }
+
+    int classRef(String internalName) {
+        int nameIndex = utf8(internalName);
+        return entries.computeIfAbsent("C" + internalName, k -> append(out -> {
+            out.writeByte(TAG_CLASS);
+            out.writeShort(nameIndex);
+        }));
+    }
+
+    int fieldRef(String owner, String name, String descriptor) {
+        return memberRef(TAG_FIELDREF, owner, name, descriptor);
+    }
+
+    int methodRef(String owner, String name, String descriptor) {
+        return memberRef(TAG_METHODREF, owner, name, descriptor);
+    }
+
+    int interfaceMethodRef(String owner, String name, String descriptor) {
+        return memberRef(TAG_INTERFACE_METHODREF, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        int classIndex = classRef(owner);
+        int natIndex = nameAndType(name, descriptor);
+        return entries.computeIfAbsent(tag + ":" + owner + "." + name + ":" + descriptor, k -> append(out -> {
+            out.writeByte(tag);
+            out.writeShort(classIndex);
+            out.writeShort(natIndex);
+        }));
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        int nameIndex = utf8(name);
+        int descIndex = utf8(descriptor);
+        return entries.computeIfAbsent("N" + name + ":" + descriptor, k -> append(out -> {
+            out.writeByte(TAG_NAME_AND_TYPE);
+            out.writeShort(nameIndex);
+            out.writeShort(descIndex);
+        }));
+    }
+
+    private int append(EntryWriter writer) {
+        try {
+            writer.write(poolOut);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to write constant pool entry!", e);
+        }
+        return nextIndex++;
+    }
+
+    void write(DataOutputStream out) throws IOException {
+        out.writeShort(nextIndex);
+        poolOut.flush();
+        poolBytes.writeTo(out);
+    }
+
+    @FunctionalInterface
+    private interface EntryWriter {
+
+        void write(DataOutputStream out) throws IOException;
+
+    }
+
+}
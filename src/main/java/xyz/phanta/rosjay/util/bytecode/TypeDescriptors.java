@@ -0,0 +1,132 @@
+package xyz.phanta.rosjay.util.bytecode;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public class TypeDescriptors {
+
+    private static final Map<Class<?>, Class<?>> WRAPPER_TYPES = new HashMap<>();
+
+    static {
+        WRAPPER_TYPES.put(Boolean.TYPE, Boolean.class);
+        WRAPPER_TYPES.put(Byte.TYPE, Byte.class);
+        WRAPPER_TYPES.put(Short.TYPE, Short.class);
+        WRAPPER_TYPES.put(Character.TYPE, Character.class);
+        WRAPPER_TYPES.put(Integer.TYPE, Integer.class);
+        WRAPPER_TYPES.put(Long.TYPE, Long.class);
+        WRAPPER_TYPES.put(Float.TYPE, Float.class);
+        WRAPPER_TYPES.put(Double.TYPE, Double.class);
+    }
+
+    public static String getInternalName(Class<?> type) {
+        return type.getName().replace('.', '/');
+    }
+
+    public static String getDescriptor(Class<?> type) {
+        if (type.isPrimitive()) {
+            if (type == Boolean.TYPE) {
+                return "Z";
+            } else if (type == Byte.TYPE) {
+                return "B";
+            } else if (type == Short.TYPE) {
+                return "S";
+            } else if (type == Character.TYPE) {
+                return "C";
+            } else if (type == Integer.TYPE) {
+                return "I";
+            } else if (type == Long.TYPE) {
+                return "J";
+            } else if (type == Float.TYPE) {
+                return "F";
+            } else if (type == Double.TYPE) {
+                return "D";
+            } else if (type == Void.TYPE) {
+                return "V";
+            }
+            throw new IllegalArgumentException("Unknown primitive type: " + type);
+        } else if (type.isArray()) {
+            return getInternalName(type);
+        }
+        return "L" + getInternalName(type) + ";";
+    }
+
+    public static String getMethodDescriptor(Class<?> returnType, Class<?>... paramTypes) {
+        StringBuilder sb = new StringBuilder("(");
+        for (Class<?> paramType : paramTypes) {
+            sb.append(getDescriptor(paramType));
+        }
+        return sb.append(")").append(getDescriptor(returnType)).toString();
+    }
+
+    public static int getSlotSize(Class<?> type) {
+        return (type == Long.TYPE || type == Double.TYPE) ? 2 : 1;
+    }
+
+    static int getArgumentSlots(String methodDescriptor) {
+        int slots = 0;
+        int i = 1;
+        while (methodDescriptor.charAt(i) != ')') {
+            char c = methodDescriptor.charAt(i);
+            if (c == 'J' || c == 'D') {
+                slots += 2;
+                ++i;
+                continue;
+            }
+            while (methodDescriptor.charAt(i) == '[') {
+                ++i;
+            }
+            i = methodDescriptor.charAt(i) == 'L' ? methodDescriptor.indexOf(';', i) + 1 : i + 1;
+            ++slots;
+        }
+        return slots;
+    }
+
+    public static Class<?> getWrapperType(Class<?> type) {
+        Class<?> wrapper = WRAPPER_TYPES.get(type);
+        return wrapper != null ? wrapper : type;
+    }
+
+    public static int getLoadOpcode(Class<?> type) {
+        return getTypedOpcode(type, CodeBuilder.ILOAD, CodeBuilder.LLOAD, CodeBuilder.FLOAD, CodeBuilder.DLOAD, CodeBuilder.ALOAD);
+    }
+
+    public static int getStoreOpcode(Class<?> type) {
+        return getTypedOpcode(type, CodeBuilder.ISTORE, CodeBuilder.LSTORE, CodeBuilder.FSTORE, CodeBuilder.DSTORE, CodeBuilder.ASTORE);
+    }
+
+    public static int getReturnOpcode(Class<?> type) {
+        return type == Void.TYPE ? CodeBuilder.RETURN : getTypedOpcode(type,
+                CodeBuilder.IRETURN, CodeBuilder.LRETURN, CodeBuilder.FRETURN, CodeBuilder.DRETURN, CodeBuilder.ARETURN);
+    }
+
+    private static int getTypedOpcode(Class<?> type, int intOp, int longOp, int floatOp, int doubleOp, int refOp) {
+        if (!type.isPrimitive()) {
+            return refOp;
+        } else if (type == Long.TYPE) {
+            return longOp;
+        } else if (type == Float.TYPE) {
+            return floatOp;
+        } else if (type == Double.TYPE) {
+            return doubleOp;
+        }
+        return intOp;
+    }
+
+    public static void emitBox(CodeBuilder code, Class<?> type) {
+        if (type.isPrimitive()) {
+            Class<?> wrapper = getWrapperType(type);
+            code.invoke(CodeBuilder.INVOKESTATIC, getInternalName(wrapper), "valueOf", getMethodDescriptor(wrapper, type));
+        }
+    }
+
+    public static void emitUnbox(CodeBuilder code, Class<?> type) {
+        if (type.isPrimitive()) {
+            Class<?> wrapper = getWrapperType(type);
+            code.typeOp(CodeBuilder.CHECKCAST, getInternalName(wrapper));
+            code.invoke(CodeBuilder.INVOKEVIRTUAL, getInternalName(wrapper), type.getName() + "Value", getMethodDescriptor(type));
+        } else if (type != Object.class) {
+            code.typeOp(CodeBuilder.CHECKCAST, getInternalName(type));
+        }
+    }
+
+}
@@ -0,0 +1,4 @@
+@NothingNull
+package xyz.phanta.rosjay.util.bytecode;
+
+import xyz.phanta.jsr305.NothingNull;
@@ -1,6 +1,8 @@
 package xyz.phanta.rosjay.util.deserchain;
 
 import javax.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 public class DeserChainUtils {
 
@@ -13,6 +15,21 @@ public class DeserChainUtils {
         return next;
     }
 
+    // drives a chain to completion over a buffer that already holds all of its data
+    public static void runToCompletion(@Nullable DeserializationChain chain, ByteBuffer buf) {
+        while (chain != null) {
+            int length = chain.getExpectedBytes();
+            if (buf.remaining() < length) {
+                throw new IllegalArgumentException("Data frame truncated: expected " + length + " bytes but only "
+                        + buf.remaining() + " remain!");
+            }
+            ByteBuffer linkBuf = buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+            linkBuf.limit(length);
+            chain = chain.consume(linkBuf, length);
+            buf.position(buf.position() + length);
+        }
+    }
+
     @FunctionalInterface
     public interface IndexedIterationFunction {
 
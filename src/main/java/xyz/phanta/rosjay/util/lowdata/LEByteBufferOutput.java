@@ -0,0 +1,107 @@
+package xyz.phanta.rosjay.util.lowdata;
+
+import java.io.DataOutput;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Little-endian {@link DataOutput} that writes straight into a byte buffer, which may be heap or direct. The buffer
+ * has to be sized up front; running out of room throws {@link java.nio.BufferOverflowException}.
+ */
+public class LEByteBufferOutput implements DataOutput {
+
+    private final ByteBuffer buf;
+
+    public LEByteBufferOutput(ByteBuffer buf) {
+        this.buf = buf.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    public ByteBuffer getBuffer() {
+        return buf;
+    }
+
+    @Override
+    public void write(int b) {
+        buf.put((byte)b);
+    }
+
+    @Override
+    public void write(byte[] b) {
+        buf.put(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        buf.put(b, off, len);
+    }
+
+    @Override
+    public void writeBoolean(boolean v) {
+        buf.put(v ? (byte)1 : (byte)0);
+    }
+
+    @Override
+    public void writeByte(int v) {
+        buf.put((byte)v);
+    }
+
+    @Override
+    public void writeShort(int v) {
+        buf.putShort((short)v);
+    }
+
+    @Deprecated
+    @Override
+    public void writeChar(int v) {
+        // assume UTF-16; this method should probably never be used
+        buf.putChar((char)v);
+    }
+
+    @Override
+    public void writeInt(int v) {
+        buf.putInt(v);
+    }
+
+    @Override
+    public void writeLong(long v) {
+        buf.putLong(v);
+    }
+
+    @Override
+    public void writeFloat(float v) {
+        buf.putFloat(v);
+    }
+
+    @Override
+    public void writeDouble(double v) {
+        buf.putDouble(v);
+    }
+
+    // exactly one byte per char, with anything outside of ascii replaced
+    @Override
+    public void writeBytes(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            buf.put(c < 0x80 ? (byte)c : (byte)'?');
+        }
+    }
+
+    @Deprecated
+    @Override
+    public void writeChars(String s) {
+        // assumes UTF-16; this method should probably never be used
+        for (int i = 0; i < s.length(); i++) {
+            buf.putChar(s.charAt(i));
+        }
+    }
+
+    @Deprecated
+    @Override
+    public void writeUTF(String s) {
+        // specifically formatted for java data streams; should probably never be used
+        writeShort(s.length());
+        buf.put(s.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
@@ -8,6 +8,7 @@ import java.nio.charset.StandardCharsets;
 public class LEDataOutputStream extends OutputStream implements DataOutput {
 
     private final OutputStream backing;
+    private final byte[] scratch = new byte[8];
 
     public LEDataOutputStream(OutputStream backing) {
         this.backing = backing;
@@ -40,9 +41,7 @@ public class LEDataOutputStream extends OutputStream implements DataOutput {
 
     @Override
     public void writeShort(int v) throws IOException {
-        for (int i = 0; i < 2; i++) {
-            backing.write((v >>> (8 * i)) & 0xFF);
-        }
+        writeLittleEndian(v, 2);
     }
 
     @Deprecated
@@ -54,16 +53,20 @@ public class LEDataOutputStream extends OutputStream implements DataOutput {
 
     @Override
     public void writeInt(int v) throws IOException {
-        for (int i = 0; i < 4; i++) {
-            backing.write((v >>> (8 * i)) & 0xFF);
-        }
+        writeLittleEndian(v, 4);
     }
 
     @Override
     public void writeLong(long v) throws IOException {
-        for (int i = 0; i < 8; i++) {
-            backing.write((byte)((v >>> (8 * i)) & 0xFF));
+        writeLittleEndian(v, 8);
+    }
+
+    // one write per value rather than per byte, since the backing stream may be unbuffered
+    private void writeLittleEndian(long v, int length) throws IOException {
+        for (int i = 0; i < length; i++) {
+            scratch[i] = (byte)(v >>> (8 * i));
         }
+        backing.write(scratch, 0, length);
     }
 
     @Override
@@ -76,9 +79,15 @@ public class LEDataOutputStream extends OutputStream implements DataOutput {
         writeLong(Double.doubleToRawLongBits(v));
     }
 
+    // exactly one byte per char, with anything outside of ascii replaced, so string sizes can be computed up front
     @Override
     public void writeBytes(String s) throws IOException {
-        backing.write(s.getBytes(StandardCharsets.US_ASCII));
+        byte[] data = new byte[s.length()];
+        for (int i = 0; i < data.length; i++) {
+            char c = s.charAt(i);
+            data[i] = c < 0x80 ? (byte)c : (byte)'?';
+        }
+        backing.write(data);
     }
 
     @Deprecated
@@ -0,0 +1,245 @@
+package xyz.phanta.rosjay.transport.data;
+
+import org.junit.jupiter.api.Test;
+import xyz.phanta.rosjay.rospkg.std_msgs.Header;
+import xyz.phanta.rosjay.transport.spec.DataTypeSpecification;
+import xyz.phanta.rosjay.transport.spec.TypeSpecResolver;
+import xyz.phanta.rosjay.util.RosDataSourceFile;
+import xyz.phanta.rosjay.util.RosTime;
+import xyz.phanta.rosjay.util.RosUtils;
+import xyz.phanta.rosjay.util.id.RosNamespace;
+
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RosDataClassGeneratorTest {
+
+    private static final RosNamespace NAMESPACE = RosNamespace.resolveGlobal("rosjay_test");
+    private static final List<String> SAMPLE_TEXT = Arrays.asList("int32 count", "float64 ratio", "bool flag",
+            "string label", "Header header", "time stamp", "duration timeout", "float64[] values", "string[] names",
+            "Header[] headers");
+
+    private static DataTypeSpecification resolveSampleSpec() {
+        return TypeSpecResolver.resolveMessageSpec(new DataTypeSpecification.Source(NAMESPACE.resolveId("Sample"),
+                SAMPLE_TEXT,
+                new RosDataSourceFile(SAMPLE_TEXT),
+                Collections.singletonList(Header.TYPE.getDataType().getTypeSpecification().getSource()),
+                String.join("\n", SAMPLE_TEXT) + "\n"
+                        + "================================================================================\n"
+                        + "MSG: std_msgs/Header\nuint32 seq\ntime stamp\nstring frame_id",
+                "cf6310d58c3f78e3b3acf595ad0a1406"));
+    }
+
+    private static final RosDataType<Generated> GENERATED_TYPE = RosDataType.resolve(Generated.class,
+            RosDataClassGeneratorTest::resolveSampleSpec);
+    private static final RosDataType<Proxied> PROXIED_TYPE = RosDataType.resolve(Proxied.class,
+            RosDataClassGeneratorTest::resolveSampleSpec);
+
+    private static final Instant STAMP = Instant.ofEpochSecond(1_500_000_000L, 123_456_789L);
+    private static final Duration TIMEOUT = Duration.ofSeconds(3L, 250_000_000L);
+
+    @Test
+    void generatesConcreteClassForPublicInterface() {
+        Generated msg = GENERATED_TYPE.newInstance();
+        assertFalse(Proxy.isProxyClass(msg.getClass()));
+        assertTrue(msg instanceof RosDataObject);
+        assertTrue(Proxy.isProxyClass(PROXIED_TYPE.newInstance().getClass()));
+    }
+
+    @Test
+    void defaultsMatchProxy() throws Exception {
+        assertArrayEquals(RosUtils.serializeDataPacket(PROXIED_TYPE.newInstance(), 0),
+                RosUtils.serializeDataPacket(GENERATED_TYPE.newInstance(), 0));
+    }
+
+    @Test
+    void encodesLikeProxy() throws Exception {
+        Generated generated = populate(GENERATED_TYPE.newInstance());
+        Proxied proxied = populate(PROXIED_TYPE.newInstance());
+        byte[] generatedBytes = RosUtils.serializeDataPacket(generated, 0);
+        assertEquals(generated.computeSerializedSize(), generatedBytes.length);
+        assertArrayEquals(RosUtils.serializeDataPacket(proxied, 0), generatedBytes);
+    }
+
+    @Test
+    void decodesWhatProxyEncodes() throws Exception {
+        Generated expected = populate(GENERATED_TYPE.newInstance());
+        byte[] bytes = RosUtils.serializeDataPacket(populate(PROXIED_TYPE.newInstance()), 0);
+        Generated decoded = GENERATED_TYPE.getDecodePlan().decode(wrap(bytes));
+        assertEquals(7, decoded.getCount());
+        assertEquals(0.5D, decoded.getRatio());
+        assertTrue(decoded.getFlag());
+        assertEquals("sample", decoded.getLabel());
+        assertEquals("base", decoded.getHeader().getFrameId());
+        assertEquals(STAMP, decoded.getHeader().getStamp());
+        assertEquals(RosTime.fromInstant(STAMP), decoded.getStamp());
+        assertEquals(TIMEOUT, decoded.getTimeout());
+        assertArrayEquals(new double[] { 1D, -2.5D, 1e9D }, decoded.getValues());
+        assertEquals(Arrays.asList("a", "", "ccc"), decoded.getNames());
+        assertEquals(2, decoded.getHeaders().size());
+        assertEquals("child1", decoded.getHeaders().get(1).getFrameId());
+        assertEquals(expected, decoded);
+        assertEquals(expected.hashCode(), decoded.hashCode());
+    }
+
+    @Test
+    void proxyDecodesWhatGeneratedClassEncodes() throws Exception {
+        Proxied expected = populate(PROXIED_TYPE.newInstance());
+        byte[] bytes = RosUtils.serializeDataPacket(populate(GENERATED_TYPE.newInstance()), 0);
+        Proxied decoded = PROXIED_TYPE.getDecodePlan().decode(wrap(bytes));
+        assertEquals(STAMP, decoded.getStamp());
+        assertEquals(Arrays.asList(1D, -2.5D, 1e9D), decoded.getValues());
+        assertEquals(expected, decoded);
+        assertEquals(expected.hashCode(), decoded.hashCode());
+        assertArrayEquals(bytes, RosUtils.serializeDataPacket(decoded, 0));
+    }
+
+    @Test
+    void copiesAreIndependent() {
+        Generated original = populate(GENERATED_TYPE.newInstance());
+        Generated sibling = GENERATED_TYPE.newInstance();
+        assertNotEquals(original, sibling);
+        sibling.setCount(original.getCount() + 1);
+        assertEquals(7, original.getCount());
+        assertEquals(0, GENERATED_TYPE.newInstance().getCount());
+    }
+
+    private static Generated populate(Generated msg) {
+        msg.setCount(7);
+        msg.setRatio(0.5D);
+        msg.setFlag(true);
+        msg.setLabel("sample");
+        msg.setHeader(header("base"));
+        msg.setStamp(RosTime.fromInstant(STAMP));
+        msg.setTimeout(TIMEOUT);
+        msg.setValues(new double[] { 1D, -2.5D, 1e9D });
+        msg.setNames(Arrays.asList("a", "", "ccc"));
+        msg.setHeaders(Arrays.asList(header("child0"), header("child1")));
+        return msg;
+    }
+
+    private static Proxied populate(Proxied msg) {
+        msg.setCount(7);
+        msg.setRatio(0.5D);
+        msg.setFlag(true);
+        msg.setLabel("sample");
+        msg.setHeader(header("base"));
+        msg.setStamp(STAMP);
+        msg.setTimeout(TIMEOUT);
+        msg.setValues(Arrays.asList(1D, -2.5D, 1e9D));
+        msg.setNames(Arrays.asList("a", "", "ccc"));
+        msg.setHeaders(Arrays.asList(header("child0"), header("child1")));
+        return msg;
+    }
+
+    private static Header header(String frameId) {
+        Header header = Header.TYPE.newInstance();
+        header.setSeq(frameId.length());
+        header.setStamp(STAMP);
+        header.setFrameId(frameId);
+        return header;
+    }
+
+    private static ByteBuffer wrap(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // public, so it gets a generated implementation; time accessors typed as long get the packed value
+    public interface Generated extends RosData<Generated> {
+
+        int getCount();
+
+        void setCount(int value);
+
+        double getRatio();
+
+        void setRatio(double value);
+
+        boolean getFlag();
+
+        void setFlag(boolean value);
+
+        String getLabel();
+
+        void setLabel(String value);
+
+        Header getHeader();
+
+        void setHeader(Header value);
+
+        long getStamp();
+
+        void setStamp(long value);
+
+        Duration getTimeout();
+
+        void setTimeout(Duration value);
+
+        double[] getValues();
+
+        void setValues(double[] value);
+
+        List<String> getNames();
+
+        void setNames(List<String> value);
+
+        List<Header> getHeaders();
+
+        void setHeaders(List<Header> value);
+
+    }
+
+    // the same message behind a package-private interface, which can only be implemented by a proxy
+    interface Proxied extends RosData<Proxied> {
+
+        int getCount();
+
+        void setCount(int value);
+
+        double getRatio();
+
+        void setRatio(double value);
+
+        boolean getFlag();
+
+        void setFlag(boolean value);
+
+        String getLabel();
+
+        void setLabel(String value);
+
+        Header getHeader();
+
+        void setHeader(Header value);
+
+        Instant getStamp();
+
+        void setStamp(Instant value);
+
+        Duration getTimeout();
+
+        void setTimeout(Duration value);
+
+        List<Double> getValues();
+
+        void setValues(List<Double> value);
+
+        List<String> getNames();
+
+        void setNames(List<String> value);
+
+        List<Header> getHeaders();
+
+        void setHeaders(List<Header> value);
+
+    }
+
+}
@@ -0,0 +1,208 @@
+package xyz.phanta.rosjay.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RosDataQueueTest {
+
+    private static final int PRODUCERS = 4;
+    private static final int OFFERS_PER_PRODUCER = 100_000;
+
+    @Test
+    void singleProducerOverwritesOldestWhenFull() {
+        RosDataQueue<Integer> queue = RosDataQueue.singleProducer(4);
+        for (int i = 0; i < 10; i++) {
+            queue.offer(i);
+        }
+        assertEquals(4, queue.getCount());
+        assertEquals(6L, queue.getDropCount());
+        List<Integer> polled = new ArrayList<>();
+        Integer value;
+        while ((value = queue.poll()) != null) {
+            polled.add(value);
+        }
+        assertEquals(Arrays.asList(6, 7, 8, 9), polled);
+        assertEquals(6L, queue.getDropCount());
+        assertEquals(10, queue.getTotalOfferCount());
+    }
+
+    @Test
+    void multiProducerOverwritesOldestWhenFull() {
+        RosDataQueue<Integer> queue = RosDataQueue.multiProducer(4);
+        for (int i = 0; i < 10; i++) {
+            queue.offer(i);
+        }
+        List<Integer> polled = new ArrayList<>();
+        assertEquals(4, queue.drainTo(polled, Integer.MAX_VALUE));
+        assertEquals(Arrays.asList(6, 7, 8, 9), polled);
+        assertEquals(6L, queue.getDropCount());
+    }
+
+    @Test
+    void multiProducerKeepsEachProducersOrder() throws Exception {
+        RosDataQueue<long[]> queue = RosDataQueue.multiProducer(64);
+        List<Thread> producers = startProducers(queue);
+        long[] lastSeen = new long[PRODUCERS];
+        Arrays.fill(lastSeen, -1L);
+        long polled = 0L;
+        while (producers.stream().anyMatch(Thread::isAlive) || queue.getCount() > 0) {
+            long[] entry = queue.poll();
+            if (entry == null) {
+                Thread.yield();
+                continue;
+            }
+            int producer = (int)entry[0];
+            assertTrue(entry[1] > lastSeen[producer], "Entries from producer " + producer + " out of order");
+            lastSeen[producer] = entry[1];
+            ++polled;
+        }
+        joinAll(producers);
+        assertEquals((long)PRODUCERS * OFFERS_PER_PRODUCER, polled + queue.getDropCount());
+    }
+
+    @Test
+    void dropCountIsExactUnderConcurrentProducers() throws Exception {
+        RosDataQueue<long[]> queue = RosDataQueue.multiProducer(128);
+        joinAll(startProducers(queue));
+        assertEquals((long)PRODUCERS * OFFERS_PER_PRODUCER - 128, queue.getDropCount());
+        assertEquals(128, queue.getCount());
+        assertEquals(128, queue.drainTo(new ArrayList<>(), Integer.MAX_VALUE));
+        assertEquals((long)PRODUCERS * OFFERS_PER_PRODUCER - 128, queue.getDropCount());
+    }
+
+    @Test
+    void drainToRespectsLimits() {
+        RosDataQueue<Integer> queue = RosDataQueue.singleProducer(8);
+        List<Integer> dest = new ArrayList<>();
+        assertEquals(0, queue.drainTo(dest, 8));
+        for (int i = 0; i < 5; i++) {
+            queue.offer(i);
+        }
+        assertEquals(0, queue.drainTo(dest, 0));
+        assertTrue(dest.isEmpty());
+        assertEquals(2, queue.drainTo(dest, 2));
+        assertEquals(Arrays.asList(0, 1), dest);
+        assertEquals(3, queue.drainTo(dest, 10));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4), dest);
+        assertEquals(0, queue.drainTo(dest, 10));
+        assertEquals(0, queue.getCount());
+    }
+
+    @Test
+    void pollBlockingWakesOnOffer() throws Exception {
+        RosDataQueue<String> queue = RosDataQueue.singleProducer(4);
+        AtomicReference<String> received = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                received.set(queue.pollBlocking());
+            } catch (InterruptedException e) {
+                // left empty, which fails the assertion below
+            }
+        });
+        consumer.start();
+        awaitParked(consumer);
+        queue.offer("hello");
+        consumer.join(5000L);
+        assertFalse(consumer.isAlive());
+        assertEquals("hello", received.get());
+    }
+
+    @Test
+    void pollBlockingServesEveryWaiter() throws Exception {
+        RosDataQueue<Integer> queue = RosDataQueue.multiProducer(16);
+        List<Integer> received = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch done = new CountDownLatch(3);
+        List<Thread> consumers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Thread consumer = new Thread(() -> {
+                try {
+                    received.add(queue.pollBlocking());
+                    done.countDown();
+                } catch (InterruptedException e) {
+                    // never counted down, which fails the assertion below
+                }
+            });
+            consumer.start();
+            consumers.add(consumer);
+        }
+        for (Thread consumer : consumers) {
+            awaitParked(consumer);
+        }
+        for (int i = 0; i < 3; i++) {
+            queue.offer(i);
+        }
+        assertTrue(done.await(5L, TimeUnit.SECONDS));
+        Collections.sort(received);
+        assertEquals(Arrays.asList(0, 1, 2), received);
+    }
+
+    @Test
+    void pollBlockingThrowsOnInterrupt() throws Exception {
+        RosDataQueue<String> queue = RosDataQueue.singleProducer(4);
+        AtomicReference<Throwable> thrown = new AtomicReference<>();
+        Thread consumer = new Thread(() -> {
+            try {
+                queue.pollBlocking();
+            } catch (Throwable e) {
+                thrown.set(e);
+            }
+        });
+        consumer.start();
+        awaitParked(consumer);
+        consumer.interrupt();
+        consumer.join(5000L);
+        assertFalse(consumer.isAlive());
+        assertTrue(thrown.get() instanceof InterruptedException);
+        queue.offer("after"); // the interrupted thread mustn't still be registered as a waiter
+        assertEquals("after", queue.poll());
+    }
+
+    // each entry is {producer index, sequence number within that producer}
+    private static List<Thread> startProducers(RosDataQueue<long[]> queue) {
+        CyclicBarrier start = new CyclicBarrier(PRODUCERS);
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            long producer = p;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                for (long i = 0; i < OFFERS_PER_PRODUCER; i++) {
+                    queue.offer(new long[] { producer, i });
+                }
+            });
+            thread.start();
+            producers.add(thread);
+        }
+        return producers;
+    }
+
+    private static void joinAll(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static void awaitParked(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000L;
+        while (thread.getState() != Thread.State.WAITING) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Thread never blocked");
+            }
+            Thread.sleep(1L);
+        }
+    }
+
+}